@@ -0,0 +1,101 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.fabricmc.mapping.tree.TinyMappingFactory;
+import net.fabricmc.mapping.tree.TinyTree;
+
+/** Measures lookups against a synthetic set of mappings that is roughly the size of Minecraft's. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class QuiltMappingResolverBenchmark {
+	private static final int CLASS_COUNT = 6000;
+	private static final int MEMBER_COUNT = 10;
+
+	private TinyTree mappings;
+	private QuiltMappingResolver resolver;
+	private int index;
+
+	@Setup
+	public void setup() throws IOException {
+		StringBuilder sb = new StringBuilder("tiny\t2\t0\tintermediary\tnamed\n");
+
+		for (int c = 0; c < CLASS_COUNT; c++) {
+			sb.append("c\tnet/minecraft/class_").append(c).append("\tnet/minecraft/pkg").append(c % 50).append("/Named").append(c).append('\n');
+
+			for (int m = 0; m < MEMBER_COUNT; m++) {
+				int id = c * MEMBER_COUNT + m;
+				sb.append("\tf\tI\tfield_").append(id).append("\tnamedField").append(m).append('\n');
+				sb.append("\tm\t()V\tmethod_").append(id).append("\tnamedMethod").append(m).append('\n');
+			}
+		}
+
+		mappings = TinyMappingFactory.loadWithDetection(new BufferedReader(new StringReader(sb.toString())));
+		// Built eagerly, since the first lookup in each namespace builds that namespace's tables
+		resolver = new QuiltMappingResolver(() -> mappings, "named");
+		resolver.mapClassName("intermediary", "net.minecraft.class_0");
+	}
+
+	/** Builds the lookup tables for a namespace, which the first lookup in each namespace has to do. */
+	@Benchmark
+	public String firstLookup() {
+		return new QuiltMappingResolver(() -> mappings, "named").mapClassName("intermediary", "net.minecraft.class_0");
+	}
+
+	@Benchmark
+	public String mapClassName() {
+		return resolver.mapClassName("intermediary", "net.minecraft.class_" + next());
+	}
+
+	@Benchmark
+	public String unmapClassName() {
+		int c = next();
+		return resolver.unmapClassName("intermediary", "net.minecraft.pkg" + (c % 50) + ".Named" + c);
+	}
+
+	@Benchmark
+	public String mapMethodName() {
+		int c = next();
+		return resolver.mapMethodName("intermediary", "net.minecraft.class_" + c, "method_" + (c * MEMBER_COUNT), "()V");
+	}
+
+	@Benchmark
+	public String mapFieldName() {
+		int c = next();
+		return resolver.mapFieldName("intermediary", "net.minecraft.class_" + c, "field_" + (c * MEMBER_COUNT), "I");
+	}
+
+	private int next() {
+		int i = index + 1;
+		index = i == CLASS_COUNT ? 0 : i;
+		return index;
+	}
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quiltmc.loader.api.Version;
+import org.quiltmc.loader.api.VersionFormatException;
+import org.quiltmc.loader.impl.metadata.qmj.SemanticVersionImpl;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class VersionBenchmark {
+	@State(Scope.Benchmark)
+	public static class ParseState {
+		@Param({ "1.0.0", "2.14.3-beta.2+build.1337" })
+		public String raw;
+	}
+
+	@State(Scope.Benchmark)
+	public static class MatchState {
+		@Param({ "1.0.0", "2.14.3-beta.2+build.1337" })
+		public String raw;
+
+		@Param({ ">=1.0.0", "=2.14.3-beta.2+build.1337", "^1.0.0", "*" })
+		public String constraint;
+
+		VersionConstraintImpl parsedConstraint;
+		Version version;
+
+		@Setup
+		public void setup() {
+			parsedConstraint = VersionConstraintImpl.parse(constraint);
+			version = Version.of(raw);
+		}
+	}
+
+	@Benchmark
+	public SemanticVersionImpl parseSemantic(ParseState state) throws VersionFormatException {
+		return SemanticVersionImpl.of(state.raw);
+	}
+
+	@Benchmark
+	public boolean matches(MatchState state) {
+		return state.parsedConstraint.matches(state.version);
+	}
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.discovery;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.quiltmc.loader.impl.solver.ModSolveResult;
+
+/**
+ * Runs {@link ModResolver#resolve} end to end against a synthetic modpack written to disk, including reading every
+ * jar and its nested jars. JMH reports the total time, and the time spent in detection and solving is logged after
+ * each iteration.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModResolverBenchmark {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	@Param({ "100", "1000", "5000" })
+	public int modCount;
+
+	private Path gameDir;
+	private Path modsDir;
+
+	private long detectionNanos;
+	private long solvingNanos;
+	private long totalNanos;
+	private int invocations;
+
+	@Setup(Level.Trial)
+	public void writeModpack() throws IOException {
+		gameDir = Files.createTempDirectory("quilt-loader-benchmark");
+		modsDir = gameDir.resolve("mods");
+		SyntheticModpack.generate(modCount, 42).writeTo(modsDir);
+	}
+
+	@TearDown(Level.Invocation)
+	public void deleteNestedJars() throws IOException {
+		// Every invocation copies the selected nested jars into memory again, so don't let them pile up
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(ModResolver.getInMemoryFs().getPath("/"))) {
+			for (Path path : stream) {
+				Files.deleteIfExists(path);
+			}
+		}
+	}
+
+	@Benchmark
+	public ModSolveResult resolve() throws ModResolutionException {
+		long start = System.nanoTime();
+		ModResolver resolver = new ModResolver(LOGGER, false, gameDir);
+		resolver.addCandidateFinder(new DirectoryModCandidateFinder(modsDir, false));
+
+		try {
+			return resolver.resolve(null);
+		} finally {
+			resolver.releaseJarFileSystems();
+			totalNanos += System.nanoTime() - start;
+			detectionNanos += resolver.getDetectionNanos();
+			solvingNanos += resolver.getSolvingNanos();
+			invocations++;
+		}
+	}
+
+	@TearDown(Level.Iteration)
+	public void reportPhases() {
+		if (invocations > 0) {
+			LOGGER.info(String.format("%d mods: detection %.1f ms, solving %.1f ms, total %.1f ms (average of %d)",
+				modCount, detectionNanos / 1e6 / invocations, solvingNanos / 1e6 / invocations,
+				totalNanos / 1e6 / invocations, invocations));
+		}
+
+		detectionNanos = solvingNanos = totalNanos = 0;
+		invocations = 0;
+	}
+
+	@TearDown(Level.Trial)
+	public void deleteModpack() throws IOException {
+		try (Stream<Path> stream = Files.walk(gameDir)) {
+			stream.sorted(Comparator.reverseOrder()).forEach(path -> {
+				try {
+					Files.delete(path);
+				} catch (IOException e) {
+					LOGGER.warn("Failed to delete " + path, e);
+				}
+			});
+		}
+	}
+}
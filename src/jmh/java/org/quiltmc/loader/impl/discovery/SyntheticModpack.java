@@ -0,0 +1,263 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.discovery;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.apache.logging.log4j.Logger;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
+import org.quiltmc.loader.impl.metadata.qmj.ModMetadataReader;
+
+/**
+ * Generates a modpack of any size, with a dependency graph that looks roughly like a real one:
+ * <ul>
+ * <li>Most mods depend on a few other mods, using a mix of version ranges, and sometimes through a provided ID.</li>
+ * <li>Some mods have optional dependencies on mods that aren't installed, or break versions of mods that aren't.</li>
+ * <li>Many mods bundle one of a shared pool of libraries in different versions, so the solver has to pick between
+ * them, and some of those libraries bundle a library of their own.</li>
+ * </ul>
+ * The same seed always generates the same modpack, which can be solved.
+ */
+public final class SyntheticModpack {
+	/** The number of filler files in each jar, so that central directories aren't unrealistically small. */
+	private static final int FILES_PER_JAR = 16;
+
+	private static final String[] VERSION_RANGES = { "\">=1.0.0\"", "\"^1.0.0\"", "[\"^1.0.0\", \"^2.0.0\"]", "\"*\"" };
+
+	/** A mod jar, along with the jars nested inside it. */
+	public static final class Mod {
+		public final String id;
+		public final String version;
+		public final String json;
+		public final List<Mod> nested;
+
+		Mod(String id, String version, String json, List<Mod> nested) {
+			this.id = id;
+			this.version = version;
+			this.json = json;
+			this.nested = nested;
+		}
+
+		String jarName() {
+			return id + "-" + version + ".jar";
+		}
+	}
+
+	private final List<Mod> mods;
+
+	private SyntheticModpack(List<Mod> mods) {
+		this.mods = Collections.unmodifiableList(mods);
+	}
+
+	public static SyntheticModpack generate(int modCount, long seed) {
+		Random random = new Random(seed);
+		int libraryCount = Math.max(1, modCount / 10);
+		List<Mod> mods = new ArrayList<>(modCount);
+
+		for (int i = 0; i < modCount; i++) {
+			String id = "mod_" + i;
+			StringBuilder depends = new StringBuilder();
+			StringBuilder breaks = new StringBuilder();
+			List<Mod> nested = new ArrayList<>();
+
+			// Only depend on earlier mods, so the graph is always solvable
+			int dependencyCount = i == 0 ? 0 : random.nextInt(Math.min(i, 4));
+
+			for (int d = 0; d < dependencyCount; d++) {
+				int target = random.nextInt(i);
+				// Every tenth mod provides an API ID as well, so depend on that sometimes
+				String targetId = target % 10 == 0 && random.nextBoolean() ? "api_" + target : "mod_" + target;
+				appendDependency(depends, targetId, VERSION_RANGES[random.nextInt(VERSION_RANGES.length)], false);
+			}
+
+			if (random.nextInt(5) == 0) {
+				appendDependency(depends, "addon_" + i, "\"*\"", true);
+			}
+
+			if (i > 0 && random.nextInt(20) == 0) {
+				// Every mod is at 1.0.0, so this never actually breaks anything
+				appendDependency(breaks, "mod_" + random.nextInt(i), "\"<1.0.0\"", false);
+			}
+
+			if (random.nextInt(3) == 0) {
+				Mod library = generateLibrary(random, "lib_" + random.nextInt(libraryCount), libraryCount);
+				nested.add(library);
+				appendDependency(depends, library.id, "\">=1.0.0\"", false);
+			}
+
+			String provides = i % 10 == 0 ? "api_" + i : null;
+			mods.add(new Mod(id, "1.0.0", json(id, "1.0.0", provides, depends, breaks, nested), nested));
+		}
+
+		return new SyntheticModpack(mods);
+	}
+
+	private static Mod generateLibrary(Random random, String id, int libraryCount) {
+		String version = "1." + random.nextInt(5) + ".0";
+		StringBuilder depends = new StringBuilder();
+		List<Mod> nested = new ArrayList<>();
+
+		if (random.nextInt(4) == 0) {
+			String subId = "sublib_" + random.nextInt(Math.max(1, libraryCount / 4));
+			String subVersion = "1." + random.nextInt(3) + ".0";
+			nested.add(new Mod(subId, subVersion, json(subId, subVersion, null, depends, new StringBuilder(), Collections.emptyList()), Collections.emptyList()));
+			appendDependency(depends, subId, "\"^1.0.0\"", false);
+		}
+
+		return new Mod(id, version, json(id, version, null, depends, new StringBuilder(), nested), nested);
+	}
+
+	private static void appendDependency(StringBuilder list, String id, String versions, boolean optional) {
+		if (list.length() > 0) {
+			list.append(", ");
+		}
+
+		list.append("{\"id\": \"").append(id).append("\", \"versions\": ").append(versions);
+
+		if (optional) {
+			list.append(", \"optional\": true");
+		}
+
+		list.append('}');
+	}
+
+	private static String json(String id, String version, String provides, StringBuilder depends, StringBuilder breaks, List<Mod> nested) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\n");
+		sb.append("\t\"schema_version\": 1,\n");
+		sb.append("\t\"quilt_loader\": {\n");
+		sb.append("\t\t\"group\": \"org.example\",\n");
+		sb.append("\t\t\"id\": \"").append(id).append("\",\n");
+		sb.append("\t\t\"version\": \"").append(version).append("\",\n");
+
+		if (provides != null) {
+			sb.append("\t\t\"provides\": [\"").append(provides).append("\"],\n");
+		}
+
+		if (!nested.isEmpty()) {
+			sb.append("\t\t\"jars\": [");
+
+			for (int i = 0; i < nested.size(); i++) {
+				sb.append(i > 0 ? ", " : "").append("\"META-INF/jars/").append(nested.get(i).jarName()).append('"');
+			}
+
+			sb.append("],\n");
+		}
+
+		if (breaks.length() > 0) {
+			sb.append("\t\t\"breaks\": [").append(breaks).append("],\n");
+		}
+
+		sb.append("\t\t\"depends\": [").append(depends).append("]\n");
+		sb.append("\t}\n");
+		sb.append("}\n");
+		return sb.toString();
+	}
+
+	public List<Mod> getMods() {
+		return mods;
+	}
+
+	/** @return Every quilt.mod.json in the modpack, including nested ones. */
+	public List<byte[]> getAllJsons() {
+		List<byte[]> jsons = new ArrayList<>();
+		addJsons(jsons, mods);
+		return jsons;
+	}
+
+	private static void addJsons(List<byte[]> jsons, List<Mod> mods) {
+		for (Mod mod : mods) {
+			jsons.add(mod.json.getBytes(StandardCharsets.UTF_8));
+			addJsons(jsons, mod.nested);
+		}
+	}
+
+	/** @return The candidates that mod discovery would have found for this modpack, ready to be given to the solver. */
+	public Map<String, ModCandidateSet> toCandidateSets(Logger logger) throws IOException, ParseException {
+		Map<String, ModCandidateSet> sets = new HashMap<>();
+
+		for (Mod mod : mods) {
+			addCandidates(sets, logger, mod, new URL("file:/synthetic/" + mod.jarName()), 0);
+		}
+
+		return sets;
+	}
+
+	private static void addCandidates(Map<String, ModCandidateSet> sets, Logger logger, Mod mod, URL url, int depth) throws IOException, ParseException {
+		InternalModMetadata metadata = ModMetadataReader.read(logger, mod.json.getBytes(StandardCharsets.UTF_8));
+		ModCandidate candidate = new ModCandidate(metadata.asFabricModMetadata(), url, depth, false);
+		sets.computeIfAbsent(mod.id, ModCandidateSet::new).add(candidate);
+
+		for (Mod nested : mod.nested) {
+			addCandidates(sets, logger, nested, new URL("jar:" + url + "!/META-INF/jars/" + nested.jarName()), depth + 1);
+		}
+	}
+
+	/** Writes every mod in the modpack into the given folder as a jar, with its libraries nested inside it. */
+	public void writeTo(Path modsDir) throws IOException {
+		Files.createDirectories(modsDir);
+
+		for (Mod mod : mods) {
+			Files.write(modsDir.resolve(mod.jarName()), toJar(mod));
+		}
+	}
+
+	private static byte[] toJar(Mod mod) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			zip.putNextEntry(new ZipEntry("quilt.mod.json"));
+			zip.write(mod.json.getBytes(StandardCharsets.UTF_8));
+
+			for (int i = 0; i < FILES_PER_JAR; i++) {
+				zip.putNextEntry(new ZipEntry("assets/" + mod.id + "/data/file_" + i + ".json"));
+				zip.write(("{\"mod\": \"" + mod.id + "\", \"index\": " + i + "}").getBytes(StandardCharsets.UTF_8));
+			}
+
+			for (Mod nested : mod.nested) {
+				// Stored, like build tools do, so the nested jar can be read without inflating it first
+				byte[] nestedJar = toJar(nested);
+				ZipEntry entry = new ZipEntry("META-INF/jars/" + nested.jarName());
+				entry.setMethod(ZipEntry.STORED);
+				entry.setSize(nestedJar.length);
+				entry.setCompressedSize(nestedJar.length);
+				CRC32 crc = new CRC32();
+				crc.update(nestedJar);
+				entry.setCrc(crc.getValue());
+				zip.putNextEntry(entry);
+				zip.write(nestedJar);
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+}
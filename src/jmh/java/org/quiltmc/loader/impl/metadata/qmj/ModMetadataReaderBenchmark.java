@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.metadata.qmj;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+import org.quiltmc.json5.exception.ParseException;
+import org.quiltmc.loader.impl.discovery.SyntheticModpack;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ModMetadataReaderBenchmark {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	private List<byte[]> jsons;
+	private byte[] single;
+
+	@Setup
+	public void setup() {
+		jsons = SyntheticModpack.generate(100, 42).getAllJsons();
+		// The largest one, so that it has some dependencies and provides
+		single = jsons.stream().max((a, b) -> Integer.compare(a.length, b.length)).get();
+	}
+
+	@Benchmark
+	public InternalModMetadata readSingle() throws IOException, ParseException {
+		return ModMetadataReader.read(LOGGER, single);
+	}
+
+	/** Reads every quilt.mod.json in a 100 mod pack, which is roughly what discovery does on each launch. */
+	@Benchmark
+	public void readModpack(Blackhole blackhole) throws IOException, ParseException {
+		for (byte[] json : jsons) {
+			blackhole.consume(ModMetadataReader.read(LOGGER, json));
+		}
+	}
+}
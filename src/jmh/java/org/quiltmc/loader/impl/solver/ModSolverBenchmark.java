@@ -0,0 +1,57 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.quiltmc.loader.impl.discovery.ModCandidateSet;
+import org.quiltmc.loader.impl.discovery.ModResolutionException;
+import org.quiltmc.loader.impl.discovery.SyntheticModpack;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ModSolverBenchmark {
+	private static final Logger LOGGER = LogManager.getLogger();
+
+	@Param({ "100", "1000", "10000" })
+	public int modCount;
+
+	private Map<String, ModCandidateSet> candidates;
+
+	@Setup
+	public void setup() throws Exception {
+		// The solver only reads the candidate sets, so they can be shared between invocations
+		candidates = SyntheticModpack.generate(modCount, 42).toCandidateSets(LOGGER);
+	}
+
+	@Benchmark
+	public ModSolveResult findCompatibleSet() throws ModResolutionException {
+		return new ModSolver(LOGGER).findCompatibleSet(candidates);
+	}
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import java.util.concurrent.TimeUnit;
+
+import org.objectweb.asm.AnnotationVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import net.fabricmc.api.EnvType;
+
+/**
+ * Measures the transformer on a mod class, where only environment stripping applies. Minecraft classes also need
+ * a launcher and its mappings, so they aren't covered here.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class QuiltTransformerBenchmark {
+	private static final String CLASS_NAME = "org.example.benchmark.GeneratedClass";
+
+	/** {@code SERVER} strips the client only members from the class, {@code CLIENT} only has to look for them. */
+	@Param({ "CLIENT", "SERVER" })
+	public EnvType envType;
+
+	@Param({ "20", "200" })
+	public int memberCount;
+
+	private byte[] bytes;
+
+	@Setup
+	public void setup() {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_PUBLIC, CLASS_NAME.replace('.', '/'), null, "java/lang/Object", null);
+
+		for (int i = 0; i < memberCount; i++) {
+			boolean clientOnly = i % 4 == 0;
+
+			FieldVisitor field = writer.visitField(Opcodes.ACC_PUBLIC, "field" + i, "I", null, null);
+			if (clientOnly) {
+				annotateClientOnly(field.visitAnnotation("Lnet/fabricmc/api/Environment;", true));
+			}
+			field.visitEnd();
+
+			MethodVisitor method = writer.visitMethod(Opcodes.ACC_PUBLIC, "method" + i, "()I", null, null);
+			if (clientOnly) {
+				annotateClientOnly(method.visitAnnotation("Lnet/fabricmc/api/Environment;", true));
+			}
+			method.visitCode();
+			method.visitVarInsn(Opcodes.ALOAD, 0);
+			method.visitFieldInsn(Opcodes.GETFIELD, CLASS_NAME.replace('.', '/'), "field" + i, "I");
+			method.visitInsn(Opcodes.IRETURN);
+			method.visitMaxs(0, 0);
+			method.visitEnd();
+		}
+
+		writer.visitEnd();
+		bytes = writer.toByteArray();
+	}
+
+	private static void annotateClientOnly(AnnotationVisitor annotation) {
+		annotation.visitEnum("value", "Lnet/fabricmc/api/EnvType;", "CLIENT");
+		annotation.visitEnd();
+	}
+
+	@Benchmark
+	public byte[] transform() {
+		return QuiltTransformer.transform(false, envType, CLASS_NAME, bytes);
+	}
+}
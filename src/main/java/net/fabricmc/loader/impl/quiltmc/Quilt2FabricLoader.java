@@ -21,13 +21,18 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.loader.api.QuiltLoader;
 import org.quiltmc.loader.api.entrypoint.EntrypointException;
 import org.quiltmc.loader.api.minecraft.MinecraftQuiltLoader;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.api.MappingResolver;
@@ -41,6 +46,62 @@ public class Quilt2FabricLoader implements FabricLoader {
 
 	public static final Quilt2FabricLoader INSTANCE = new Quilt2FabricLoader();
 
+	/*
+	 * Once the loader has finished freezing neither the mods nor their entrypoints can change, so every wrapper is only
+	 * created once and then returned again by every later call. Before that, including while the mods are still being
+	 * set up, each call creates new wrappers.
+	 */
+
+	private volatile ModWrappers modWrappers;
+	private volatile Quilt2FabricMappingResolver mappingResolver;
+	private final Map<String, Map<Class<?>, List<?>>> entrypointContainers = new ConcurrentHashMap<>();
+
+	private static final class ModWrappers {
+		final Collection<ModContainer> all;
+		/** Every mod ID and provided alias. IDs that aren't loaded aren't stored, so checking for them can't fill this up. */
+		final Map<String, Optional<ModContainer>> byId = new HashMap<>();
+
+		ModWrappers(Collection<org.quiltmc.loader.api.ModContainer> mods, Map<String, org.quiltmc.loader.api.ModContainer> ids) {
+			Map<org.quiltmc.loader.api.ModContainer, ModContainer> wrappers = new IdentityHashMap<>();
+			List<ModContainer> all = new ArrayList<>(mods.size());
+
+			for (org.quiltmc.loader.api.ModContainer mod : mods) {
+				ModContainer wrapper = new Quilt2FabricModContainer(mod);
+				wrappers.put(mod, wrapper);
+				all.add(wrapper);
+			}
+
+			for (Map.Entry<String, org.quiltmc.loader.api.ModContainer> entry : ids.entrySet()) {
+				ModContainer wrapper = wrappers.computeIfAbsent(entry.getValue(), Quilt2FabricModContainer::new);
+				byId.put(entry.getKey(), Optional.of(wrapper));
+			}
+
+			this.all = Collections.unmodifiableList(all);
+		}
+
+		Optional<ModContainer> get(String id) {
+			return byId.getOrDefault(id, Optional.empty());
+		}
+	}
+
+	/** @return The cached wrappers, or null if the loader isn't frozen yet. */
+	@Nullable
+	private ModWrappers getModWrappers() {
+		ModWrappers wrappers = modWrappers;
+
+		if (wrappers == null && QuiltLoaderImpl.INSTANCE.isFreezeFinished()) {
+			synchronized (this) {
+				wrappers = modWrappers;
+
+				if (wrappers == null) {
+					modWrappers = wrappers = new ModWrappers(QuiltLoader.getAllMods(), QuiltLoaderImpl.INSTANCE.getModsById());
+				}
+			}
+		}
+
+		return wrappers;
+	}
+
 	@Override
 	public <T> List<T> getEntrypoints(String key, Class<T> type) {
 		return QuiltLoader.getEntrypoints(key, type);
@@ -48,30 +109,72 @@ public class Quilt2FabricLoader implements FabricLoader {
 
 	@Override
 	public <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
-		List<org.quiltmc.loader.api.entrypoint.EntrypointContainer<T>> from = QuiltLoader.getEntrypointContainers(key, type);
-		List<EntrypointContainer<T>> out = new ArrayList<>(from.size());
-		try {
-			for (org.quiltmc.loader.api.entrypoint.EntrypointContainer<T> c : from) {
-				out.add(new Quilt2FabricEntrypointContainer<>(c));
+		Map<Class<?>, List<?>> byType = entrypointContainers.get(key);
+
+		if (byType != null) {
+			@SuppressWarnings("unchecked")
+			List<EntrypointContainer<T>> cached = (List<EntrypointContainer<T>>) byType.get(type);
+
+			if (cached != null) {
+				return cached;
 			}
-			return out;
+		}
+
+		List<org.quiltmc.loader.api.entrypoint.EntrypointContainer<T>> from;
+		try {
+			from = QuiltLoader.getEntrypointContainers(key, type);
 		} catch (EntrypointException e) {
 			throw new net.fabricmc.loader.api.EntrypointException(e.getKey(), e);
 		}
+
+		List<EntrypointContainer<T>> out = new ArrayList<>(from.size());
+		for (org.quiltmc.loader.api.entrypoint.EntrypointContainer<T> c : from) {
+			out.add(new Quilt2FabricEntrypointContainer<>(c));
+		}
+
+		if (!QuiltLoaderImpl.INSTANCE.isFreezeFinished()) {
+			return out;
+		}
+
+		List<EntrypointContainer<T>> result = Collections.unmodifiableList(out);
+		@SuppressWarnings("unchecked")
+		List<EntrypointContainer<T>> previous = (List<EntrypointContainer<T>>) entrypointContainers
+			.computeIfAbsent(key, k -> new ConcurrentHashMap<>())
+			.putIfAbsent(type, result);
+		return previous != null ? previous : result;
 	}
 
 	@Override
 	public MappingResolver getMappingResolver() {
-		return new Quilt2FabricMappingResolver(QuiltLoader.getMappingResolver());
+		org.quiltmc.loader.api.MappingResolver quilt = QuiltLoader.getMappingResolver();
+		Quilt2FabricMappingResolver resolver = mappingResolver;
+
+		if (resolver == null || resolver.getQuilt() != quilt) {
+			mappingResolver = resolver = new Quilt2FabricMappingResolver(quilt);
+		}
+
+		return resolver;
 	}
 
 	@Override
 	public Optional<ModContainer> getModContainer(String id) {
+		ModWrappers wrappers = getModWrappers();
+
+		if (wrappers != null) {
+			return wrappers.get(id);
+		}
+
 		return QuiltLoader.getModContainer(id).map(Quilt2FabricModContainer::new);
 	}
 
 	@Override
 	public Collection<ModContainer> getAllMods() {
+		ModWrappers wrappers = getModWrappers();
+
+		if (wrappers != null) {
+			return wrappers.all;
+		}
+
 		Collection<ModContainer> out = new ArrayList<>();
 		for (org.quiltmc.loader.api.ModContainer mc : QuiltLoader.getAllMods()) {
 			out.add(new Quilt2FabricModContainer(mc));
@@ -27,6 +27,10 @@ public class Quilt2FabricMappingResolver implements net.fabricmc.loader.api.Mapp
 		this.quilt = quilt;
 	}
 
+	MappingResolver getQuilt() {
+		return quilt;
+	}
+
 	@Override
 	public Collection<String> getNamespaces() {
 		return quilt.getNamespaces();
@@ -24,6 +24,7 @@ import java.util.Optional;
 import org.jetbrains.annotations.Nullable;
 import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
 import org.quiltmc.loader.api.entrypoint.EntrypointException;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
 
 import net.fabricmc.api.EnvType;
@@ -91,6 +92,16 @@ public final class QuiltLoader {
 		return impl().getEntrypointContainers(key, type);
 	}
 
+	/**
+	 * Returns how long each declared entrypoint has taken to load, construct and invoke so far. This is intended for
+	 * finding out which mods slow down game startup.
+	 *
+	 * @return the timings of every entrypoint, in the order they were declared
+	 */
+	public static List<EntrypointTiming> getEntrypointTimings() {
+		return impl().getEntrypointTimings();
+	}
+
 	/**
 	 * Get the current mapping resolver.
 	 *
@@ -123,6 +134,31 @@ public final class QuiltLoader {
 		return impl().getAllMods();
 	}
 
+	/**
+	 * Gets every mod that contains a given file or folder. All mods share one index of their files, so this doesn't
+	 * need to look inside each mod. Builtin mods, such as the game itself, aren't included.
+	 *
+	 * @param path the path of the file or folder, relative to the root of each mod and separated by {@code /}
+	 * @return the mods that contain the path, in load order
+	 * @throws IllegalStateException if the game hasn't finished loading mods yet
+	 */
+	public static List<ModContainer> getModsContaining(String path) {
+		return impl().getModsContaining(path);
+	}
+
+	/**
+	 * Gets a given file or folder from every mod that contains it, as if every mod was merged into a single read-only
+	 * file system. Builtin mods, such as the game itself, aren't included.
+	 *
+	 * @param path the path of the file or folder, relative to the root of each mod and separated by {@code /}
+	 * @return the path in each mod that contains it, in load order
+	 * @throws IllegalStateException if the game hasn't finished loading mods yet
+	 * @see #getModsContaining(String)
+	 */
+	public static List<Path> getModPaths(String path) {
+		return impl().getModPaths(path);
+	}
+
 	/**
 	 * Checks if a mod with a given ID is loaded.
 	 *
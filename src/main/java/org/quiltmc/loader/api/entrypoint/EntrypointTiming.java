@@ -0,0 +1,64 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.api.entrypoint;
+
+import org.quiltmc.loader.api.ModContainer;
+
+/**
+ * Time spent loading, constructing and invoking a single entrypoint. All times are in nanoseconds, and are zero for
+ * any phase that hasn't happened yet.
+ *
+ * @see org.quiltmc.loader.api.QuiltLoader#getEntrypointTimings()
+ */
+public interface EntrypointTiming {
+	/**
+	 * Returns the key that the entrypoint was declared under.
+	 */
+	String getKey();
+
+	/**
+	 * Returns the mod that provided the entrypoint.
+	 */
+	ModContainer getProvider();
+
+	/**
+	 * Returns the value of the entrypoint declaration, as passed to its language adapter.
+	 */
+	String getValue();
+
+	/**
+	 * Returns the time spent loading (and transforming) the class of the entrypoint.
+	 */
+	long getClassLoadNanos();
+
+	/**
+	 * Returns the time spent creating the entrypoint instance, including any static initialisation.
+	 */
+	long getConstructionNanos();
+
+	/**
+	 * Returns the time spent invoking the entrypoint by the loader, such as in {@code onInitialize}.
+	 */
+	long getInvocationNanos();
+
+	/**
+	 * Returns the sum of the class load, construction and invocation times.
+	 */
+	default long getTotalNanos() {
+		return getClassLoadNanos() + getConstructionNanos() + getInvocationNanos();
+	}
+}
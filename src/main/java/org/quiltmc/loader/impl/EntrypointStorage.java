@@ -18,20 +18,33 @@ package org.quiltmc.loader.impl;
 
 import org.quiltmc.loader.api.LanguageAdapter;
 import org.quiltmc.loader.api.LanguageAdapterException;
+import org.quiltmc.loader.api.ModDependency;
 import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
 import org.quiltmc.loader.impl.entrypoint.EntrypointContainerImpl;
+import org.quiltmc.loader.impl.entrypoint.EntrypointTimingImpl;
 import org.quiltmc.loader.impl.entrypoint.QuiltEntrypointException;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.metadata.EntrypointMetadata;
 import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 class EntrypointStorage {
 	interface Entry {
-		<T> T getOrCreate(Class<T> type) throws Exception;
+		/** @param timing Has the construction time added to it, but only if this call actually creates the instance. */
+		<T> T getOrCreate(Class<T> type, EntrypointTimingImpl timing) throws Exception;
 
 		ModContainer getModContainer();
+
+		/** @return The raw value of the entrypoint, which normally starts with a class name. */
+		String getValue();
 	}
 
 	@SuppressWarnings("deprecation")
@@ -57,10 +70,16 @@ class EntrypointStorage {
 		}
 
 		@Override
-		public <T> T getOrCreate(Class<T> type) throws Exception {
+		public synchronized <T> T getOrCreate(Class<T> type, EntrypointTimingImpl timing) throws Exception {
 			if (object == null) {
-				org.quiltmc.loader.impl.language.LanguageAdapter adapter = (org.quiltmc.loader.impl.language.LanguageAdapter) Class.forName(languageAdapter, true, QuiltLauncherBase.getLauncher().getTargetClassLoader()).getConstructor().newInstance();
-				object = adapter.createInstance(value, options);
+				long start = System.nanoTime();
+
+				try {
+					org.quiltmc.loader.impl.language.LanguageAdapter adapter = (org.quiltmc.loader.impl.language.LanguageAdapter) Class.forName(languageAdapter, true, QuiltLauncherBase.getLauncher().getTargetClassLoader()).getConstructor().newInstance();
+					object = adapter.createInstance(value, options);
+				} finally {
+					timing.addConstructionNanos(System.nanoTime() - start);
+				}
 			}
 
 			if (object == null || !type.isAssignableFrom(object.getClass())) {
@@ -76,13 +95,18 @@ class EntrypointStorage {
 		public ModContainer getModContainer() {
 			return mod;
 		}
+
+		@Override
+		public String getValue() {
+			return value;
+		}
 	}
 
 	private static final class NewEntry implements Entry {
 		private final ModContainer mod;
 		private final LanguageAdapter adapter;
 		private final String value;
-		private final Map<Class<?>, Object> instanceMap = new HashMap<>(1);
+		private final Map<Class<?>, Object> instanceMap = new ConcurrentHashMap<>(1);
 
 		NewEntry(ModContainer mod, LanguageAdapter adapter, String value) {
 			this.mod = mod;
@@ -96,16 +120,30 @@ class EntrypointStorage {
 		}
 
 		@Override
-		public <T> T getOrCreate(Class<T> type) throws Exception {
-			@SuppressWarnings("unchecked")
-			T tmp = (T) instanceMap.computeIfAbsent(type, t -> {
-				try {
-					return adapter.create(mod, value, t);
-				} catch (LanguageAdapterException ex) {
-					throw sneakyThrows(ex);
+		public <T> T getOrCreate(Class<T> type, EntrypointTimingImpl timing) throws Exception {
+			Object instance = instanceMap.get(type);
+
+			if (instance == null) {
+				// Not computeIfAbsent, since the adapter may end up looking up this entrypoint again
+				synchronized (this) {
+					instance = instanceMap.get(type);
+
+					if (instance == null) {
+						long start = System.nanoTime();
+
+						try {
+							instance = adapter.create(mod, value, type);
+						} finally {
+							timing.addConstructionNanos(System.nanoTime() - start);
+						}
+
+						instanceMap.put(type, instance);
+					}
 				}
-			});
+			}
 
+			@SuppressWarnings("unchecked")
+			T tmp = (T) instance;
 			return tmp;
 		}
 
@@ -114,20 +152,47 @@ class EntrypointStorage {
 			return mod;
 		}
 
+		@Override
+		public String getValue() {
+			return value;
+		}
 	}
 
 	private final Map<String, List<Entry>> entryMap = new HashMap<>();
+	/**
+	 * Old-style entries are shared between keys, so they are timed separately for each key. Both of these are replaced
+	 * with unmodifiable copies when frozen, before any worker threads can read them.
+	 */
+	private Map<String, Map<Entry, EntrypointTimingImpl>> timingMap = new HashMap<>();
+	private List<EntrypointTimingImpl> timings = new ArrayList<>();
+	/** Results of lookups by key and type, only filled in once frozen so they can never go stale. */
+	private final Map<String, Map<Class<?>, List<?>>> entrypointCache = new ConcurrentHashMap<>();
+	private final Map<String, Map<Class<?>, List<?>>> containerCache = new ConcurrentHashMap<>();
+	private volatile boolean frozen = false;
+	/** Shared by every stage that prepares its entrypoints in parallel, created the first time one does. */
+	private ExecutorService workers;
 
 	private List<Entry> getOrCreateEntries(String key) {
 		return entryMap.computeIfAbsent(key, (z) -> new ArrayList<>());
 	}
 
+	private void addEntry(String key, Entry entry) {
+		if (frozen) {
+			throw new IllegalStateException("Cannot add entrypoints once frozen!");
+		}
+
+		getOrCreateEntries(key).add(entry);
+		EntrypointTimingImpl timing = new EntrypointTimingImpl(key, entry.getModContainer(), entry.getValue());
+		timingMap.computeIfAbsent(key, k -> new IdentityHashMap<>()).put(entry, timing);
+		timings.add(timing);
+	}
+
 	protected void addDeprecated(ModContainer modContainer, String adapter, String value) throws ClassNotFoundException, LanguageAdapterException {
 		QuiltLoaderImpl.INSTANCE.getLogger().debug("Registering 0.3.x old-style initializer " + value + " for mod " + modContainer.metadata().id());
 		OldEntry oe = new OldEntry(modContainer, adapter, value);
-		getOrCreateEntries("main").add(oe);
-		getOrCreateEntries("client").add(oe);
-		getOrCreateEntries("server").add(oe);
+		addEntry("main", oe);
+		addEntry("client", oe);
+		addEntry("server", oe);
 	}
 
 	protected void add(ModContainer modContainer, String key, AdapterLoadableClassEntry metadata, Map<String, LanguageAdapter> adapterMap) throws Exception {
@@ -136,16 +201,38 @@ class EntrypointStorage {
 		}
 
 		QuiltLoaderImpl.INSTANCE.getLogger().debug("Registering new-style initializer " + metadata.getValue() + " for mod " +  modContainer.metadata().id() + " (key " + key + ")");
-		getOrCreateEntries(key).add(new NewEntry(
+		addEntry(key, new NewEntry(
 			modContainer, adapterMap.get(metadata.getAdapter()), metadata.getValue()
 		));
 	}
 
+	/**
+	 * Prevents any more entrypoints from being added, allowing lookups to be cached.
+	 */
+	protected void freeze() {
+		for (Map.Entry<String, List<Entry>> entry : entryMap.entrySet()) {
+			entry.setValue(Collections.unmodifiableList(new ArrayList<>(entry.getValue())));
+		}
+
+		Map<String, Map<Entry, EntrypointTimingImpl>> frozenTimingMap = new HashMap<>();
+
+		for (Map.Entry<String, Map<Entry, EntrypointTimingImpl>> entry : timingMap.entrySet()) {
+			frozenTimingMap.put(entry.getKey(), Collections.unmodifiableMap(new IdentityHashMap<>(entry.getValue())));
+		}
+
+		timingMap = Collections.unmodifiableMap(frozenTimingMap);
+		timings = Collections.unmodifiableList(new ArrayList<>(timings));
+		frozen = true;
+	}
+
 	boolean hasEntrypoints(String key) {
 		return entryMap.containsKey(key);
 	}
 
 	protected <T> List<T> getEntrypoints(String key, Class<T> type) {
+		List<T> cached = getCached(entrypointCache, key, type);
+		if (cached != null) return cached;
+
 		List<Entry> entries = entryMap.get(key);
 		if (entries == null) return Collections.emptyList();
 
@@ -154,7 +241,7 @@ class EntrypointStorage {
 
 		for (Entry entry : entries) {
 			try {
-				T result = entry.getOrCreate(type);
+				T result = getOrCreate(key, entry, type);
 
 				if (result != null) {
 					results.add(result);
@@ -169,13 +256,17 @@ class EntrypointStorage {
 		}
 
 		if (exception != null) {
+			// Not cached, so a later lookup reports the failure again
 			throw exception;
 		}
 
-		return results;
+		return putCached(entrypointCache, key, type, results);
 	}
 
 	protected <T> List<EntrypointContainer<T>> getEntrypointContainers(String key, Class<T> type) {
+		List<EntrypointContainer<T>> cached = getCached(containerCache, key, type);
+		if (cached != null) return cached;
+
 		List<Entry> entries = entryMap.get(key);
 		if (entries == null) return Collections.emptyList();
 
@@ -184,18 +275,222 @@ class EntrypointStorage {
 		for (Entry entry : entries) {
 			results.add(new EntrypointContainerImpl<>(entry.getModContainer(), () -> {
 				try {
-					return entry.getOrCreate(type);
-				} catch (Exception ex) {
+					return getOrCreate(key, entry, type);
+				} catch (Exception | LinkageError ex) {
 					throw new QuiltEntrypointException(key, entry.getModContainer().metadata().id(), ex);
 				}
+			}, timingMap.get(key).get(entry)));
+		}
+
+		return putCached(containerCache, key, type, results);
+	}
+
+	@SuppressWarnings("unchecked")
+	private static <E> List<E> getCached(Map<String, Map<Class<?>, List<?>>> cache, String key, Class<?> type) {
+		Map<Class<?>, List<?>> byType = cache.get(key);
+		return byType == null ? null : (List<E>) byType.get(type);
+	}
+
+	/** @return An unmodifiable copy of the list, which is shared with future lookups if the storage is frozen. */
+	private <E> List<E> putCached(Map<String, Map<Class<?>, List<?>>> cache, String key, Class<?> type, List<E> list) {
+		List<E> result = Collections.unmodifiableList(list);
+
+		if (frozen) {
+			cache.computeIfAbsent(key, k -> new ConcurrentHashMap<>()).putIfAbsent(type, result);
+		}
+
+		return result;
+	}
+
+	/**
+	 * Loads and instantiates every entrypoint for the given key on a pool of worker threads, so that mods with slow
+	 * static initialisers don't hold each other up.
+	 *
+	 * @return The containers for the entrypoints, ordered so that a mod's entrypoints come after the entrypoints of
+	 *		 the mods it depends on. Any exception thrown while instantiating an entrypoint is rethrown from
+	 *		 {@link EntrypointContainer#getEntrypoint()}, so the containers should still be invoked serially.
+	 */
+	protected <T> List<EntrypointContainer<T>> prepareEntrypointContainers(String key, Class<T> type) {
+		List<Entry> entries = entryMap.get(key);
+		if (entries == null) return Collections.emptyList();
+
+		entries = sortByDependencies(entries);
+		Map<Entry, Future<Throwable>> failures = new IdentityHashMap<>();
+		ExecutorService executor = getWorkers();
+
+		for (Entry entry : entries) {
+			failures.put(entry, executor.submit(() -> {
+				try {
+					getOrCreate(key, entry, type);
+					return null;
+				} catch (Throwable t) {
+					return t;
+				}
 			}));
 		}
 
-		return results;
+		try {
+			List<EntrypointContainer<T>> results = new ArrayList<>(entries.size());
+
+			for (Entry entry : entries) {
+				Throwable failure;
+
+				try {
+					failure = failures.get(entry).get();
+				} catch (ExecutionException e) {
+					failure = e.getCause();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new QuiltEntrypointException(key, e);
+				}
+
+				Throwable createFailure = failure;
+				results.add(new EntrypointContainerImpl<>(entry.getModContainer(), () -> {
+					if (createFailure != null) {
+						throw new QuiltEntrypointException(key, entry.getModContainer().metadata().id(), createFailure);
+					}
+
+					try {
+						return getOrCreate(key, entry, type);
+					} catch (Exception | LinkageError ex) {
+						throw new QuiltEntrypointException(key, entry.getModContainer().metadata().id(), ex);
+					}
+				}, timingMap.get(key).get(entry)));
+			}
+
+			return results;
+		} catch (RuntimeException e) {
+			for (Future<Throwable> failure : failures.values()) {
+				failure.cancel(true);
+			}
+
+			throw e;
+		}
+	}
+
+	private synchronized ExecutorService getWorkers() {
+		if (workers == null) {
+			ClassLoader classLoader = QuiltLauncherBase.getLauncher().getTargetClassLoader();
+			AtomicInteger threadIndex = new AtomicInteger();
+
+			workers = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1), task -> {
+				Thread thread = new Thread(task, "Quilt Entrypoint Worker #" + threadIndex.incrementAndGet());
+				thread.setContextClassLoader(classLoader);
+				thread.setDaemon(true);
+				return thread;
+			});
+		}
+
+		return workers;
+	}
+
+	/**
+	 * Stops the worker threads used by {@link #prepareEntrypointContainers(String, Class)}, once the last entrypoint
+	 * stage has run. A later call to that method starts new ones.
+	 */
+	protected synchronized void shutdownWorkers() {
+		if (workers != null) {
+			workers.shutdown();
+			workers = null;
+		}
+	}
+
+	/** @return A copy of every entrypoint's timing record as it is now, in the order they were registered. */
+	protected List<EntrypointTiming> getEntrypointTimings() {
+		List<EntrypointTiming> snapshot = new ArrayList<>(timings.size());
+
+		for (EntrypointTimingImpl timing : timings) {
+			snapshot.add(timing.snapshot());
+		}
+
+		return Collections.unmodifiableList(snapshot);
+	}
+
+	/** Calls {@link Entry#getOrCreate(Class, EntrypointTimingImpl)}, recording how long it took to load the class and
+	 * create the instance. Returning an instance that already exists isn't counted as construction time. */
+	private <T> T getOrCreate(String key, Entry entry, Class<T> type) throws Exception {
+		EntrypointTimingImpl timing = timingMap.get(key).get(entry);
+
+		if (!timing.isClassLoaded()) {
+			long start = System.nanoTime();
+
+			try {
+				preloadClass(entry, QuiltLauncherBase.getLauncher().getTargetClassLoader());
+			} finally {
+				timing.setClassLoadNanos(System.nanoTime() - start);
+			}
+		}
+
+		return entry.getOrCreate(type, timing);
+	}
+
+	/**
+	 * Loads (but doesn't initialise) the class named by an entrypoint. This lets the class load time be measured
+	 * separately, and lets Knot transform classes in parallel.
+	 *
+	 * @throws LinkageError If the class exists but can't be loaded, which is reported like a construction failure.
+	 */
+	private static void preloadClass(Entry entry, ClassLoader classLoader) {
+		String value = entry.getValue();
+		int methodSplit = value.indexOf("::");
+		String className = methodSplit < 0 ? value : value.substring(0, methodSplit);
+
+		try {
+			Class.forName(className, false, classLoader);
+		} catch (ClassNotFoundException e) {
+			// Not every language adapter uses class names, so leave reporting a missing class to the adapter
+		}
+	}
+
+	/** Stable sorts the entries so that mods are ordered after the mods that they depend on. */
+	private static List<Entry> sortByDependencies(List<Entry> entries) {
+		Map<ModContainer, List<Entry>> byMod = new LinkedHashMap<>();
+
+		for (Entry entry : entries) {
+			byMod.computeIfAbsent(entry.getModContainer(), m -> new ArrayList<>()).add(entry);
+		}
+
+		List<Entry> sorted = new ArrayList<>(entries.size());
+		Set<ModContainer> visited = new HashSet<>();
+
+		for (ModContainer mod : byMod.keySet()) {
+			visitDependenciesFirst(mod, byMod, visited, sorted);
+		}
+
+		return sorted;
 	}
 
-	@SuppressWarnings("unchecked") // return value allows "throw" declaration to end method
-	static <E extends Throwable> RuntimeException sneakyThrows(Throwable ex) throws E {
-		throw (E) ex;
+	private static void visitDependenciesFirst(ModContainer mod, Map<ModContainer, List<Entry>> byMod, Set<ModContainer> visited, List<Entry> sorted) {
+		if (!visited.add(mod)) {
+			return;
+		}
+
+		for (ModDependency dependency : mod.metadata().depends()) {
+			Collection<? extends ModDependency.Only> options;
+
+			if (dependency instanceof ModDependency.Only) {
+				options = Collections.singleton((ModDependency.Only) dependency);
+			} else if (dependency instanceof ModDependency.Any) {
+				options = (ModDependency.Any) dependency;
+			} else if (dependency instanceof ModDependency.All) {
+				options = (ModDependency.All) dependency;
+			} else {
+				continue;
+			}
+
+			for (ModDependency.Only option : options) {
+				QuiltLoaderImpl.INSTANCE.getModContainer(option.id().id()).ifPresent(dep -> {
+					if (byMod.containsKey(dep)) {
+						visitDependenciesFirst((ModContainer) dep, byMod, visited, sorted);
+					}
+				});
+			}
+		}
+
+		List<Entry> modEntries = byMod.get(mod);
+
+		if (modEntries != null) {
+			sorted.addAll(modEntries);
+		}
 	}
 }
@@ -33,11 +33,20 @@ public class ModContainer implements org.quiltmc.loader.api.ModContainer {
 	private final LoaderModMetadata fabricMeta;
 	private final URL originUrl;
 	private volatile Path root;
+	/** The jar file system that {@link #root} is in, which is kept open for as long as the game runs. */
+	private FileSystemUtil.FileSystemDelegate jarFileSystem;
 
 	public ModContainer(InternalModMetadata meta, URL originUrl) {
 		this.meta = meta;
 		this.fabricMeta = meta.asFabricModMetadata();
 		this.originUrl = originUrl;
+
+		try {
+			// If mod discovery opened the jar then hold on to it, so it doesn't need to be opened again by rootPath()
+			jarFileSystem = FileSystemUtil.retainJarFileSystem(UrlUtil.asPath(originUrl).toAbsolutePath());
+		} catch (IOException | UrlConversionException e) {
+			jarFileSystem = null;
+		}
 	}
 
 	@Override
@@ -63,14 +72,19 @@ public class ModContainer implements org.quiltmc.loader.api.ModContainer {
 			if (Files.isDirectory(holder)) {
 				return holder;
 			} else /* JAR */ {
-				FileSystemUtil.FileSystemDelegate delegate = FileSystemUtil.getJarFileSystem(holder, false);
-				if (delegate.get() == null) {
+				synchronized (this) {
+					if (jarFileSystem == null) {
+						jarFileSystem = FileSystemUtil.getReadOnlyJarFileSystem(holder);
+					}
+				}
+
+				if (jarFileSystem.get() == null) {
 					throw new RuntimeException("Could not open JAR file " + holder.getFileName() + " for NIO reading!");
 				}
 
-				return delegate.get().getRootDirectories().iterator().next();
+				return jarFileSystem.get().getRootDirectories().iterator().next();
 
-				// We never close here. It's fine. getJarFileSystem() will handle it gracefully, and so should mods
+				// We never close here, since mods may keep using paths from the jar for as long as the game runs
 			}
 		} catch (IOException | UrlConversionException e) {
 			throw new RuntimeException("Failed to find root directory for mod '" + meta.id() + "'!", e);
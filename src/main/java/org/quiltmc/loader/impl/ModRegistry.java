@@ -0,0 +1,103 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * The loaded mods, compacted into an immutable table once the loader is frozen. IDs (including provided aliases) are
+ * kept in an open addressing hash table that is at most half full, so most lookups only compare one key, and the
+ * {@link Optional}s and list views handed out by {@link QuiltLoaderImpl} are created once up front. Since nothing in
+ * here changes after construction it can be read from any thread without locking.
+ */
+final class ModRegistry {
+	private final String[] keys;
+	private final Optional<org.quiltmc.loader.api.ModContainer>[] values;
+	private final int mask;
+	private final List<ModContainer> mods;
+	private final List<org.quiltmc.loader.api.ModContainer> apiMods;
+
+	@SuppressWarnings("unchecked")
+	ModRegistry(List<ModContainer> mods, Map<String, ModContainer> modMap) {
+		this.mods = Collections.unmodifiableList(Arrays.asList(mods.toArray(new ModContainer[0])));
+		this.apiMods = Collections.unmodifiableList(this.mods);
+
+		int capacity = Integer.highestOneBit(Math.max(2, modMap.size()) * 2 - 1) << 1;
+		keys = new String[capacity];
+		values = new Optional[capacity];
+		mask = capacity - 1;
+
+		for (Map.Entry<String, ModContainer> entry : modMap.entrySet()) {
+			int index = entry.getKey().hashCode() & mask;
+
+			while (keys[index] != null) {
+				index = (index + 1) & mask;
+			}
+
+			keys[index] = entry.getKey();
+			values[index] = Optional.of(entry.getValue());
+		}
+	}
+
+	/** @return Every loaded mod, in load order. This is always the same list. */
+	List<ModContainer> getMods() {
+		return mods;
+	}
+
+	/** @return The same list as {@link #getMods()}, typed for the public API. */
+	List<org.quiltmc.loader.api.ModContainer> getApiMods() {
+		return apiMods;
+	}
+
+	/** @return The mod with the given ID or provided alias, or {@link Optional#empty()}. */
+	Optional<org.quiltmc.loader.api.ModContainer> get(String id) {
+		int index = id.hashCode() & mask;
+		String key;
+
+		while ((key = keys[index]) != null) {
+			if (key.equals(id)) {
+				return values[index];
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return Optional.empty();
+	}
+
+	/** @return A new map of every mod ID and provided alias to its mod. */
+	Map<String, org.quiltmc.loader.api.ModContainer> toMap() {
+		Map<String, org.quiltmc.loader.api.ModContainer> map = new HashMap<>(keys.length);
+
+		for (int i = 0; i < keys.length; i++) {
+			if (keys[i] != null) {
+				map.put(keys[i], values[i].get());
+			}
+		}
+
+		return map;
+	}
+
+	boolean contains(String id) {
+		return get(id).isPresent();
+	}
+}
@@ -17,17 +17,22 @@
 package org.quiltmc.loader.impl;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.*;
 import java.util.stream.Collectors;
 import net.fabricmc.loader.api.FabricLoader;
 import net.fabricmc.loader.impl.quiltmc.Quilt2FabricLoader;
 
 import org.jetbrains.annotations.ApiStatus;
+import org.jetbrains.annotations.Nullable;
 import org.quiltmc.loader.impl.discovery.RuntimeModRemapper;
 import org.quiltmc.loader.impl.metadata.DependencyOverrides;
 import org.apache.logging.log4j.LogManager;
@@ -40,12 +45,14 @@ import org.quiltmc.loader.api.LanguageAdapter;
 import org.quiltmc.loader.api.MappingResolver;
 import org.quiltmc.loader.api.QuiltLoader;
 import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
 import org.quiltmc.loader.impl.discovery.ClasspathModCandidateFinder;
 import org.quiltmc.loader.impl.discovery.DirectoryModCandidateFinder;
 import org.quiltmc.loader.impl.discovery.ModCandidate;
 import org.quiltmc.loader.impl.discovery.ModResolutionException;
 import org.quiltmc.loader.impl.discovery.ModResolver;
 import org.quiltmc.loader.impl.discovery.ModSolvingError;
+import org.quiltmc.loader.impl.filesystem.ModResourceIndex;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.gui.QuiltGuiEntry;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
@@ -57,7 +64,10 @@ import org.quiltmc.loader.impl.metadata.qmj.AdapterLoadableClassEntry;
 import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
 import org.quiltmc.loader.impl.metadata.qmj.ModProvided;
 import org.quiltmc.loader.impl.solver.ModSolveResult;
+import org.quiltmc.loader.impl.transformer.AccessWidenerIndex;
 import org.quiltmc.loader.impl.util.DefaultLanguageAdapter;
+import org.quiltmc.loader.impl.util.HashUtil;
+import org.quiltmc.loader.impl.util.JarFileSystemRegistry;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import net.fabricmc.accesswidener.AccessWidener;
 import net.fabricmc.accesswidener.AccessWidenerReader;
@@ -77,15 +87,23 @@ public class QuiltLoaderImpl {
 
 	public static final String DEFAULT_MODS_DIR = "mods";
 	public static final String DEFAULT_CONFIG_DIR = "config";
+	public static final String DEFAULT_CACHE_DIR = ".quilt/cache";
 
 	protected final Map<String, ModContainer> modMap = new HashMap<>();
 	protected List<ModContainer> mods = new ArrayList<>();
+	/** Replaces {@link #modMap} and {@link #mods} for lookups once the loader is frozen. */
+	private volatile ModRegistry registry;
 
 	private final Map<String, LanguageAdapter> adapterMap = new HashMap<>();
 	private final EntrypointStorage entrypointStorage = new EntrypointStorage();
 	private final AccessWidener accessWidener = new AccessWidener();
+	private AccessWidenerIndex accessWidenerIndex;
+	private Path accessWidenerCacheFile;
+	/** The access widener files that have been hashed, but not yet read into {@link #accessWidener}. */
+	private Map<String, List<byte[]>> pendingAccessWideners;
 
-	private boolean frozen = false;
+	private volatile boolean frozen = false;
+	private volatile boolean freezeFinished = false;
 
 	private Object gameInstance;
 
@@ -94,6 +112,8 @@ public class QuiltLoaderImpl {
 	private Path gameDir;
 	private Path configDir;
 	private Path modsDir;
+	private Path cacheDir;
+	private volatile ModResourceIndex modResourceIndex;
 
 	protected QuiltLoaderImpl() {
 	}
@@ -107,7 +127,23 @@ public class QuiltLoaderImpl {
 		}
 
 		frozen = true;
+		registry = new ModRegistry(mods, modMap);
+		mods = registry.getMods();
 		finishModLoading();
+		entrypointStorage.freeze();
+		freezeFinished = true;
+	}
+
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	/**
+	 * @return Whether {@link #freeze()} has finished, so neither the mods nor their entrypoints can change any more.
+	 * Unlike {@link #isFrozen()}, this only becomes true after the mods have been set up.
+	 */
+	public boolean isFreezeFinished() {
+		return freezeFinished;
 	}
 
 	public GameProvider getGameProvider() {
@@ -127,6 +163,16 @@ public class QuiltLoaderImpl {
 		String configDir = System.getProperty(SystemProperties.CONFIG_DIRECTORY);
 		this.configDir = gameDir.resolve((configDir == null || configDir.isEmpty()) ? DEFAULT_CONFIG_DIR : configDir);
 		initializeModsDir(gameDir);
+		this.cacheDir = resolveCacheDir(gameDir);
+	}
+
+	/**
+	 * @return The cache directory for the given game directory. This is exposed separately from {@link #getCacheDir()}
+	 *		 for code that runs before the game directory has been set.
+	 */
+	public static Path resolveCacheDir(Path gameDir) {
+		String cacheDir = System.getProperty(SystemProperties.CACHE_DIRECTORY);
+		return gameDir.resolve((cacheDir == null || cacheDir.isEmpty()) ? DEFAULT_CACHE_DIR : cacheDir);
 	}
 
 	private void initializeModsDir(Path gameDir) {
@@ -185,6 +231,14 @@ public class QuiltLoaderImpl {
 		return modsDir;
 	}
 
+	/**
+	 * @return The directory that the loader stores its caches in, which may not exist yet. Everything in here can be
+	 *		 safely deleted, at the cost of a slower next launch.
+	 */
+	public Path getCacheDir() {
+		return cacheDir;
+	}
+
 	public void load() {
 		if (provider == null) throw new IllegalStateException("game provider not set");
 		if (frozen) throw new IllegalStateException("Frozen - cannot load additional mods!");
@@ -200,6 +254,17 @@ public class QuiltLoaderImpl {
 		ModResolver resolver = new ModResolver(this);
 		resolver.addCandidateFinder(new ClasspathModCandidateFinder());
 		resolver.addCandidateFinder(new DirectoryModCandidateFinder(getModsDir(), isDevelopmentEnvironment()));
+
+		try {
+			setup(resolver);
+		} finally {
+			// The selected mods have retained their own jars by now
+			resolver.releaseJarFileSystems();
+			LOGGER.debug("[%s] %s", getClass().getSimpleName(), JarFileSystemRegistry.getMetrics());
+		}
+	}
+
+	private void setup(ModResolver resolver) throws ModResolutionException {
 		ModSolveResult result = resolver.resolve(this);
 		Map<String, ModCandidate> candidateMap = result.modMap;
 
@@ -235,7 +300,7 @@ public class QuiltLoaderImpl {
 		}
 
 		if (runtimeModRemapping) {
-			for (ModCandidate candidate : RuntimeModRemapper.remap(candidateMap.values(), ModResolver.getInMemoryFs())) {
+			for (ModCandidate candidate : RuntimeModRemapper.remap(candidateMap.values(), ModResolver.getInMemoryFs(), getCacheDir())) {
 				addMod(candidate);
 			}
 		} else {
@@ -246,14 +311,19 @@ public class QuiltLoaderImpl {
 	}
 
 	protected void finishModLoading() {
+		List<ModContainer> classpathMods = new ArrayList<>();
+
 		// add mods to classpath
 		// TODO: This can probably be made safer, but that's a long-term goal
 		for (ModContainer mod : mods) {
 			if (!mod.metadata().id().equals("quilt_loader") && !mod.getInfo().getType().equals("builtin")) {
 				QuiltLauncherBase.getLauncher().propose(mod.getOriginUrl());
+				classpathMods.add(mod);
 			}
 		}
 
+		modResourceIndex = new ModResourceIndex(classpathMods);
+
 		postprocessModMetadata();
 		setupLanguageAdapters();
 		setupMods();
@@ -271,6 +341,20 @@ public class QuiltLoaderImpl {
 		return entrypointStorage.getEntrypointContainers(key, type);
 	}
 
+	/** @see EntrypointStorage#prepareEntrypointContainers(String, Class) */
+	public <T> List<EntrypointContainer<T>> prepareEntrypointContainers(String key, Class<T> type) {
+		return entrypointStorage.prepareEntrypointContainers(key, type);
+	}
+
+	/** @see EntrypointStorage#shutdownWorkers() */
+	public void finishEntrypointStages() {
+		entrypointStorage.shutdownWorkers();
+	}
+
+	public List<EntrypointTiming> getEntrypointTimings() {
+		return entrypointStorage.getEntrypointTimings();
+	}
+
 	public MappingResolver getMappingResolver() {
 		if (mappingResolver == null) {
 			mappingResolver = new QuiltMappingResolver(
@@ -282,16 +366,47 @@ public class QuiltLoaderImpl {
 		return mappingResolver;
 	}
 
+	/** @return The index of every file in the mods on the classpath, or null if the loader isn't frozen yet. */
+	@Nullable
+	public ModResourceIndex getModResourceIndex() {
+		return modResourceIndex;
+	}
+
+	public List<org.quiltmc.loader.api.ModContainer> getModsContaining(String path) {
+		return Collections.unmodifiableList(getFrozenModResourceIndex().getOwners(path));
+	}
+
+	public List<Path> getModPaths(String path) {
+		return getFrozenModResourceIndex().getPaths(path);
+	}
+
+	private ModResourceIndex getFrozenModResourceIndex() {
+		if (modResourceIndex == null) {
+			throw new IllegalStateException("Mod files can't be looked up until every mod has been loaded");
+		}
+
+		return modResourceIndex;
+	}
+
 	public Optional<org.quiltmc.loader.api.ModContainer> getModContainer(String id) {
-		return Optional.ofNullable(modMap.get(id));
+		ModRegistry registry = this.registry;
+		return registry != null ? registry.get(id) : Optional.ofNullable(modMap.get(id));
 	}
 
 	public Collection<org.quiltmc.loader.api.ModContainer> getAllMods() {
-		return Collections.unmodifiableList(mods);
+		ModRegistry registry = this.registry;
+		return registry != null ? registry.getApiMods() : Collections.unmodifiableList(mods);
+	}
+
+	/** @return Every mod ID and provided alias, mapped to its mod. */
+	public Map<String, org.quiltmc.loader.api.ModContainer> getModsById() {
+		ModRegistry registry = this.registry;
+		return Collections.unmodifiableMap(registry != null ? registry.toMap() : new HashMap<>(modMap));
 	}
 
 	public boolean isModLoaded(String id) {
-		return modMap.containsKey(id);
+		ModRegistry registry = this.registry;
+		return registry != null ? registry.contains(id) : modMap.containsKey(id);
 	}
 
 	public boolean isDevelopmentEnvironment() {
@@ -309,12 +424,14 @@ public class QuiltLoaderImpl {
 	 */
 	@Deprecated
 	public Collection<ModContainer> getModContainers() {
-		return Collections.unmodifiableList(mods);
+		ModRegistry registry = this.registry;
+		return registry != null ? registry.getMods() : Collections.unmodifiableList(mods);
 	}
 
 	@Deprecated
 	public List<ModContainer> getMods() {
-		return Collections.unmodifiableList(mods);
+		ModRegistry registry = this.registry;
+		return registry != null ? registry.getMods() : Collections.unmodifiableList(mods);
 	}
 
 	protected void addMod(ModCandidate candidate) throws ModResolutionException {
@@ -421,19 +538,76 @@ public class QuiltLoaderImpl {
 	}
 
 	public void loadAccessWideners() {
-		AccessWidenerReader accessWidenerReader = new AccessWidenerReader(accessWidener);
+		String namespace = getMappingResolver().getCurrentRuntimeNamespace();
+		Map<String, List<byte[]>> sources = new LinkedHashMap<>();
+		MessageDigest digest = HashUtil.newDigest();
+		HashUtil.update(digest, namespace);
+
 		for (ModContainer mod : mods) {
 			for (String accessWidener : mod.getInternalMeta().accessWideners()) {
 
 				Path path = mod.getPath(accessWidener);
 
-				try (BufferedReader reader = Files.newBufferedReader(path)) {
-					accessWidenerReader.read(reader, getMappingResolver().getCurrentRuntimeNamespace());
+				try {
+					byte[] bytes = Files.readAllBytes(path);
+					sources.computeIfAbsent(mod.getInternalMeta().id(), id -> new ArrayList<>()).add(bytes);
+					HashUtil.update(digest, mod.getInternalMeta().id());
+					HashUtil.update(digest, bytes.length);
+					digest.update(bytes);
 				} catch (Exception e) {
 					throw new RuntimeException("Failed to read accessWidener file from mod " + mod.getInternalMeta().id(), e);
 				}
 			}
 		}
+
+		String hash = HashUtil.toHex(digest.digest());
+		Path cacheFile = cacheDir == null ? null : cacheDir.resolve("access-widener.bin");
+		AccessWidenerIndex index = cacheFile == null ? null : AccessWidenerIndex.read(cacheFile, hash);
+
+		if (index != null) {
+			// Unchanged since the last launch, so the files are only read if something actually asks for them
+			synchronized (accessWidener) {
+				pendingAccessWideners = sources;
+			}
+		} else {
+			readAccessWideners(sources, namespace);
+			index = AccessWidenerIndex.create(hash, accessWidener.getTargets());
+		}
+
+		accessWidenerIndex = index;
+		accessWidenerCacheFile = cacheFile;
+		saveAccessWidenerIndex();
+	}
+
+	/**
+	 * Writes the access widener index to the cache, if any classes have been added to it since it was last written.
+	 * This is called once the access wideners have been set up, and again once the mods have been initialised (by
+	 * which point most of the targeted classes have been loaded).
+	 */
+	public void saveAccessWidenerIndex() {
+		if (accessWidenerIndex == null || accessWidenerCacheFile == null) {
+			return;
+		}
+
+		try {
+			accessWidenerIndex.write(accessWidenerCacheFile);
+		} catch (IOException e) {
+			LOGGER.warn("Failed to save the access widener cache to " + accessWidenerCacheFile, e);
+		}
+	}
+
+	private void readAccessWideners(Map<String, List<byte[]>> sources, String namespace) {
+		AccessWidenerReader accessWidenerReader = new AccessWidenerReader(accessWidener);
+
+		for (Map.Entry<String, List<byte[]>> entry : sources.entrySet()) {
+			for (byte[] bytes : entry.getValue()) {
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), StandardCharsets.UTF_8))) {
+					accessWidenerReader.read(reader, namespace);
+				} catch (Exception e) {
+					throw new RuntimeException("Failed to read accessWidener file from mod " + entry.getKey(), e);
+				}
+			}
+		}
 	}
 
 	public void prepareModInit(Path newRunDir, Object gameInstance) {
@@ -488,9 +662,22 @@ public class QuiltLoaderImpl {
 	}
 
 	public AccessWidener getAccessWidener() {
+		synchronized (accessWidener) {
+			if (pendingAccessWideners != null) {
+				readAccessWideners(pendingAccessWideners, getMappingResolver().getCurrentRuntimeNamespace());
+				pendingAccessWideners = null;
+			}
+		}
+
 		return accessWidener;
 	}
 
+	/** @return The compiled form of every access widener, or null if {@link #loadAccessWideners()} hasn't been called
+	 *		 yet. */
+	public AccessWidenerIndex getAccessWidenerIndex() {
+		return accessWidenerIndex;
+	}
+
 	public Logger getLogger() {
 		return LOGGER;
 	}
@@ -19,19 +19,31 @@ package org.quiltmc.loader.impl.discovery;
 import org.quiltmc.loader.impl.metadata.LoaderModMetadata;
 import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
 
+import java.io.IOException;
 import java.net.URL;
+import java.nio.file.Path;
 
 public class ModCandidate {
 	private final LoaderModMetadata info;
 	private final URL originUrl;
 	private final int depth;
 	private final boolean requiresRemap;
+	/** The candidate whose jar this candidate was found in, or null if this was found directly. */
+	private final ModCandidate parent;
+	/** Non-null if this candidate was nested inside another jar, and so might not have been copied out of it yet. */
+	private final NestedJar nestedJar;
 
 	public ModCandidate(LoaderModMetadata info, URL originUrl, int depth, boolean requiresRemap) {
+		this(info, originUrl, depth, requiresRemap, null, null);
+	}
+
+	ModCandidate(LoaderModMetadata info, URL originUrl, int depth, boolean requiresRemap, ModCandidate parent, NestedJar nestedJar) {
 		this.info = info;
 		this.originUrl = originUrl;
 		this.depth = depth;
 		this.requiresRemap = requiresRemap;
+		this.parent = parent;
+		this.nestedJar = nestedJar;
 	}
 
 	public URL getOriginUrl() {
@@ -55,6 +67,32 @@ public class ModCandidate {
 		return requiresRemap;
 	}
 
+	/** @return The candidate whose jar (or folder) contained this candidate, or null if it wasn't nested. This is the
+	 *		 exact candidate that was scanned, which might not be the one that ended up being selected for its mod ID. */
+	public ModCandidate getParent() {
+		return parent;
+	}
+
+	/** @return The path to this candidate's jar inside of its parent's jar, or null if it wasn't nested in a jar. */
+	Path getPathInParent() {
+		return nestedJar == null ? null : nestedJar.source;
+	}
+
+	/** Makes sure that the file behind {@link #getOriginUrl()} actually exists. Nested jars are only copied out of
+	 * their parent jar by this, so it must be called before the candidate is used for anything other than solving. */
+	void materialize() throws IOException {
+		if (nestedJar != null) {
+			nestedJar.materialize();
+		}
+	}
+
+	/** Frees any memory used by this candidate's nested jar, since it won't be loaded. */
+	void discard() throws IOException {
+		if (nestedJar != null) {
+			nestedJar.discard();
+		}
+	}
+
 	@Override
 	public boolean equals(Object obj) {
 		if (!(obj instanceof ModCandidate)) {
@@ -30,6 +30,7 @@ import org.quiltmc.loader.impl.metadata.BuiltinModMetadata;
 import org.quiltmc.loader.impl.metadata.LoaderModMetadata;
 import org.quiltmc.loader.impl.metadata.FabricModMetadataReader;
 import org.quiltmc.loader.impl.metadata.ParseMetadataException;
+import org.quiltmc.loader.impl.metadata.qmj.InternalModMetadata;
 import org.quiltmc.loader.impl.metadata.qmj.ModMetadataReader;
 import org.quiltmc.loader.impl.metadata.qmj.ModProvided;
 import org.quiltmc.loader.impl.solver.ModSolveResult;
@@ -71,8 +72,6 @@ public class ModResolver {
 			.setSupportedFeatures(SECURE_DIRECTORY_STREAM, FILE_CHANNEL)
 			.build()
 	);
-	private static final Map<String, List<Path>> inMemoryCache = new ConcurrentHashMap<>();
-	private static final Map<String, String> readableNestedJarPaths = new ConcurrentHashMap<>();
 	private static final Pattern MOD_ID_PATTERN = Pattern.compile("[a-z][a-z0-9-_]{1,63}");
 	private static final Object launcherSyncObject = new Object();
 
@@ -80,6 +79,16 @@ public class ModResolver {
 	private final boolean isDevelopment;
 	private final Path gameDir;
 	private final List<ModCandidateFinder> candidateFinders = new ArrayList<>();
+	/** The nested jars found in each jar, which can be reused by later resolves until the jars are released. */
+	private final Map<String, List<NestedJarAction>> inMemoryCache = new ConcurrentHashMap<>();
+	/** Maps the origin URL of every nested candidate to the origin URL of the candidate that it was found in. */
+	private final Map<String, URL> nestedJarSources = new ConcurrentHashMap<>();
+	/** Every candidate that was found inside of another jar, which might not have been copied out of it yet. */
+	private final Queue<ModCandidate> nestedCandidates = new ConcurrentLinkedQueue<>();
+	/** Every jar file system opened while scanning, which are kept open until the mods have been added. */
+	private final Queue<FileSystemUtil.FileSystemDelegate> openJars = new ConcurrentLinkedQueue<>();
+	private long detectionNanos;
+	private long solvingNanos;
 
 	public ModResolver(QuiltLoaderImpl loader) {
 		this.logger = loader.getLogger();
@@ -113,33 +122,34 @@ public class ModResolver {
 			}
 		}
 
-		return readableNestedJarPaths.getOrDefault(url.toString(), path.toString());
+		return path.toString();
+	}
+
+	/** @return The path to the candidate's jar, or for nested jars the path to the outermost jar followed by the path
+	 *		 to the jar inside of each parent. */
+	private static String getReadablePath(Path gameDir, ModCandidate c) {
+		ModCandidate parent = c.getParent();
+		Path pathInParent = c.getPathInParent();
+
+		if (parent != null && pathInParent != null) {
+			return String.format("%s!%s", getReadablePath(gameDir, parent), pathInParent);
+		}
+
+		return getReadablePath(gameDir, c.getOriginUrl());
 	}
 
 	public static String getReadablePath(QuiltLoaderImpl loader, ModCandidate c) {
-		return getReadablePath(loader.getGameDir(), c.getOriginUrl());
+		return getReadablePath(loader.getGameDir(), c);
 	}
 
 	public String getReadablePath(URL url) {
 		return getReadablePath(gameDir, url);
 	}
 
-	/** Only exposed for {@link ModSolver}. This is also intended to be temporary. */
-	public static URL getSourceURL(URL originUrl) {
-		// FIXME: Make ModSolver use a different method to get the source URL from an original URL - perhaps via the ModCandidate?
-		try {
-			for (Map.Entry<String, List<Path>> entry : inMemoryCache.entrySet()) {
-				for (Path path : entry.getValue()) {
-					URL url = UrlUtil.asUrl(path.normalize());
-					if (originUrl.equals(url)) {
-						return new URL(entry.getKey());
-					}
-				}
-			}
-		} catch (UrlConversionException | MalformedURLException e) {
-			e.printStackTrace();
-		}
-		return null;
+	/** @return The origin URL of the mod that the mod at the given URL was nested inside of, or null if it wasn't
+	 *		 nested. Prefer {@link ModCandidate#getParent()} where the candidate is available. */
+	public URL getSourceURL(URL originUrl) {
+		return nestedJarSources.get(originUrl.toString());
 	}
 
 	/** @param errorList The list of errors. The returned list of errors all need to be prefixed with "it " in order to make sense. */
@@ -197,18 +207,29 @@ public class ModResolver {
 		private final URL url;
 		private final int depth;
 		private final boolean requiresRemap;
+		/** The candidate that {@link #url} was nested inside of, or null if this is a top level action. */
+		private final ModCandidate parent;
+		/** Non-null if {@link #url} points to the (not yet copied) destination of a nested jar. */
+		private final NestedJar nestedJar;
 
 		UrlProcessAction(Map<String, ModCandidateSet> candidatesById, URL url, int depth, boolean requiresRemap) {
+			this(candidatesById, url, depth, requiresRemap, null, null);
+		}
+
+		UrlProcessAction(Map<String, ModCandidateSet> candidatesById, URL url, int depth, boolean requiresRemap, ModCandidate parent, NestedJar nestedJar) {
 			this.candidatesById = candidatesById;
 			this.url = url;
 			this.depth = depth;
 			this.requiresRemap = requiresRemap;
+			this.parent = parent;
+			this.nestedJar = nestedJar;
 		}
 
 		@Override
 		protected void compute() {
-			FileSystemUtil.FileSystemDelegate jarFs;
-			final Path path, fabricModJson, quiltModJson, rootDir;
+			final Path path, rootDir;
+			final MetadataSupplier<InternalModMetadata> quiltModJson;
+			final MetadataSupplier<LoaderModMetadata> fabricModJson;
 			URL normalizedUrl;
 
 			logger.debug("Testing " + url);
@@ -221,13 +242,21 @@ public class ModResolver {
 				throw new RuntimeException("Failed to convert URL " + url + "!", e);
 			}
 
-			if (Files.isDirectory(path)) {
+			if (nestedJar != null) {
+				// Nested JAR file, which was already scanned for its metadata. Its root is only opened if it has nested
+				// JARs of its own, since that requires copying it out of its parent.
+				quiltModJson = () -> readNested(nestedJar.quiltModJson, "quilt.mod.json", bytes -> ModMetadataReader.read(logger, bytes));
+				fabricModJson = () -> readNested(nestedJar.fabricModJson, "fabric.mod.json", bytes -> FabricModMetadataReader.parseMetadata(logger, bytes));
+				rootDir = null;
+			} else if (Files.isDirectory(path)) {
 				// Directory
-				fabricModJson = path.resolve("fabric.mod.json");
-				quiltModJson = path.resolve("quilt.mod.json");
+				Path fabricPath = path.resolve("fabric.mod.json");
+				Path quiltPath = path.resolve("quilt.mod.json");
+				fabricModJson = () -> FabricModMetadataReader.parseMetadata(logger, fabricPath);
+				quiltModJson = () -> ModMetadataReader.read(logger, quiltPath);
 				rootDir = path;
 
-				if (isDevelopment && !Files.exists(fabricModJson) && !Files.exists(quiltModJson)) {
+				if (isDevelopment && !Files.exists(fabricPath) && !Files.exists(quiltPath)) {
 					logger.warn("Adding directory " + path + " to mod classpath in development environment - workaround for Gradle splitting mods into two directories");
 					synchronized (launcherSyncObject) {
 						QuiltLauncher launcher = QuiltLauncherBase.getLauncher();
@@ -238,28 +267,21 @@ public class ModResolver {
 				}
 			} else {
 				// JAR file
-				try {
-					jarFs = FileSystemUtil.getJarFileSystem(path, false);
-					fabricModJson = jarFs.get().getPath("fabric.mod.json");
-					quiltModJson = jarFs.get().getPath("quilt.mod.json");
-					rootDir = jarFs.get().getRootDirectories().iterator().next();
-				} catch (IOException e) {
-					throw new RuntimeException("Failed to open mod JAR at " + path + "!");
-				} catch (ZipError e) {
-					throw new RuntimeException("Jar at " + path + " is corrupted, please redownload it!");
-				}
+				rootDir = openJarRoot(path);
+				fabricModJson = () -> FabricModMetadataReader.parseMetadata(logger, rootDir.resolve("fabric.mod.json"));
+				quiltModJson = () -> ModMetadataReader.read(logger, rootDir.resolve("quilt.mod.json"));
 			}
 
 			LoaderModMetadata[] info;
 
 			try {
-				info = new LoaderModMetadata[] { ModMetadataReader.read(logger, quiltModJson).asFabricModMetadata() };
+				info = new LoaderModMetadata[] { quiltModJson.get().asFabricModMetadata() };
 			} catch (ParseException e) {
 				throw new RuntimeException(String.format("Mod at \"%s\" has an invalid quilt.mod.json file!", path), e);
 			} catch (NoSuchFileException notQuilt) {
 
 				try {
-					info = new LoaderModMetadata[] { FabricModMetadataReader.parseMetadata(logger, fabricModJson) };
+					info = new LoaderModMetadata[] { fabricModJson.get() };
 				} catch (ParseMetadataException.MissingRequired e){
 					throw new RuntimeException(String.format("Mod at \"%s\" has an invalid fabric.mod.json file! The mod is missing the following required field!", path), e);
 				} catch (ParseException | ParseMetadataException e) {
@@ -280,7 +302,7 @@ public class ModResolver {
 			}
 
 			for (LoaderModMetadata i : info) {
-				ModCandidate candidate = new ModCandidate(i, normalizedUrl, depth, requiresRemap);
+				ModCandidate candidate = new ModCandidate(i, normalizedUrl, depth, requiresRemap, parent, nestedJar);
 				boolean added;
 
 				if (candidate.getInfo().getId() == null || candidate.getInfo().getId().isEmpty()) {
@@ -333,14 +355,28 @@ public class ModResolver {
 				} else {
 					logger.debug("Adding " + candidate.getOriginUrl() + " as " + candidate);
 
-					List<Path> jarInJars = inMemoryCache.computeIfAbsent(candidate.getOriginUrl().toString(), (u) -> {
+					if (parent != null) {
+						nestedJarSources.putIfAbsent(normalizedUrl.toString(), parent.getOriginUrl());
+					}
+
+					if (nestedJar != null) {
+						nestedCandidates.add(candidate);
+					}
+
+					List<NestedJarAction> jarInJars = inMemoryCache.computeIfAbsent(candidate.getOriginUrl().toString(), (u) -> {
 						logger.debug("Searching for nested JARs in " + candidate);
 						logger.debug(u);
 						Collection<String> jars = candidate.getMetadata().jars();
-						List<Path> list = new ArrayList<>(jars.size());
+						List<NestedJarAction> list = new ArrayList<>(jars.size());
+
+						if (jars.isEmpty()) {
+							return list;
+						}
+
+						Path root = rootDir != null ? rootDir : openNestedRoot(path);
 
 						jars.stream()
-							.map((j) -> rootDir.resolve(j.replace("/", rootDir.getFileSystem().getSeparator())))
+							.map((j) -> root.resolve(j.replace("/", root.getFileSystem().getSeparator())))
 							.forEach((modPath) -> {
 								if (!modPath.toString().endsWith(".jar")) {
 									logger.warn("Found nested jar entry that didn't end with '.jar': " + modPath);
@@ -348,25 +384,34 @@ public class ModResolver {
 								}
 
 								if (Files.isDirectory(modPath)) {
-									list.add(modPath);
+									list.add(new NestedJarAction(modPath, null));
 								} else {
-									// TODO: pre-check the JAR before loading it, if possible
 									logger.debug("Found nested JAR: " + modPath);
 									Path dest = inMemoryFs.getPath(UUID.randomUUID() + ".jar");
+									NestedJar nested;
 
 									try {
-										Files.copy(modPath, dest);
-									} catch (IOException e) {
-										throw new RuntimeException("Failed to load nested JAR " + modPath + " into memory (" + dest + ")!", e);
+										nested = NestedJar.scan(modPath, dest);
+									} catch (IOException | ZipError e) {
+										throw new RuntimeException("Failed to read nested JAR " + modPath + "!", e);
 									}
 
-									list.add(dest);
+									if (!nested.isMod()) {
+										// Don't bother copying libraries that can't be mods into memory
+										logger.debug(String.format("Neither a fabric nor a quilt JAR at \"%s\", ignoring", modPath));
 
-									try {
-										readableNestedJarPaths.put(UrlUtil.asUrl(dest).toString(), String.format("%s!%s", getReadablePath(candidate.getOriginUrl()), modPath));
-									} catch (UrlConversionException e) {
-										e.printStackTrace();
+										try {
+											// In case it had to be copied to be read
+											nested.discard();
+										} catch (IOException e) {
+											logger.warn("Failed to discard nested JAR " + modPath, e);
+										}
+
+										return;
 									}
+
+									// The JAR itself is only copied into memory once it has been selected
+									list.add(new NestedJarAction(dest, nested));
 								}
 							});
 
@@ -376,11 +421,11 @@ public class ModResolver {
 					if (!jarInJars.isEmpty()) {
 						invokeAll(
 							jarInJars.stream()
-								.map((p) -> {
+								.map((j) -> {
 									try {
-										return new UrlProcessAction(candidatesById, UrlUtil.asUrl(p.normalize()), depth + 1, requiresRemap);
+										return new UrlProcessAction(candidatesById, UrlUtil.asUrl(j.path.normalize()), depth + 1, requiresRemap, candidate, j.nestedJar);
 									} catch (UrlConversionException e) {
-										throw new RuntimeException("Failed to turn path '" + p.normalize() + "' into URL!", e);
+										throw new RuntimeException("Failed to turn path '" + j.path.normalize() + "' into URL!", e);
 									}
 								}).collect(Collectors.toList())
 						);
@@ -392,6 +437,57 @@ public class ModResolver {
 				jarFs.close();
 			} */
 		}
+
+		private Path openJarRoot(Path path) {
+			try {
+				FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getReadOnlyJarFileSystem(path);
+				openJars.add(jarFs);
+				return jarFs.get().getRootDirectories().iterator().next();
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to open mod JAR at " + path + "!");
+			} catch (ZipError e) {
+				throw new RuntimeException("Jar at " + path + " is corrupted, please redownload it!");
+			}
+		}
+
+		/** Copies the nested jar out of its parent so its own nested jars can be found. */
+		private Path openNestedRoot(Path path) {
+			try {
+				nestedJar.materialize();
+			} catch (IOException e) {
+				throw new RuntimeException("Failed to load nested JAR " + nestedJar.source + " into memory (" + path + ")!", e);
+			}
+
+			return openJarRoot(path);
+		}
+
+		private <T> T readNested(byte[] json, String name, MetadataParser<T> parser) throws IOException, ParseMetadataException {
+			if (json == null) {
+				throw new NoSuchFileException(nestedJar.source + "!/" + name);
+			}
+
+			return parser.parse(json);
+		}
+	}
+
+	private static final class NestedJarAction {
+		final Path path;
+		final NestedJar nestedJar;
+
+		NestedJarAction(Path path, NestedJar nestedJar) {
+			this.path = path;
+			this.nestedJar = nestedJar;
+		}
+	}
+
+	@FunctionalInterface
+	private interface MetadataSupplier<T> {
+		T get() throws IOException, ParseMetadataException;
+	}
+
+	@FunctionalInterface
+	private interface MetadataParser<T> {
+		T parse(byte[] json) throws IOException, ParseMetadataException;
 	}
 
 	/** The main entry point for finding mods from both the classpath, the game provider, and the filesystem.
@@ -403,7 +499,7 @@ public class ModResolver {
 	public ModSolveResult resolve(QuiltLoaderImpl loader) throws ModResolutionException {
 		ConcurrentMap<String, ModCandidateSet> candidatesById = new ConcurrentHashMap<>();
 
-		long time1 = System.currentTimeMillis();
+		long time1 = System.nanoTime();
 		Queue<UrlProcessAction> allActions = new ConcurrentLinkedQueue<>();
 		ForkJoinPool pool = new ForkJoinPool(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
 		for (ModCandidateFinder f : candidateFinders) {
@@ -462,21 +558,91 @@ public class ModResolver {
 			throw new ModResolutionException("Mod resolution failed!", exception);
 		}
 
-		long time2 = System.currentTimeMillis();
+		long time2 = System.nanoTime();
 		ModSolver solver = new ModSolver(logger);
 		ModSolveResult result = solver.findCompatibleSet(candidatesById);
 
-		long time3 = System.currentTimeMillis();
-		logger.debug("Mod resolution detection time: " + (time2 - time1) + "ms");
-		logger.debug("Mod resolution time: " + (time3 - time2) + "ms");
+		long time3 = System.nanoTime();
+		detectionNanos = time2 - time1;
+		solvingNanos = time3 - time2;
+		logger.debug("Mod resolution detection time: " + detectionNanos / 1_000_000 + "ms");
+		logger.debug("Mod resolution time: " + solvingNanos / 1_000_000 + "ms");
 
 		for (ModCandidate candidate : result.modMap.values()) {
 			candidate.getInfo().emitFormatWarnings(logger);
 		}
 
+		finishNestedCandidates(result);
+
 		return result;
 	}
 
+	/** Copies every selected nested jar out of its parent, and then frees every nested jar that wasn't selected. */
+	private void finishNestedCandidates(ModSolveResult result) throws ModResolutionException {
+		Set<ModCandidate> selected = Collections.newSetFromMap(new IdentityHashMap<>());
+		selected.addAll(result.modMap.values());
+		selected.addAll(result.providedMap.values());
+
+		// Selected jars must be copied first, since they might be nested inside of a jar that wasn't selected
+		for (ModCandidate candidate : nestedCandidates) {
+			if (selected.contains(candidate)) {
+				try {
+					candidate.materialize();
+				} catch (IOException e) {
+					throw new ModResolutionException("Failed to load nested JAR " + getReadablePath(gameDir, candidate) + " into memory!", e);
+				}
+			}
+		}
+
+		int discarded = 0;
+
+		for (ModCandidate candidate : nestedCandidates) {
+			if (!selected.contains(candidate)) {
+				// The jars nested inside of this one can't be read once it's gone, so they have to be found again
+				inMemoryCache.remove(candidate.getOriginUrl().toString());
+				nestedJarSources.remove(candidate.getOriginUrl().toString());
+
+				try {
+					candidate.discard();
+					discarded++;
+				} catch (IOException e) {
+					logger.warn("Failed to free nested JAR " + candidate.getOriginUrl(), e);
+				}
+			}
+		}
+
+		logger.debug("Skipped loading " + discarded + " unused nested JARs");
+		nestedCandidates.clear();
+	}
+
+	/** @return How long the last call to {@link #resolve(QuiltLoaderImpl)} spent finding and reading mod jars. */
+	public long getDetectionNanos() {
+		return detectionNanos;
+	}
+
+	/** @return How long the last call to {@link #resolve(QuiltLoaderImpl)} spent picking which mods to load. */
+	public long getSolvingNanos() {
+		return solvingNanos;
+	}
+
+	/**
+	 * Releases every jar that was opened while finding mods. This should be called once the selected mods have been
+	 * turned into containers, since they keep their own jars open. Nested jars that weren't copied out of these can't
+	 * be read any more, so later resolves have to find them again.
+	 */
+	public void releaseJarFileSystems() {
+		inMemoryCache.clear();
+		FileSystemUtil.FileSystemDelegate jarFs;
+
+		while ((jarFs = openJars.poll()) != null) {
+			try {
+				jarFs.close();
+			} catch (IOException e) {
+				logger.warn("Failed to close a mod JAR", e);
+			}
+		}
+	}
+
 	private void addBuiltinMod(ConcurrentMap<String, ModCandidateSet> candidatesById, BuiltinMod mod) {
 		candidatesById.computeIfAbsent(mod.metadata.getId(), ModCandidateSet::new)
 				.add(new ModCandidate(new BuiltinMetadataWrapper(mod.metadata), mod.url, 0, false));
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.discovery;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.zip.ZipError;
+
+import org.quiltmc.loader.impl.filesystem.QuiltZipFileSystem;
+import org.quiltmc.loader.impl.util.FileSystemUtil;
+
+/** A jar file that is nested inside of another jar, which is inspected through the parent jar's entry rather than by
+ * copying it out first. The jar is only copied to its {@link #destination} once it's actually needed, which is normally
+ * only once the solver has selected it. */
+final class NestedJar {
+	/** The path to the jar in its parent jar's file system. */
+	final Path source;
+	/** The (in-memory) path that the jar is copied to when it's {@link #materialize() materialized}. */
+	final Path destination;
+	final byte[] quiltModJson;
+	final byte[] fabricModJson;
+	private boolean materialized;
+
+	private NestedJar(Path source, Path destination, byte[] quiltModJson, byte[] fabricModJson) {
+		this.source = source;
+		this.destination = destination;
+		this.quiltModJson = quiltModJson;
+		this.fabricModJson = fabricModJson;
+	}
+
+	/** Reads the mod metadata files of the given nested jar. Only its central directory and the metadata entries are
+	 * read, unless the parent's file system can't seek within the entry, or the jar can't be read in place. In that case
+	 * the jar is copied out straight away and read from its {@link #destination} instead. */
+	static NestedJar scan(Path source, Path destination) throws IOException {
+		try (QuiltZipFileSystem fs = QuiltZipFileSystem.open(source, Files.newByteChannel(source))) {
+			return read(source, destination, fs.getPath("/"));
+		} catch (IOException | UnsupportedOperationException e) {
+			// Fall through, since the copy might still be readable by the JDK
+		}
+
+		Files.copy(source, destination, StandardCopyOption.REPLACE_EXISTING);
+
+		try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(destination, false)) {
+			NestedJar jar = read(source, destination, jarFs.get().getRootDirectories().iterator().next());
+			jar.materialized = true;
+			return jar;
+		} catch (IOException | RuntimeException | ZipError e) {
+			FileSystemUtil.closeJarFileSystem(destination);
+			Files.deleteIfExists(destination);
+			throw e;
+		}
+	}
+
+	private static NestedJar read(Path source, Path destination, Path root) throws IOException {
+		// The quilt.mod.json takes priority, so the fabric.mod.json isn't needed if it's present
+		byte[] quiltModJson = readIfExists(root.resolve("quilt.mod.json"));
+		byte[] fabricModJson = quiltModJson == null ? readIfExists(root.resolve("fabric.mod.json")) : null;
+		return new NestedJar(source, destination, quiltModJson, fabricModJson);
+	}
+
+	private static byte[] readIfExists(Path path) throws IOException {
+		return Files.isRegularFile(path) ? Files.readAllBytes(path) : null;
+	}
+
+	boolean isMod() {
+		return quiltModJson != null || fabricModJson != null;
+	}
+
+	/** Copies this jar out of its parent, if it hasn't been already.
+	 * @return The {@link #destination}. */
+	synchronized Path materialize() throws IOException {
+		if (!materialized) {
+			Files.copy(source, destination);
+			materialized = true;
+		}
+
+		return destination;
+	}
+
+	/** Frees the memory used by this jar, if it was materialized. */
+	synchronized void discard() throws IOException {
+		if (materialized) {
+			FileSystemUtil.closeJarFileSystem(destination);
+			Files.deleteIfExists(destination);
+			materialized = false;
+		}
+	}
+}
@@ -26,6 +26,7 @@ import net.fabricmc.accesswidener.AccessWidenerWriter;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.util.FileSystemUtil;
+import org.quiltmc.loader.impl.util.HashUtil;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.UrlConversionException;
 import org.quiltmc.loader.impl.util.UrlUtil;
@@ -35,6 +36,9 @@ import net.fabricmc.tinyremapper.NonClassCopyMode;
 import net.fabricmc.tinyremapper.OutputConsumerPath;
 import net.fabricmc.tinyremapper.TinyRemapper;
 
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.File;
@@ -42,23 +46,36 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.io.StringWriter;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public final class RuntimeModRemapper {
-
-	public static Collection<ModCandidate> remap(Collection<ModCandidate> modCandidates, FileSystem fileSystem) {
+	private static final Logger LOGGER = LogManager.getFormatterLogger("Quilt|RuntimeModRemapper");
+	/** The names of finished jars in the cache. Anything else, like another launch's temporary files, is left alone. */
+	private static final Pattern CACHED_JAR = Pattern.compile("[0-9a-f]{40}\\.jar");
+	/** How long a cached jar has to go unused before it's deleted, since other instances may still be using it. */
+	private static final long PRUNE_AFTER_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+	/** @param fileSystem The file system to place remapped jars in when there is no cache directory.
+	 * @param cacheDir The loader cache directory, or null if remapped mods shouldn't be cached between launches. */
+	public static Collection<ModCandidate> remap(Collection<ModCandidate> modCandidates, FileSystem fileSystem, Path cacheDir) {
 		List<ModCandidate> modsToRemap = modCandidates.stream()
 				.filter(ModCandidate::requiresRemap)
 				.collect(Collectors.toList());
@@ -72,96 +89,263 @@ public final class RuntimeModRemapper {
 				.collect(Collectors.toList());
 
 		QuiltLauncher launcher = QuiltLauncherBase.getLauncher();
-
-		TinyRemapper remapper = TinyRemapper.newRemapper()
-				.withMappings(TinyRemapperMappingsHelper.create(launcher.getMappingConfiguration().getMappings(), "intermediary", launcher.getTargetNamespace()))
-				.renameInvalidLocals(false)
-				.build();
+		List<Path> remapClasspath;
 
 		try {
-			remapper.readClassPathAsync(getRemapClasspath().toArray(new Path[0]));
+			remapClasspath = getRemapClasspath();
 		} catch (IOException e) {
 			throw new RuntimeException("Failed to populate remap classpath", e);
 		}
 
-		List<ModCandidate> remappedMods = new ArrayList<>();
+		Path outputDir = cacheDir == null ? null : cacheDir.resolve("remapped-mods");
+		String sharedKey;
 
 		try {
-			Map<ModCandidate, RemapInfo> infoMap = new HashMap<>();
+			sharedKey = outputDir == null ? null : computeSharedKey(launcher, remapClasspath);
+		} catch (IOException e) {
+			throw new RuntimeException("Failed to hash the remap classpath", e);
+		}
+
+		// Hashing is only I/O bound, so every mod can be checked at the same time
+		List<RemapInfo> infos = modsToRemap.parallelStream().map(mod -> {
+			RemapInfo info = new RemapInfo(mod);
+
+			try {
+				info.inputPath = UrlUtil.asPath(mod.getOriginUrl());
+
+				if (outputDir == null) {
+					info.outputPath = fileSystem.getPath(UUID.randomUUID() + ".jar");
+				} else {
+					MessageDigest digest = HashUtil.newDigest();
+					HashUtil.update(digest, sharedKey);
+					HashUtil.update(digest, info.inputPath);
+					info.outputPath = outputDir.resolve(HashUtil.toHex(digest.digest()) + ".jar");
+					info.cached = Files.isRegularFile(info.outputPath);
+
+					if (info.cached) {
+						try {
+							// Keeps the jar from being pruned by other instances, which only delete jars that aren't used
+							Files.setLastModifiedTime(info.outputPath, FileTime.fromMillis(System.currentTimeMillis()));
+						} catch (IOException e) {
+							LOGGER.debug("Failed to mark the remapped jar " + info.outputPath + " as used", e);
+						}
+					}
+				}
+			} catch (UrlConversionException | IOException e) {
+				throw new RuntimeException("Failed to prepare " + mod.getOriginUrl() + " for remapping", e);
+			}
+
+			return info;
+		}).collect(Collectors.toList());
+
+		List<RemapInfo> toRemap = infos.stream().filter(info -> !info.cached).collect(Collectors.toList());
+
+		if (!toRemap.isEmpty()) {
+			LOGGER.info("Remapping %d mod(s), %d unchanged mod(s) were found in the cache", toRemap.size(), infos.size() - toRemap.size());
+			remap(launcher, remapClasspath, toRemap, outputDir != null);
+		} else {
+			LOGGER.debug("All %d mod(s) requiring remapping were found in the cache", infos.size());
+		}
+
+		if (outputDir != null) {
+			pruneCache(outputDir, infos);
+		}
+
+		List<ModCandidate> remappedMods = new ArrayList<>();
+
+		for (RemapInfo info : infos) {
+			try {
+				remappedMods.add(new ModCandidate(info.mod.getInfo(), UrlUtil.asUrl(info.outputPath), 0, false));
+			} catch (UrlConversionException e) {
+				throw new RuntimeException("Failed to remap mods", e);
+			}
+		}
+
+		return Stream.concat(remappedMods.stream(), modsToSkip.stream())
+				.collect(Collectors.toList());
+	}
+
+	private static String computeSharedKey(QuiltLauncher launcher, List<Path> remapClasspath) throws IOException {
+		MessageDigest digest = HashUtil.newDigest();
+		HashUtil.update(digest, launcher.getMappingConfiguration().getMappingsHash());
+		HashUtil.update(digest, launcher.getTargetNamespace());
+
+		for (Path path : remapClasspath) {
+			HashUtil.update(digest, path.toString());
+
+			if (Files.isDirectory(path)) {
+				// The modification time of a folder doesn't change when the files inside of it do
+				try (Stream<Path> files = Files.walk(path)) {
+					for (Path file : (Iterable<Path>) files.filter(Files::isRegularFile).sorted()::iterator) {
+						updateFile(digest, path.relativize(file).toString(), file);
+					}
+				}
+			} else if (Files.exists(path)) {
+				updateFile(digest, "", path);
+			} else {
+				HashUtil.update(digest, -1);
+			}
+		}
+
+		return HashUtil.toHex(digest.digest());
+	}
+
+	private static void updateFile(MessageDigest digest, String name, Path file) throws IOException {
+		HashUtil.update(digest, name);
+		HashUtil.update(digest, Files.size(file));
+		HashUtil.update(digest, Files.getLastModifiedTime(file).toMillis());
+	}
+
+	/** Deletes every remapped jar that wasn't used by this launch, and hasn't been used by any other for a while either.
+	 * Those are left over from a mod, mappings or classpath that has since changed. */
+	private static void pruneCache(Path outputDir, List<RemapInfo> infos) {
+		if (!Files.isDirectory(outputDir)) {
+			return;
+		}
+
+		Set<Path> used = new HashSet<>();
+
+		for (RemapInfo info : infos) {
+			used.add(info.outputPath.getFileName());
+		}
+
+		long pruneBefore = System.currentTimeMillis() - PRUNE_AFTER_MILLIS;
+		int pruned = 0;
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(outputDir)) {
+			for (Path file : stream) {
+				if (used.contains(file.getFileName()) || !CACHED_JAR.matcher(file.getFileName().toString()).matches()) {
+					continue;
+				}
+
+				try {
+					if (Files.getLastModifiedTime(file).toMillis() < pruneBefore) {
+						Files.deleteIfExists(file);
+						pruned++;
+					}
+				} catch (IOException e) {
+					LOGGER.warn("Failed to delete the unused remapped jar " + file, e);
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.warn("Failed to prune the remapped mods cache " + outputDir, e);
+		}
+
+		if (pruned > 0) {
+			LOGGER.debug("Deleted %d unused remapped jar(s) from the cache", pruned);
+		}
+	}
+
+	private static void remap(QuiltLauncher launcher, List<Path> remapClasspath, List<RemapInfo> infos, boolean writeToDisk) {
+		TinyRemapper remapper = TinyRemapper.newRemapper()
+				.withMappings(TinyRemapperMappingsHelper.create(launcher.getMappingConfiguration().getMappings(), "intermediary", launcher.getTargetNamespace()))
+				.renameInvalidLocals(false)
+				.build();
 
-			for (ModCandidate mod : modsToRemap) {
-				RemapInfo info = new RemapInfo();
-				infoMap.put(mod, info);
+		boolean success = false;
 
+		try {
+			remapper.readClassPathAsync(remapClasspath.toArray(new Path[0]));
+
+			for (RemapInfo info : infos) {
 				InputTag tag = remapper.createInputTag();
 				info.tag = tag;
-				info.inputPath = UrlUtil.asPath(mod.getOriginUrl());
 
 				remapper.readInputsAsync(tag, info.inputPath);
 			}
 
 			//Done in a 2nd loop as we need to make sure all the inputs are present before remapping
-			for (ModCandidate mod : modsToRemap) {
-				RemapInfo info = infoMap.get(mod);
-				info.outputPath = fileSystem.getPath(UUID.randomUUID() + ".jar");
-				OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(info.outputPath).build();
+			for (RemapInfo info : infos) {
+				checkInterrupted();
 
-				FileSystemUtil.FileSystemDelegate delegate = FileSystemUtil.getJarFileSystem(info.inputPath, false);
+				// Write to a temporary file so an interrupted launch never leaves a broken jar in the cache
+				info.writePath = writeToDisk ? info.outputPath.resolveSibling(info.outputPath.getFileName() + ".tmp") : info.outputPath;
 
-				if (delegate.get() == null) {
-					throw new RuntimeException("Could not open JAR file " + info.inputPath.getFileName() + " for NIO reading!");
+				if (writeToDisk) {
+					Files.createDirectories(info.writePath.getParent());
+					Files.deleteIfExists(info.writePath);
 				}
 
-				Path inputJar = delegate.get().getRootDirectories().iterator().next();
-				outputConsumer.addNonClassFiles(inputJar, NonClassCopyMode.FIX_META_INF, remapper);
-
+				OutputConsumerPath outputConsumer = new OutputConsumerPath.Builder(info.writePath)
+						// force jar despite the .tmp extension
+						.assumeArchive(true)
+						.build();
 				info.outputConsumerPath = outputConsumer;
 
-				remapper.apply(outputConsumer, info.tag);
-			}
-
-			//Done in a 3rd loop as this can happen when the remapper is doing its thing.
-			for (ModCandidate mod : modsToRemap) {
-				RemapInfo info = infoMap.get(mod);
+				// The input jar is only opened once, for both the non-class files and the access widener
+				try (FileSystemUtil.FileSystemDelegate delegate = FileSystemUtil.getJarFileSystem(info.inputPath, false)) {
+					if (delegate.get() == null) {
+						throw new RuntimeException("Could not open JAR file " + info.inputPath.getFileName() + " for NIO reading!");
+					}
 
-				String accessWidener = mod.getInfo().getAccessWidener();
+					Path inputJar = delegate.get().getRootDirectories().iterator().next();
+					outputConsumer.addNonClassFiles(inputJar, NonClassCopyMode.FIX_META_INF, remapper);
 
-				if (accessWidener != null) {
-					info.accessWidenerPath = accessWidener;
+					String accessWidener = info.mod.getInfo().getAccessWidener();
 
-					try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(info.inputPath, false)) {
-						FileSystem fs = jarFs.get();
-						info.accessWidener = remapAccessWidener(Files.readAllBytes(fs.getPath(accessWidener)), remapper.getRemapper());
+					if (accessWidener != null) {
+						info.accessWidenerPath = accessWidener;
+						info.accessWidener = Files.readAllBytes(delegate.get().getPath(accessWidener));
 					}
 				}
+
+				remapper.apply(outputConsumer, info.tag);
 			}
 
-			remapper.finish();
+			//Done in a 3rd loop as this can happen when the remapper is doing its thing.
+			for (RemapInfo info : infos) {
+				if (info.accessWidener != null) {
+					info.accessWidener = remapAccessWidener(info.accessWidener, remapper.getRemapper());
+				}
+			}
 
-			for (ModCandidate mod : modsToRemap) {
-				RemapInfo info = infoMap.get(mod);
+			remapper.finish();
 
+			for (RemapInfo info : infos) {
+				checkInterrupted();
 				info.outputConsumerPath.close();
 
 				if (info.accessWidenerPath != null) {
-					try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(info.outputPath, false)) {
-						FileSystem fs = jarFs.get();
-
-						Files.delete(fs.getPath(info.accessWidenerPath));
-						Files.write(fs.getPath(info.accessWidenerPath), info.accessWidener);
+					try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(info.writePath, false)) {
+						// Replaces the un-remapped copy that addNonClassFiles wrote
+						Files.write(jarFs.get().getPath(info.accessWidenerPath), info.accessWidener);
 					}
 				}
 
-				remappedMods.add(new ModCandidate(mod.getInfo(), UrlUtil.asUrl(info.outputPath), 0, false));
+				if (writeToDisk) {
+					Files.move(info.writePath, info.outputPath, StandardCopyOption.REPLACE_EXISTING);
+				}
 			}
 
-		} catch (UrlConversionException | IOException e) {
-			remapper.finish();
+			success = true;
+		} catch (IOException e) {
 			throw new RuntimeException("Failed to remap mods", e);
+		} finally {
+			if (!success) {
+				remapper.finish();
+
+				for (RemapInfo info : infos) {
+					if (writeToDisk && info.writePath != null) {
+						try {
+							if (info.outputConsumerPath != null) {
+								info.outputConsumerPath.close();
+							}
+
+							Files.deleteIfExists(info.writePath);
+						} catch (IOException e) {
+							LOGGER.warn("Failed to clean up the partially remapped jar " + info.writePath, e);
+						}
+					}
+				}
+			}
 		}
+	}
 
-		return Stream.concat(remappedMods.stream(), modsToSkip.stream())
-				.collect(Collectors.toList());
+	/** Stops remapping once the launching thread is interrupted. Jars that weren't finished are deleted by the caller. */
+	private static void checkInterrupted() {
+		if (Thread.currentThread().isInterrupted()) {
+			throw new RuntimeException("Remapping mods was interrupted");
+		}
 	}
 
 	private static byte[] remapAccessWidener(byte[] input, Remapper remapper) {
@@ -198,11 +382,18 @@ public final class RuntimeModRemapper {
 	}
 
 	private static class RemapInfo {
+		final ModCandidate mod;
+		boolean cached;
 		InputTag tag;
 		Path inputPath;
 		Path outputPath;
+		Path writePath;
 		OutputConsumerPath outputConsumerPath;
 		String accessWidenerPath;
 		byte[] accessWidener;
+
+		RemapInfo(ModCandidate mod) {
+			this.mod = mod;
+		}
 	}
 }
@@ -24,11 +24,17 @@ import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
 public class EntrypointContainerImpl<T> implements EntrypointContainer<T> {
 	private final ModContainer container;
 	private final Supplier<T> entrypointSupplier;
+	private final EntrypointTimingImpl timing;
 	private T instance;
 
 	public EntrypointContainerImpl(ModContainer container, Supplier<T> entrypointSupplier) {
+		this(container, entrypointSupplier, null);
+	}
+
+	public EntrypointContainerImpl(ModContainer container, Supplier<T> entrypointSupplier, EntrypointTimingImpl timing) {
 		this.container = container;
 		this.entrypointSupplier = entrypointSupplier;
+		this.timing = timing;
 	}
 
 	@Override
@@ -44,4 +50,9 @@ public class EntrypointContainerImpl<T> implements EntrypointContainer<T> {
 	public ModContainer getProvider() {
 		return container;
 	}
+
+	/** @return The timing record to add invocation time to, or null if this entrypoint isn't timed. */
+	public EntrypointTimingImpl getTiming() {
+		return timing;
+	}
 }
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.game.GameProvider;
+import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
+import org.quiltmc.loader.impl.transformer.AccessWidenerIndex;
+import org.quiltmc.loader.impl.util.HashUtil;
+
+/**
+ * Stores the classes produced by the {@link EntrypointPatch}es between launches. The patches only depend on the game
+ * jars, the mappings, the loader itself and the environment, so a hash of those is used as the key.
+ */
+final class EntrypointPatchCache {
+	private static final int MAGIC = 0x51455043; // "QEPC"
+	private static final int FORMAT_VERSION = 1;
+
+	final Map<String, byte[]> patchedClasses;
+	final String appletMainClass;
+
+	EntrypointPatchCache(Map<String, byte[]> patchedClasses, String appletMainClass) {
+		this.patchedClasses = patchedClasses;
+		this.appletMainClass = appletMainClass;
+	}
+
+	/** @return The hash to store patched classes under, or null if the loader's version can't be identified or a game
+	 *		 jar isn't a plain file. */
+	static String computeKey(QuiltLauncher launcher, GameProvider provider) throws IOException {
+		MessageDigest digest = HashUtil.newDigest();
+
+		if (!HashUtil.updateCodeSource(digest, EntrypointPatchCache.class)) {
+			// Most likely a development environment, where the patches could change at any time
+			return null;
+		}
+
+		HashUtil.update(digest, launcher.getClass().getName());
+		HashUtil.update(digest, launcher.getEnvironmentType().name());
+		HashUtil.update(digest, launcher.getEntrypoint());
+		HashUtil.update(digest, launcher.getMappingConfiguration().getMappingsHash());
+
+		// Hashing the contents of every game jar would take almost as long as patching them
+		for (Path jar : provider.getGameContextJars()) {
+			if (!Files.isRegularFile(jar)) {
+				return null;
+			}
+
+			HashUtil.update(digest, jar.toAbsolutePath().toString());
+			HashUtil.update(digest, Files.size(jar));
+			HashUtil.update(digest, Files.getLastModifiedTime(jar).toMillis());
+		}
+
+		// Some launchers run the other transformers (including access wideners) when loading the classes to patch
+		AccessWidenerIndex accessWideners = QuiltLoaderImpl.INSTANCE == null ? null : QuiltLoaderImpl.INSTANCE.getAccessWidenerIndex();
+		HashUtil.update(digest, accessWideners == null ? "" : accessWideners.getHash());
+
+		return HashUtil.toHex(digest.digest());
+	}
+
+	/** @return The cached patches, or null if the file doesn't exist, couldn't be read or was stored with a different key. */
+	static EntrypointPatchCache read(Path file, String key, EntrypointTransformer transformer) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !key.equals(in.readUTF())) {
+				return null;
+			}
+
+			String appletMainClass = in.readBoolean() ? in.readUTF() : null;
+			int count = in.readInt();
+			Map<String, byte[]> patchedClasses = new HashMap<>();
+
+			for (int i = 0; i < count; i++) {
+				String name = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				patchedClasses.put(name, bytes);
+			}
+
+			return new EntrypointPatchCache(patchedClasses, appletMainClass);
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			transformer.logger.warn("Failed to read the entrypoint patch cache " + file + ", the patches will be recomputed", e);
+			return null;
+		}
+	}
+
+	void write(Path file, String key) throws IOException {
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(key);
+			out.writeBoolean(appletMainClass != null);
+
+			if (appletMainClass != null) {
+				out.writeUTF(appletMainClass);
+			}
+
+			out.writeInt(patchedClasses.size());
+
+			for (Map.Entry<String, byte[]> entry : patchedClasses.entrySet()) {
+				out.writeUTF(entry.getKey());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+		}
+
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.entrypoint;
+
+import org.quiltmc.loader.api.ModContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
+
+public final class EntrypointTimingImpl implements EntrypointTiming {
+	private final String key;
+	private final ModContainer provider;
+	private final String value;
+	private long classLoadNanos = -1;
+	private long constructionNanos;
+	private long invocationNanos;
+
+	public EntrypointTimingImpl(String key, ModContainer provider, String value) {
+		this.key = key;
+		this.provider = provider;
+		this.value = value;
+	}
+
+	@Override
+	public String getKey() {
+		return key;
+	}
+
+	@Override
+	public ModContainer getProvider() {
+		return provider;
+	}
+
+	@Override
+	public String getValue() {
+		return value;
+	}
+
+	/** @return A copy of the times recorded so far, which won't change as more time is recorded here. */
+	public synchronized EntrypointTimingImpl snapshot() {
+		EntrypointTimingImpl copy = new EntrypointTimingImpl(key, provider, value);
+		copy.classLoadNanos = classLoadNanos;
+		copy.constructionNanos = constructionNanos;
+		copy.invocationNanos = invocationNanos;
+		return copy;
+	}
+
+	/** @return True if the class load time has already been recorded. */
+	public synchronized boolean isClassLoaded() {
+		return classLoadNanos >= 0;
+	}
+
+	public synchronized void setClassLoadNanos(long nanos) {
+		classLoadNanos = nanos;
+	}
+
+	public synchronized void addConstructionNanos(long nanos) {
+		constructionNanos += nanos;
+	}
+
+	public synchronized void addInvocationNanos(long nanos) {
+		invocationNanos += nanos;
+	}
+
+	@Override
+	public synchronized long getClassLoadNanos() {
+		return Math.max(0, classLoadNanos);
+	}
+
+	@Override
+	public synchronized long getConstructionNanos() {
+		return constructionNanos;
+	}
+
+	@Override
+	public synchronized long getInvocationNanos() {
+		return invocationNanos;
+	}
+
+	@Override
+	public String toString() {
+		return key + ": " + provider.metadata().id() + "->" + value;
+	}
+}
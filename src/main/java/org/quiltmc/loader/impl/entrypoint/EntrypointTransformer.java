@@ -16,6 +16,8 @@
 
 package org.quiltmc.loader.impl.entrypoint;
 
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncher;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -24,6 +26,7 @@ import org.objectweb.asm.ClassWriter;
 import org.objectweb.asm.tree.ClassNode;
 
 import java.io.IOException;
+import java.nio.file.Path;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -64,16 +67,45 @@ public class EntrypointTransformer {
 		patchedClasses.put(key, writer.toByteArray());
 	}
 
-	public void locateEntrypoints(QuiltLauncher launcher) {
+	public void locateEntrypoints(QuiltLauncher launcher, GameProvider provider) {
 		if (entrypointsLocated) {
 			return;
 		}
 
 		entrypointsLocated = true;
+
+		Path cacheFile = QuiltLoaderImpl.resolveCacheDir(provider.getLaunchDirectory()).resolve("entrypoint-patches.bin");
+		String cacheKey = null;
+
+		try {
+			cacheKey = EntrypointPatchCache.computeKey(launcher, provider);
+		} catch (IOException e) {
+			logger.warn("Failed to hash the game jars, the entrypoint patches won't be cached", e);
+		}
+
+		if (cacheKey != null) {
+			EntrypointPatchCache cache = EntrypointPatchCache.read(cacheFile, cacheKey, this);
+
+			if (cache != null) {
+				patchedClasses = cache.patchedClasses;
+				appletMainClass = cache.appletMainClass;
+				logger.debug("[EntrypointTransformer] Loaded " + patchedClasses.size() + " patched classes from the cache.");
+				return;
+			}
+		}
+
 		patchedClasses = new HashMap<>();
 
 		patches.forEach((e) -> e.process(launcher, this::addPatchedClass));
 		logger.debug("[EntrypointTransformer] Patched " + (patchedClasses.size() == 1 ? "1 class." : (patchedClasses.size() + " classes.")));
+
+		if (cacheKey != null) {
+			try {
+				new EntrypointPatchCache(patchedClasses, appletMainClass).write(cacheFile, cacheKey);
+			} catch (IOException e) {
+				logger.warn("Failed to write the entrypoint patch cache " + cacheFile, e);
+			}
+		}
 	}
 
 	/**
@@ -31,5 +31,8 @@ public final class EntrypointClient {
 		QuiltLoaderImpl.INSTANCE.prepareModInit(runDir.toPath(), gameInstance);
 		EntrypointUtils.invoke("main", ModInitializer.class, ModInitializer::onInitialize);
 		EntrypointUtils.invoke("client", ClientModInitializer.class, ClientModInitializer::onInitializeClient);
+		QuiltLoaderImpl.INSTANCE.finishEntrypointStages();
+		QuiltLoaderImpl.INSTANCE.saveAccessWidenerIndex();
+		EntrypointUtils.logTimingReport();
 	}
 }
@@ -31,5 +31,8 @@ public final class EntrypointServer {
 		QuiltLoaderImpl.INSTANCE.prepareModInit(runDir.toPath(), gameInstance);
 		EntrypointUtils.invoke("main", ModInitializer.class, ModInitializer::onInitialize);
 		EntrypointUtils.invoke("server", DedicatedServerModInitializer.class, DedicatedServerModInitializer::onInitializeServer);
+		QuiltLoaderImpl.INSTANCE.finishEntrypointStages();
+		QuiltLoaderImpl.INSTANCE.saveAccessWidenerIndex();
+		EntrypointUtils.logTimingReport();
 	}
 }
@@ -18,13 +18,23 @@ package org.quiltmc.loader.impl.entrypoint.minecraft.hooks;
 
 import org.quiltmc.loader.api.ModContainer;
 import org.quiltmc.loader.api.entrypoint.EntrypointContainer;
+import org.quiltmc.loader.api.entrypoint.EntrypointTiming;
 import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.entrypoint.EntrypointContainerImpl;
+import org.quiltmc.loader.impl.entrypoint.EntrypointTimingImpl;
+import org.quiltmc.loader.impl.util.SystemProperties;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 
 public final class EntrypointUtils {
+	/** Opt-in, since mods with static initialisers that depend on each other could deadlock when run in parallel. */
+	private static final boolean PARALLEL = Boolean.getBoolean(SystemProperties.PARALLEL_ENTRYPOINTS);
+
 	public static <T> void invoke(String name, Class<T> type, Consumer<? super T> invoker) {
 		invokeContainer(name, type, container -> invoker.accept(container.getEntrypoint()));
 	}
@@ -46,13 +56,33 @@ public final class EntrypointUtils {
 	private static <T> void invoke0(String name, Class<T> type, Consumer<EntrypointContainer<T>> invoker) {
 		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
 		RuntimeException exception = null;
-		Collection<EntrypointContainer<T>> entrypoints = loader.getEntrypointContainers(name, type);
+		Collection<EntrypointContainer<T>> entrypoints;
+
+		if (PARALLEL) {
+			// Instances are created in parallel, but are still invoked one at a time
+			entrypoints = loader.prepareEntrypointContainers(name, type);
+		} else {
+			entrypoints = loader.getEntrypointContainers(name, type);
+		}
 
 		loader.getLogger().debug("Iterating over entrypoint '" + name + "'");
 
 		for (EntrypointContainer<T> container : entrypoints) {
+			EntrypointTimingImpl timing = container instanceof EntrypointContainerImpl ? ((EntrypointContainerImpl<T>) container).getTiming() : null;
+
 			try {
-				invoker.accept(container);
+				// The instance is normally created by the invoker, but that's already recorded as construction time
+				long setupBefore = timing == null ? 0 : getSetupNanos(timing);
+				long start = System.nanoTime();
+
+				try {
+					invoker.accept(container);
+				} finally {
+					if (timing != null) {
+						long setup = getSetupNanos(timing) - setupBefore;
+						timing.addInvocationNanos(System.nanoTime() - start - setup);
+					}
+				}
 			} catch (Throwable t) {
 				if (exception == null) {
 					exception = new RuntimeException("Could not execute entrypoint stage '" + name + "' due to errors, provided by '" + container.getProvider().metadata().id() + "'!", t);
@@ -66,4 +96,45 @@ public final class EntrypointUtils {
 			throw exception;
 		}
 	}
+
+	private static long getSetupNanos(EntrypointTiming timing) {
+		return timing.getClassLoadNanos() + timing.getConstructionNanos();
+	}
+
+	/**
+	 * Logs every entrypoint that has been used so far, slowest first.
+	 */
+	public static void logTimingReport() {
+		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
+		List<EntrypointTiming> timings = new ArrayList<>(loader.getEntrypointTimings());
+		timings.removeIf(timing -> timing.getTotalNanos() == 0);
+
+		if (timings.isEmpty()) {
+			return;
+		}
+
+		timings.sort(Comparator.comparingLong(EntrypointTiming::getTotalNanos).reversed());
+		long total = 0;
+
+		for (EntrypointTiming timing : timings) {
+			total += timing.getTotalNanos();
+		}
+
+		StringBuilder sb = new StringBuilder();
+		sb.append(String.format("Entrypoints took %.1f ms in total (load / construct / invoke):", total / 1_000_000.0));
+
+		for (EntrypointTiming timing : timings) {
+			sb.append(String.format("%n\t%8.1f ms  %-8s %s (%s) [%.1f / %.1f / %.1f]",
+				timing.getTotalNanos() / 1_000_000.0,
+				timing.getKey(),
+				timing.getProvider().metadata().id(),
+				timing.getValue(),
+				timing.getClassLoadNanos() / 1_000_000.0,
+				timing.getConstructionNanos() / 1_000_000.0,
+				timing.getInvocationNanos() / 1_000_000.0
+			));
+		}
+
+		loader.getLogger().info(sb.toString());
+	}
 }
@@ -0,0 +1,99 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.NonWritableChannelException;
+import java.nio.channels.SeekableByteChannel;
+
+/** A read-only channel over the (uncompressed) contents of a zip entry. */
+final class ByteBufferChannel implements SeekableByteChannel {
+	private final ByteBuffer buffer;
+	private boolean open = true;
+
+	ByteBufferChannel(ByteBuffer buffer) {
+		this.buffer = buffer;
+	}
+
+	private void ensureOpen() throws ClosedChannelException {
+		if (!open) {
+			throw new ClosedChannelException();
+		}
+	}
+
+	@Override
+	public synchronized int read(ByteBuffer dst) throws IOException {
+		ensureOpen();
+
+		if (!buffer.hasRemaining()) {
+			return -1;
+		}
+
+		int len = Math.min(dst.remaining(), buffer.remaining());
+		ByteBuffer src = buffer.duplicate();
+		src.limit(src.position() + len);
+		dst.put(src);
+		buffer.position(buffer.position() + len);
+		return len;
+	}
+
+	@Override
+	public int write(ByteBuffer src) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized long position() throws IOException {
+		ensureOpen();
+		return buffer.position();
+	}
+
+	@Override
+	public synchronized SeekableByteChannel position(long newPosition) throws IOException {
+		ensureOpen();
+
+		if (newPosition < 0) {
+			throw new IllegalArgumentException();
+		}
+
+		buffer.position((int) Math.min(newPosition, buffer.limit()));
+		return this;
+	}
+
+	@Override
+	public long size() throws IOException {
+		ensureOpen();
+		return buffer.limit();
+	}
+
+	@Override
+	public SeekableByteChannel truncate(long size) {
+		throw new NonWritableChannelException();
+	}
+
+	@Override
+	public synchronized boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public synchronized void close() {
+		open = false;
+	}
+}
@@ -0,0 +1,270 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import org.quiltmc.loader.impl.ModContainer;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+
+/**
+ * A merged, read-only view of the files in every mod on the classpath. Each mod is read once, on first use, to build
+ * a single index from every file and folder path to the mods that contain it, so finding a resource in every mod is a
+ * map lookup rather than a probe of each jar.
+ *
+ * <p>Only the folders that a jar has its own entry for are indexed, since those are the only ones that a
+ * {@link java.net.URLClassLoader} would find. Mods that can't be read are left out of the index entirely, so that
+ * callers search them like any other classpath entry.</p>
+ *
+ * <p>Paths are relative to the mod roots, use {@code /} as the separator, and never start or end with one.</p>
+ */
+public final class ModResourceIndex {
+	private final List<ModContainer> mods;
+	private volatile Index index;
+
+	private static final class Index {
+		final Map<String, List<ModContainer>> owners;
+		/** The classpath entries of every mod that was actually indexed. */
+		final Set<URL> origins;
+
+		Index(Map<String, List<ModContainer>> owners, Set<URL> origins) {
+			this.owners = owners;
+			this.origins = origins;
+		}
+	}
+
+	public ModResourceIndex(List<ModContainer> mods) {
+		this.mods = Collections.unmodifiableList(new ArrayList<>(mods));
+	}
+
+	/** @return Every mod in this index, in load order, including any that couldn't be indexed. */
+	public List<ModContainer> getMods() {
+		return mods;
+	}
+
+	/** @return Whether the given classpath entry is one of the mods whose resources are answered by this index. */
+	public boolean isIndexed(URL origin) {
+		return getIndex().origins.contains(origin);
+	}
+
+	/** @return Every mod that contains the given file or folder, in load order. */
+	public List<ModContainer> getOwners(String path) {
+		List<ModContainer> list = getIndex().owners.get(normalize(path));
+		return list != null ? list : Collections.emptyList();
+	}
+
+	/** @return The given file or folder in every mod that contains it, in load order. */
+	public List<Path> getPaths(String path) {
+		String normalized = normalize(path);
+		List<ModContainer> list = getIndex().owners.get(normalized);
+
+		if (list == null) {
+			return Collections.emptyList();
+		}
+
+		List<Path> paths = new ArrayList<>(list.size());
+
+		for (ModContainer mod : list) {
+			paths.add(mod.getPath(normalized));
+		}
+
+		return Collections.unmodifiableList(paths);
+	}
+
+	/**
+	 * @return The URL of the given resource in every mod that contains it, in the same form that a
+	 * {@link java.net.URLClassLoader} would return for the mod's classpath entry.
+	 */
+	public List<URL> getUrls(String name) throws IOException {
+		return new ArrayList<>(getUrlsByOrigin(name).values());
+	}
+
+	/**
+	 * @return The URL of the given resource in every mod that contains it, in load order, keyed by the classpath entry
+	 * of the mod. Mods that share a classpath entry only return the resource once, as a {@link java.net.URLClassLoader}
+	 * would.
+	 */
+	public Map<URL, URL> getUrlsByOrigin(String name) throws IOException {
+		List<ModContainer> list = getIndex().owners.get(normalize(name));
+
+		if (list == null) {
+			return Collections.emptyMap();
+		}
+
+		String encoded;
+
+		try {
+			encoded = new URI(null, null, name, null).getRawPath();
+		} catch (URISyntaxException e) {
+			throw new IOException("Invalid resource name " + name, e);
+		}
+
+		Map<URL, URL> urls = new LinkedHashMap<>();
+
+		for (ModContainer mod : list) {
+			URL origin = mod.getOriginUrl();
+
+			try {
+				if (!urls.containsKey(origin)) {
+					urls.put(origin, new URL(new URL(getBaseUrl(origin)), encoded));
+				}
+			} catch (MalformedURLException e) {
+				throw new IOException("Failed to create a URL for " + name + " in " + origin, e);
+			}
+		}
+
+		return urls;
+	}
+
+	/**
+	 * @return The URL that every resource in the given classpath entry starts with when it's returned by a
+	 * {@link java.net.URLClassLoader}.
+	 */
+	public static String getBaseUrl(URL origin) {
+		return origin.getPath().endsWith("/") ? origin.toString() : "jar:" + origin + "!/";
+	}
+
+	private static String normalize(String path) {
+		int start = 0;
+		int end = path.length();
+
+		while (start < end && path.charAt(start) == '/') {
+			start++;
+		}
+
+		while (end > start && path.charAt(end - 1) == '/') {
+			end--;
+		}
+
+		return path.substring(start, end);
+	}
+
+	private Index getIndex() {
+		Index current = index;
+
+		if (current == null) {
+			synchronized (this) {
+				current = index;
+
+				if (current == null) {
+					index = current = build();
+				}
+			}
+		}
+
+		return current;
+	}
+
+	private Index build() {
+		Map<String, List<ModContainer>> owners = new HashMap<>();
+		Set<URL> origins = new HashSet<>();
+
+		for (ModContainer mod : mods) {
+			List<String> names;
+
+			try {
+				names = listNames(mod.rootPath());
+			} catch (IOException | RuntimeException e) {
+				QuiltLoaderImpl.INSTANCE.getLogger().warn("Failed to index the files in mod " + mod.metadata().id() + ", so it will be searched directly instead", e);
+				continue;
+			}
+
+			origins.add(mod.getOriginUrl());
+
+			for (String name : names) {
+				List<ModContainer> list = owners.get(name);
+
+				if (list == null) {
+					// Most paths only exist in one mod
+					owners.put(name, Collections.singletonList(mod));
+				} else {
+					if (list.size() == 1) {
+						list = new ArrayList<>(list);
+						owners.put(name, list);
+					}
+
+					list.add(mod);
+				}
+			}
+		}
+
+		for (Map.Entry<String, List<ModContainer>> entry : owners.entrySet()) {
+			if (entry.getValue().size() > 1) {
+				entry.setValue(Collections.unmodifiableList(entry.getValue()));
+			}
+		}
+
+		return new Index(owners, Collections.unmodifiableSet(origins));
+	}
+
+	/** @return Every regular file under the root, and every folder that actually exists rather than being implied. */
+	private static List<String> listNames(Path root) throws IOException {
+		FileSystem fs = root.getFileSystem();
+
+		if (fs instanceof QuiltZipFileSystem && root.getParent() == null) {
+			List<String> names = ((QuiltZipFileSystem) fs).getEntryNames();
+			names.remove("");
+			return names;
+		}
+
+		// Folders on disk always exist, but other zip file systems can't tell which folders the zip really contains
+		boolean includeFolders = fs == FileSystems.getDefault();
+		String separator = fs.getSeparator();
+		List<String> names = new ArrayList<>();
+
+		try (Stream<Path> stream = Files.walk(root)) {
+			stream.forEach(path -> {
+				if (path.equals(root) || !(Files.isRegularFile(path) || includeFolders && Files.isDirectory(path))) {
+					return;
+				}
+
+				String name = normalize(root.relativize(path).toString());
+				names.add(separator.equals("/") ? name : name.replace(separator, "/"));
+			});
+		}
+
+		return names;
+	}
+
+	/** @return The number of distinct paths across every mod. */
+	public int size() {
+		return getIndex().owners.size();
+	}
+
+	/** @return Every indexed path. */
+	public Collection<String> getAllPaths() {
+		return Collections.unmodifiableSet(getIndex().owners.keySet());
+	}
+}
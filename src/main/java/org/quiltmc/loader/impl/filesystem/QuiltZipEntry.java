@@ -0,0 +1,115 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+
+/** A single file or directory in a {@link QuiltZipFileSystem}. Directories may not have an entry in the zip itself. */
+final class QuiltZipEntry implements BasicFileAttributes {
+	static final QuiltZipEntry[] NO_CHILDREN = new QuiltZipEntry[0];
+
+	/** The full name of the entry, without any leading or trailing '/'. */
+	final String name;
+	final boolean directory;
+	final int method;
+	final long compressedSize;
+	final long size;
+	final long localHeaderOffset;
+	final FileTime lastModified;
+	/** Sorted by name. Only non-empty for directories. */
+	QuiltZipEntry[] children = NO_CHILDREN;
+	/** The offset of the data of this entry, which is only known once its local header has been read. */
+	volatile long dataOffset = -1;
+
+	QuiltZipEntry(String name, boolean directory, int method, long compressedSize, long size, long localHeaderOffset, long dosTime) {
+		this.name = name;
+		this.directory = directory;
+		this.method = method;
+		this.compressedSize = compressedSize;
+		this.size = size;
+		this.localHeaderOffset = localHeaderOffset;
+		this.lastModified = FileTime.from(dosTime < 0 ? 0 : dosToJavaTime(dosTime), TimeUnit.MILLISECONDS);
+	}
+
+	static QuiltZipEntry directory(String name) {
+		return new QuiltZipEntry(name, true, 0, 0, 0, -1, -1);
+	}
+
+	/** The same conversion as {@link java.util.zip.ZipEntry}, which uses the local time zone. */
+	@SuppressWarnings("deprecation")
+	private static long dosToJavaTime(long dosTime) {
+		java.util.Date date = new java.util.Date((int) (((dosTime >> 25) & 0x7f) + 80),
+			(int) (((dosTime >> 21) & 0x0f) - 1),
+			(int) ((dosTime >> 16) & 0x1f),
+			(int) ((dosTime >> 11) & 0x1f),
+			(int) ((dosTime >> 5) & 0x3f),
+			(int) ((dosTime << 1) & 0x3e));
+		return date.getTime();
+	}
+
+	@Override
+	public FileTime lastModifiedTime() {
+		return lastModified;
+	}
+
+	@Override
+	public FileTime lastAccessTime() {
+		return lastModified;
+	}
+
+	@Override
+	public FileTime creationTime() {
+		return lastModified;
+	}
+
+	@Override
+	public boolean isRegularFile() {
+		return !directory;
+	}
+
+	@Override
+	public boolean isDirectory() {
+		return directory;
+	}
+
+	@Override
+	public boolean isSymbolicLink() {
+		return false;
+	}
+
+	@Override
+	public boolean isOther() {
+		return false;
+	}
+
+	@Override
+	public long size() {
+		return size;
+	}
+
+	@Override
+	public Object fileKey() {
+		return null;
+	}
+
+	@Override
+	public String toString() {
+		return name;
+	}
+}
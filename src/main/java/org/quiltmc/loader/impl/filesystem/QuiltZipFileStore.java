@@ -0,0 +1,80 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.nio.file.FileStore;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileStoreAttributeView;
+
+final class QuiltZipFileStore extends FileStore {
+	private final QuiltZipFileSystem fs;
+
+	QuiltZipFileStore(QuiltZipFileSystem fs) {
+		this.fs = fs;
+	}
+
+	@Override
+	public String name() {
+		return fs.zipPath.toString() + "/";
+	}
+
+	@Override
+	public String type() {
+		return "quilt-zip";
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public long getTotalSpace() {
+		return 0;
+	}
+
+	@Override
+	public long getUsableSpace() {
+		return 0;
+	}
+
+	@Override
+	public long getUnallocatedSpace() {
+		return 0;
+	}
+
+	@Override
+	public boolean supportsFileAttributeView(Class<? extends FileAttributeView> type) {
+		return type == BasicFileAttributeView.class;
+	}
+
+	@Override
+	public boolean supportsFileAttributeView(String name) {
+		return name.equals("basic");
+	}
+
+	@Override
+	public <V extends FileStoreAttributeView> V getFileStoreAttributeView(Class<V> type) {
+		return null;
+	}
+
+	@Override
+	public Object getAttribute(String attribute) {
+		throw new UnsupportedOperationException("'" + attribute + "' not recognized");
+	}
+}
@@ -0,0 +1,694 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedFileSystemException;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.UserPrincipalLookupService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Pattern;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A read-only file system for a single zip file. The central directory is read once into an immutable table sorted by
+ * name, so lookups don't need any locking. When the zip is on the default file system it is memory mapped, and stored
+ * entries are read straight out of the mapping; otherwise entries are read with positional reads, which are also safe
+ * to use from multiple threads at once. Zips are never mapped on Windows, since a mapping can only be released by the
+ * garbage collector and keeps the file locked until then, which would stop it from being deleted or replaced. Zips that
+ * can't be opened as a file, like jars nested in other jars, can also be read through any seekable channel.
+ */
+public final class QuiltZipFileSystem extends FileSystem {
+	private static final int LOCAL_HEADER_SIGNATURE = 0x04034b50;
+	private static final int CENTRAL_HEADER_SIGNATURE = 0x02014b50;
+	private static final int END_SIGNATURE = 0x06054b50;
+	private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+	private static final int ZIP64_END_SIGNATURE = 0x06064b50;
+	private static final int END_SIZE = 22;
+	private static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+	private static final int METHOD_STORED = 0;
+	private static final int METHOD_DEFLATED = 8;
+
+	private static final boolean CAN_MAP = !System.getProperty("os.name", "").toLowerCase(Locale.ROOT).contains("windows");
+
+	final Path zipPath;
+	final QuiltZipPath root;
+	private final QuiltZipFileSystemProvider provider;
+	private final SeekableByteChannel channel;
+	/** The whole zip, if it could be memory mapped. */
+	private final ByteBuffer mapped;
+	/** Sorted, so entries can be found with a binary search. */
+	private final String[] names;
+	private final QuiltZipEntry[] entries;
+	private final FileStore store;
+	private volatile boolean open = true;
+
+	QuiltZipFileSystem(QuiltZipFileSystemProvider provider, Path zipPath) throws IOException {
+		this(provider, zipPath, FileChannel.open(zipPath, StandardOpenOption.READ));
+	}
+
+	private QuiltZipFileSystem(QuiltZipFileSystemProvider provider, Path zipPath, SeekableByteChannel channel) throws IOException {
+		this.provider = provider;
+		this.zipPath = zipPath;
+		this.root = new QuiltZipPath(this, "/");
+		this.store = new QuiltZipFileStore(this);
+		this.channel = channel;
+
+		try {
+			long size = channel.size();
+			ByteBuffer map = null;
+
+			if (CAN_MAP && channel instanceof FileChannel && zipPath.getFileSystem() == FileSystems.getDefault() && size > 0 && size <= Integer.MAX_VALUE) {
+				map = ((FileChannel) channel).map(FileChannel.MapMode.READ_ONLY, 0, size);
+			}
+
+			this.mapped = map;
+
+			TreeMap<String, QuiltZipEntry> table = readCentralDirectory(size);
+			this.names = table.keySet().toArray(new String[0]);
+			this.entries = table.values().toArray(new QuiltZipEntry[0]);
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/** Opens the given zip file. The file system isn't registered anywhere, so it must be closed by the caller. */
+	public static QuiltZipFileSystem open(Path zip) throws IOException {
+		return QuiltZipFileSystemProvider.INSTANCE.newFileSystem(zip, Collections.emptyMap());
+	}
+
+	/**
+	 * Opens a zip that is read through the given channel, such as a jar nested inside of another zip. The file system
+	 * isn't registered with the provider, so its paths can't be found from their URIs, and the channel is closed along
+	 * with it (or straight away, if the zip can't be read).
+	 *
+	 * @param zip The path of the zip, which is only used to describe it.
+	 * @param channel A channel that supports {@link SeekableByteChannel#position(long)}.
+	 */
+	public static QuiltZipFileSystem open(Path zip, SeekableByteChannel channel) throws IOException {
+		return new QuiltZipFileSystem(QuiltZipFileSystemProvider.INSTANCE, zip, channel);
+	}
+
+	public Path getZipPath() {
+		return zipPath;
+	}
+
+	/**
+	 * @return The name of every file and directory that has its own entry in the zip, without any leading or trailing
+	 * '/'. Unlike walking the file system, this leaves out the parent directories that the zip doesn't contain.
+	 */
+	public List<String> getEntryNames() {
+		ensureOpen();
+		List<String> list = new ArrayList<>(entries.length);
+
+		for (QuiltZipEntry entry : entries) {
+			// Directories that were only added as parents don't have a local header
+			if (entry.localHeaderOffset >= 0) {
+				list.add(entry.name);
+			}
+		}
+
+		return list;
+	}
+
+	// Central directory
+
+	private TreeMap<String, QuiltZipEntry> readCentralDirectory(long size) throws IOException {
+		int tailLength = (int) Math.min(size, END_SIZE + MAX_COMMENT_SIZE);
+		ByteBuffer tail = read(size - tailLength, tailLength);
+		int end = -1;
+
+		for (int i = tailLength - END_SIZE; i >= 0; i--) {
+			if (tail.getInt(i) == END_SIGNATURE) {
+				end = i;
+				break;
+			}
+		}
+
+		if (end < 0) {
+			throw new ZipException("Not a zip file: " + zipPath);
+		}
+
+		long count = tail.getShort(end + 10) & 0xFFFF;
+		long cdSize = tail.getInt(end + 12) & 0xFFFFFFFFL;
+		long cdOffset = tail.getInt(end + 16) & 0xFFFFFFFFL;
+
+		if (count == 0xFFFF || cdSize == 0xFFFFFFFFL || cdOffset == 0xFFFFFFFFL) {
+			long locator = size - tailLength + end - 20;
+
+			if (locator >= 0 && read(locator, 20).getInt(0) == ZIP64_LOCATOR_SIGNATURE) {
+				ByteBuffer zip64End = read(read(locator, 20).getLong(8), 56);
+
+				if (zip64End.getInt(0) != ZIP64_END_SIGNATURE) {
+					throw new ZipException("Invalid zip64 end header in " + zipPath);
+				}
+
+				count = zip64End.getLong(32);
+				cdSize = zip64End.getLong(40);
+				cdOffset = zip64End.getLong(48);
+			}
+		}
+
+		if (cdSize > Integer.MAX_VALUE || cdOffset + cdSize > size) {
+			throw new ZipException("Invalid central directory in " + zipPath);
+		}
+
+		ByteBuffer cd = read(cdOffset, (int) cdSize);
+		TreeMap<String, QuiltZipEntry> table = new TreeMap<>();
+		table.put("", QuiltZipEntry.directory(""));
+		int pos = 0;
+
+		for (long i = 0; i < count; i++) {
+			if (cd.getInt(pos) != CENTRAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid central directory header in " + zipPath);
+			}
+
+			int method = cd.getShort(pos + 10) & 0xFFFF;
+			long dosTime = cd.getInt(pos + 12) & 0xFFFFFFFFL;
+			long compressedSize = cd.getInt(pos + 20) & 0xFFFFFFFFL;
+			long uncompressedSize = cd.getInt(pos + 24) & 0xFFFFFFFFL;
+			int nameLength = cd.getShort(pos + 28) & 0xFFFF;
+			int extraLength = cd.getShort(pos + 30) & 0xFFFF;
+			int commentLength = cd.getShort(pos + 32) & 0xFFFF;
+			long localHeaderOffset = cd.getInt(pos + 42) & 0xFFFFFFFFL;
+
+			byte[] nameBytes = new byte[nameLength];
+			((ByteBuffer) cd.duplicate().position(pos + 46)).get(nameBytes);
+			String name = new String(nameBytes, StandardCharsets.UTF_8);
+
+			if (uncompressedSize == 0xFFFFFFFFL || compressedSize == 0xFFFFFFFFL || localHeaderOffset == 0xFFFFFFFFL) {
+				// Zip64 extended information, which only contains the fields that didn't fit
+				int extra = pos + 46 + nameLength;
+				int extraEnd = extra + extraLength;
+
+				while (extra + 4 <= extraEnd) {
+					int id = cd.getShort(extra) & 0xFFFF;
+					int length = cd.getShort(extra + 2) & 0xFFFF;
+					int field = extra + 4;
+
+					if (id == 0x0001) {
+						if (uncompressedSize == 0xFFFFFFFFL) {
+							uncompressedSize = cd.getLong(field);
+							field += 8;
+						}
+
+						if (compressedSize == 0xFFFFFFFFL) {
+							compressedSize = cd.getLong(field);
+							field += 8;
+						}
+
+						if (localHeaderOffset == 0xFFFFFFFFL) {
+							localHeaderOffset = cd.getLong(field);
+						}
+
+						break;
+					}
+
+					extra += 4 + length;
+				}
+			}
+
+			pos += 46 + nameLength + extraLength + commentLength;
+
+			boolean directory = name.endsWith("/");
+			name = trimSlashes(name);
+
+			if (name.isEmpty() || table.containsKey(name) && !table.get(name).directory) {
+				continue;
+			}
+
+			table.put(name, new QuiltZipEntry(name, directory, method, compressedSize, uncompressedSize, localHeaderOffset, dosTime));
+			addParents(table, name);
+		}
+
+		// Link every entry to its parent. Since the table is sorted, each directory's children end up sorted too
+		Map<String, List<QuiltZipEntry>> children = new TreeMap<>();
+
+		for (QuiltZipEntry entry : table.values()) {
+			if (!entry.name.isEmpty()) {
+				int slash = entry.name.lastIndexOf('/');
+				children.computeIfAbsent(slash < 0 ? "" : entry.name.substring(0, slash), k -> new ArrayList<>()).add(entry);
+			}
+		}
+
+		for (Map.Entry<String, List<QuiltZipEntry>> entry : children.entrySet()) {
+			table.get(entry.getKey()).children = entry.getValue().toArray(QuiltZipEntry.NO_CHILDREN);
+		}
+
+		return table;
+	}
+
+	private static String trimSlashes(String name) {
+		int start = 0;
+		int end = name.length();
+
+		while (start < end && name.charAt(start) == '/') {
+			start++;
+		}
+
+		while (end > start && name.charAt(end - 1) == '/') {
+			end--;
+		}
+
+		return name.substring(start, end);
+	}
+
+	/** Adds directories for every parent of the given entry, since zips aren't required to contain them. */
+	private static void addParents(TreeMap<String, QuiltZipEntry> table, String name) {
+		int slash = name.lastIndexOf('/');
+
+		while (slash > 0) {
+			String parent = name.substring(0, slash);
+			QuiltZipEntry existing = table.get(parent);
+
+			if (existing != null) {
+				if (existing.directory) {
+					return;
+				}
+
+				// A file and a directory with the same name, so the directory wins
+			}
+
+			table.put(parent, QuiltZipEntry.directory(parent));
+			slash = parent.lastIndexOf('/');
+		}
+	}
+
+	// Reading
+
+	/** @param name An entry name, with no leading '/'. */
+	QuiltZipEntry getEntry(String name) {
+		int index = Arrays.binarySearch(names, name);
+		return index < 0 ? null : entries[index];
+	}
+
+	QuiltZipEntry getEntry(QuiltZipPath path) {
+		ensureOpen();
+		return getEntry(path.entryName());
+	}
+
+	void ensureOpen() {
+		if (!open) {
+			throw new ClosedFileSystemException();
+		}
+	}
+
+	/** @return A little endian buffer containing the given range of the zip file. */
+	private ByteBuffer read(long offset, int length) throws IOException {
+		if (mapped != null) {
+			ByteBuffer buffer = mapped.duplicate();
+			buffer.position((int) offset).limit((int) (offset + length));
+			return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+		}
+
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+
+		if (channel instanceof FileChannel) {
+			FileChannel fileChannel = (FileChannel) channel;
+
+			while (buffer.hasRemaining()) {
+				if (fileChannel.read(buffer, offset + buffer.position()) < 0) {
+					throw new EOFException("Unexpected end of " + zipPath);
+				}
+			}
+		} else {
+			// Other channels have no positional reads, so seeking and reading has to be done as one
+			synchronized (channel) {
+				channel.position(offset);
+
+				while (buffer.hasRemaining()) {
+					if (channel.read(buffer) < 0) {
+						throw new EOFException("Unexpected end of " + zipPath);
+					}
+				}
+			}
+		}
+
+		buffer.flip();
+		return buffer.order(ByteOrder.LITTLE_ENDIAN);
+	}
+
+	/** @return The raw (possibly compressed) data of the given entry. */
+	private ByteBuffer readRaw(QuiltZipEntry entry) throws IOException {
+		long dataOffset = entry.dataOffset;
+
+		if (dataOffset < 0) {
+			ByteBuffer header = read(entry.localHeaderOffset, 30);
+
+			if (header.getInt(0) != LOCAL_HEADER_SIGNATURE) {
+				throw new ZipException("Invalid local header for " + entry.name + " in " + zipPath);
+			}
+
+			dataOffset = entry.localHeaderOffset + 30 + (header.getShort(26) & 0xFFFF) + (header.getShort(28) & 0xFFFF);
+			entry.dataOffset = dataOffset;
+		}
+
+		if (entry.compressedSize > Integer.MAX_VALUE) {
+			throw new IOException("Entry " + entry.name + " in " + zipPath + " is too large");
+		}
+
+		return read(dataOffset, (int) entry.compressedSize);
+	}
+
+	InputStream newInputStream(QuiltZipEntry entry) throws IOException {
+		ensureOpen();
+
+		switch (entry.method) {
+			case METHOD_STORED:
+				return new ByteBufferInputStream(readRaw(entry));
+			case METHOD_DEFLATED:
+				return new EntryInflaterInputStream(new ByteBufferInputStream(readRaw(entry)), entry.size);
+			default:
+				throw new ZipException("Unsupported compression method " + entry.method + " for " + entry.name + " in " + zipPath);
+		}
+	}
+
+	SeekableByteChannel newByteChannel(QuiltZipEntry entry) throws IOException {
+		ensureOpen();
+
+		if (entry.method == METHOD_STORED) {
+			return new ByteBufferChannel(readRaw(entry));
+		}
+
+		if (entry.size > Integer.MAX_VALUE) {
+			throw new IOException("Entry " + entry.name + " in " + zipPath + " is too large");
+		}
+
+		byte[] data = new byte[(int) entry.size];
+
+		try (InputStream stream = newInputStream(entry)) {
+			int read = 0;
+			int len;
+
+			while (read < data.length && (len = stream.read(data, read, data.length - read)) > 0) {
+				read += len;
+			}
+
+			if (read < data.length) {
+				throw new EOFException("Unexpected end of " + entry.name + " in " + zipPath);
+			}
+		}
+
+		return new ByteBufferChannel(ByteBuffer.wrap(data));
+	}
+
+	// FileSystem
+
+	@Override
+	public QuiltZipFileSystemProvider provider() {
+		return provider;
+	}
+
+	@Override
+	public void close() throws IOException {
+		if (open) {
+			open = false;
+			provider.removeFileSystem(this);
+			// The mapping itself is released once it's garbage collected
+			channel.close();
+		}
+	}
+
+	@Override
+	public boolean isOpen() {
+		return open;
+	}
+
+	@Override
+	public boolean isReadOnly() {
+		return true;
+	}
+
+	@Override
+	public String getSeparator() {
+		return "/";
+	}
+
+	@Override
+	public Iterable<Path> getRootDirectories() {
+		return Collections.singletonList(root);
+	}
+
+	@Override
+	public Iterable<FileStore> getFileStores() {
+		return Collections.singletonList(store);
+	}
+
+	FileStore getFileStore() {
+		return store;
+	}
+
+	@Override
+	public Set<String> supportedFileAttributeViews() {
+		return Collections.singleton("basic");
+	}
+
+	@Override
+	public Path getPath(String first, String... more) {
+		if (more.length == 0) {
+			return new QuiltZipPath(this, first);
+		}
+
+		StringBuilder sb = new StringBuilder(first);
+
+		for (String segment : more) {
+			if (!segment.isEmpty()) {
+				if (sb.length() > 0) {
+					sb.append('/');
+				}
+
+				sb.append(segment);
+			}
+		}
+
+		return new QuiltZipPath(this, sb.toString());
+	}
+
+	@Override
+	public PathMatcher getPathMatcher(String syntaxAndPattern) {
+		int colon = syntaxAndPattern.indexOf(':');
+
+		if (colon <= 0) {
+			throw new IllegalArgumentException("Expected 'syntax:pattern', got " + syntaxAndPattern);
+		}
+
+		String syntax = syntaxAndPattern.substring(0, colon);
+		String input = syntaxAndPattern.substring(colon + 1);
+		Pattern pattern;
+
+		if (syntax.equalsIgnoreCase("glob")) {
+			pattern = Pattern.compile(globToRegex(input));
+		} else if (syntax.equalsIgnoreCase("regex")) {
+			pattern = Pattern.compile(input);
+		} else {
+			throw new UnsupportedOperationException("Syntax '" + syntax + "' not recognized");
+		}
+
+		return path -> pattern.matcher(path.toString()).matches();
+	}
+
+	static String globToRegex(String glob) {
+		StringBuilder regex = new StringBuilder("^");
+		boolean inGroup = false;
+
+		for (int i = 0; i < glob.length(); i++) {
+			char c = glob.charAt(i);
+
+			switch (c) {
+				case '\\':
+					if (++i >= glob.length()) {
+						throw new IllegalArgumentException("No character to escape at the end of " + glob);
+					}
+
+					appendLiteral(regex, glob.charAt(i));
+					break;
+				case '*':
+					if (i + 1 < glob.length() && glob.charAt(i + 1) == '*') {
+						regex.append(".*");
+						i++;
+					} else {
+						regex.append("[^/]*");
+					}
+
+					break;
+				case '?':
+					regex.append("[^/]");
+					break;
+				case '[':
+					regex.append("[[^/]&&[");
+
+					if (i + 1 < glob.length() && (glob.charAt(i + 1) == '!' || glob.charAt(i + 1) == '^')) {
+						regex.append('^');
+						i++;
+					}
+
+					while (++i < glob.length() && glob.charAt(i) != ']') {
+						char inner = glob.charAt(i);
+
+						if (inner == '\\' || inner == '[' || inner == '&') {
+							regex.append('\\');
+						}
+
+						regex.append(inner);
+					}
+
+					if (i >= glob.length()) {
+						throw new IllegalArgumentException("Missing ']' in " + glob);
+					}
+
+					regex.append("]]");
+					break;
+				case '{':
+					if (inGroup) {
+						throw new IllegalArgumentException("Cannot nest groups in " + glob);
+					}
+
+					regex.append("(?:(?:");
+					inGroup = true;
+					break;
+				case '}':
+					if (inGroup) {
+						regex.append("))");
+						inGroup = false;
+					} else {
+						appendLiteral(regex, c);
+					}
+
+					break;
+				case ',':
+					if (inGroup) {
+						regex.append(")|(?:");
+					} else {
+						appendLiteral(regex, c);
+					}
+
+					break;
+				default:
+					appendLiteral(regex, c);
+			}
+		}
+
+		if (inGroup) {
+			throw new IllegalArgumentException("Missing '}' in " + glob);
+		}
+
+		return regex.append('$').toString();
+	}
+
+	private static void appendLiteral(StringBuilder regex, char c) {
+		if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+			regex.append('\\');
+		}
+
+		regex.append(c);
+	}
+
+	@Override
+	public UserPrincipalLookupService getUserPrincipalLookupService() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public WatchService newWatchService() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public String toString() {
+		return zipPath.toString();
+	}
+
+	/** Supplies an extra zero byte at the end of the data, which the inflater may need when there's no zlib header. */
+	private static final class EntryInflaterInputStream extends InflaterInputStream {
+		private final long size;
+		private long read = 0;
+		private boolean eof = false;
+		private boolean closed = false;
+
+		EntryInflaterInputStream(InputStream in, long size) {
+			super(in, new Inflater(true), (int) Math.max(64, Math.min(size, 8192)));
+			this.size = size;
+		}
+
+		@Override
+		protected void fill() throws IOException {
+			if (eof) {
+				throw new EOFException("Unexpected end of ZLIB input stream");
+			}
+
+			len = in.read(buf, 0, buf.length);
+
+			if (len == -1) {
+				buf[0] = 0;
+				len = 1;
+				eof = true;
+			}
+
+			inf.setInput(buf, 0, len);
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			int count = super.read(b, off, len);
+
+			if (count > 0) {
+				read += count;
+			}
+
+			return count;
+		}
+
+		@Override
+		public int available() throws IOException {
+			return closed ? 0 : (int) Math.min(Integer.MAX_VALUE, size - read);
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (!closed) {
+				closed = true;
+				super.close();
+				inf.end();
+			}
+		}
+	}
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.AccessMode;
+import java.nio.file.CopyOption;
+import java.nio.file.DirectoryIteratorException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileStore;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.ReadOnlyFileSystemException;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributeView;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileAttribute;
+import java.nio.file.attribute.FileAttributeView;
+import java.nio.file.attribute.FileTime;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The provider for {@link QuiltZipFileSystem}s. It isn't installed, so file systems can only be created from a
+ * {@link Path} to the zip, but {@link #getPath(URI)} does understand the {@code jar:} URIs that the paths return.
+ */
+public final class QuiltZipFileSystemProvider extends java.nio.file.spi.FileSystemProvider {
+	public static final QuiltZipFileSystemProvider INSTANCE = new QuiltZipFileSystemProvider();
+
+	/** Every open file system, by the URI of its zip. */
+	private final Map<String, QuiltZipFileSystem> openFileSystems = new ConcurrentHashMap<>();
+
+	private QuiltZipFileSystemProvider() {
+	}
+
+	private static QuiltZipPath toZipPath(Path path) {
+		if (!(path instanceof QuiltZipPath)) {
+			throw new ProviderMismatchException();
+		}
+
+		return (QuiltZipPath) path;
+	}
+
+	private static QuiltZipEntry getEntry(Path path) throws NoSuchFileException {
+		QuiltZipPath zipPath = toZipPath(path);
+		QuiltZipEntry entry = zipPath.fs.getEntry(zipPath);
+
+		if (entry == null) {
+			throw new NoSuchFileException(path.toString());
+		}
+
+		return entry;
+	}
+
+	void removeFileSystem(QuiltZipFileSystem fs) {
+		openFileSystems.remove(fs.zipPath.toUri().toString(), fs);
+	}
+
+	@Override
+	public String getScheme() {
+		return "quilt-zip";
+	}
+
+	@Override
+	public QuiltZipFileSystem newFileSystem(Path path, Map<String, ?> env) throws IOException {
+		QuiltZipFileSystem fs = new QuiltZipFileSystem(this, path);
+		openFileSystems.put(path.toUri().toString(), fs);
+		return fs;
+	}
+
+	@Override
+	public FileSystem newFileSystem(URI uri, Map<String, ?> env) {
+		throw new UnsupportedOperationException("Quilt zip file systems can only be created from a path");
+	}
+
+	@Override
+	public FileSystem getFileSystem(URI uri) {
+		throw new FileSystemNotFoundException(uri.toString());
+	}
+
+	/** @param uri A {@code jar:} URI, as returned by {@link Path#toUri()}. */
+	@Override
+	public Path getPath(URI uri) {
+		String spec = uri.getSchemeSpecificPart();
+		int separator = spec.indexOf("!/");
+
+		if (!"jar".equalsIgnoreCase(uri.getScheme()) || separator < 0) {
+			throw new IllegalArgumentException("Not a jar URI: " + uri);
+		}
+
+		QuiltZipFileSystem fs = openFileSystems.get(URI.create(encodeZipUri(spec.substring(0, separator))).toString());
+
+		if (fs == null) {
+			throw new FileSystemNotFoundException(uri.toString());
+		}
+
+		return fs.getPath(spec.substring(separator + 1));
+	}
+
+	/** @return The path inside an open zip for the given {@code jar:} URI, or null if no such zip is open. */
+	public static Path getOpenPath(URI uri) {
+		try {
+			return INSTANCE.getPath(uri);
+		} catch (IllegalArgumentException | FileSystemNotFoundException e) {
+			return null;
+		}
+	}
+
+	/** Turns the decoded zip URI from the scheme specific part of a jar URI back into an encoded URI. */
+	private static String encodeZipUri(String decoded) {
+		int colon = decoded.indexOf(':');
+
+		try {
+			return new URI(decoded.substring(0, colon), decoded.substring(colon + 1), null).toString();
+		} catch (java.net.URISyntaxException | StringIndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid zip URI " + decoded, e);
+		}
+	}
+
+	@Override
+	public InputStream newInputStream(Path path, OpenOption... options) throws IOException {
+		for (OpenOption option : options) {
+			if (option != StandardOpenOption.READ) {
+				throw new UnsupportedOperationException("'" + option + "' not allowed");
+			}
+		}
+
+		QuiltZipEntry entry = getEntry(path);
+
+		if (entry.directory) {
+			throw new IOException(path + " is a directory");
+		}
+
+		return toZipPath(path).fs.newInputStream(entry);
+	}
+
+	@Override
+	public OutputStream newOutputStream(Path path, OpenOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public SeekableByteChannel newByteChannel(Path path, Set<? extends OpenOption> options, FileAttribute<?>... attrs) throws IOException {
+		for (OpenOption option : options) {
+			if (option != StandardOpenOption.READ && option != LinkOption.NOFOLLOW_LINKS) {
+				throw new ReadOnlyFileSystemException();
+			}
+		}
+
+		QuiltZipEntry entry = getEntry(path);
+
+		if (entry.directory) {
+			throw new IOException(path + " is a directory");
+		}
+
+		return toZipPath(path).fs.newByteChannel(entry);
+	}
+
+	@Override
+	public DirectoryStream<Path> newDirectoryStream(Path dir, DirectoryStream.Filter<? super Path> filter) throws IOException {
+		QuiltZipEntry entry = getEntry(dir);
+
+		if (!entry.directory) {
+			throw new NotDirectoryException(dir.toString());
+		}
+
+		QuiltZipEntry[] children = entry.children;
+
+		return new DirectoryStream<Path>() {
+			private boolean iterated = false;
+			private boolean closed = false;
+
+			@Override
+			public Iterator<Path> iterator() {
+				if (closed || iterated) {
+					throw new IllegalStateException();
+				}
+
+				iterated = true;
+
+				return new Iterator<Path>() {
+					private int index = 0;
+					private Path next;
+
+					@Override
+					public boolean hasNext() {
+						while (next == null && !closed && index < children.length) {
+							QuiltZipEntry child = children[index++];
+							String name = child.name.substring(child.name.lastIndexOf('/') + 1);
+							Path path = dir.resolve(name);
+
+							try {
+								if (filter == null || filter.accept(path)) {
+									next = path;
+								}
+							} catch (IOException e) {
+								throw new DirectoryIteratorException(e);
+							}
+						}
+
+						return next != null;
+					}
+
+					@Override
+					public Path next() {
+						if (!hasNext()) {
+							throw new NoSuchElementException();
+						}
+
+						Path result = next;
+						next = null;
+						return result;
+					}
+				};
+			}
+
+			@Override
+			public void close() {
+				closed = true;
+			}
+		};
+	}
+
+	@Override
+	public void createDirectory(Path dir, FileAttribute<?>... attrs) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void delete(Path path) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void copy(Path source, Path target, CopyOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public void move(Path source, Path target, CopyOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+
+	@Override
+	public boolean isSameFile(Path path, Path path2) throws IOException {
+		if (path.equals(path2)) {
+			return true;
+		}
+
+		if (!(path2 instanceof QuiltZipPath) || toZipPath(path).fs != ((QuiltZipPath) path2).fs) {
+			return false;
+		}
+
+		return path.toRealPath().equals(path2.toRealPath());
+	}
+
+	@Override
+	public boolean isHidden(Path path) {
+		return false;
+	}
+
+	@Override
+	public FileStore getFileStore(Path path) {
+		return toZipPath(path).fs.getFileStore();
+	}
+
+	@Override
+	public void checkAccess(Path path, AccessMode... modes) throws IOException {
+		getEntry(path);
+
+		for (AccessMode mode : modes) {
+			if (mode == AccessMode.WRITE) {
+				throw new AccessDeniedException(path.toString());
+			}
+		}
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <V extends FileAttributeView> V getFileAttributeView(Path path, Class<V> type, LinkOption... options) {
+		if (type != BasicFileAttributeView.class) {
+			return null;
+		}
+
+		return (V) new BasicFileAttributeView() {
+			@Override
+			public String name() {
+				return "basic";
+			}
+
+			@Override
+			public BasicFileAttributes readAttributes() throws IOException {
+				return getEntry(path);
+			}
+
+			@Override
+			public void setTimes(FileTime lastModifiedTime, FileTime lastAccessTime, FileTime createTime) {
+				throw new ReadOnlyFileSystemException();
+			}
+		};
+	}
+
+	@Override
+	@SuppressWarnings("unchecked")
+	public <A extends BasicFileAttributes> A readAttributes(Path path, Class<A> type, LinkOption... options) throws IOException {
+		if (type != BasicFileAttributes.class) {
+			throw new UnsupportedOperationException("Only basic file attributes are supported");
+		}
+
+		return (A) getEntry(path);
+	}
+
+	@Override
+	public Map<String, Object> readAttributes(Path path, String attributes, LinkOption... options) throws IOException {
+		int colon = attributes.indexOf(':');
+
+		if (colon >= 0) {
+			if (!attributes.substring(0, colon).equals("basic")) {
+				throw new UnsupportedOperationException("View '" + attributes.substring(0, colon) + "' not available");
+			}
+
+			attributes = attributes.substring(colon + 1);
+		}
+
+		QuiltZipEntry entry = getEntry(path);
+		Map<String, Object> all = new HashMap<>();
+		all.put("lastModifiedTime", entry.lastModifiedTime());
+		all.put("lastAccessTime", entry.lastAccessTime());
+		all.put("creationTime", entry.creationTime());
+		all.put("size", entry.size());
+		all.put("isRegularFile", entry.isRegularFile());
+		all.put("isDirectory", entry.isDirectory());
+		all.put("isSymbolicLink", false);
+		all.put("isOther", false);
+		all.put("fileKey", null);
+
+		if (attributes.equals("*")) {
+			return all;
+		}
+
+		Map<String, Object> result = new HashMap<>();
+
+		for (String attribute : attributes.split(",")) {
+			if (!all.containsKey(attribute)) {
+				throw new IllegalArgumentException("'" + attribute + "' not recognized");
+			}
+
+			result.put(attribute, all.get(attribute));
+		}
+
+		return result;
+	}
+
+	@Override
+	public void setAttribute(Path path, String attribute, Object value, LinkOption... options) {
+		throw new ReadOnlyFileSystemException();
+	}
+}
@@ -0,0 +1,413 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.file.LinkOption;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.ProviderMismatchException;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/** A path in a {@link QuiltZipFileSystem}. Paths are immutable, and only split into names when needed. */
+final class QuiltZipPath implements Path {
+	private static final String[] NO_NAMES = new String[0];
+
+	final QuiltZipFileSystem fs;
+	/** Always uses '/' as the separator, never has repeated or trailing separators, and starts with '/' if absolute. */
+	final String path;
+	private String[] names;
+
+	QuiltZipPath(QuiltZipFileSystem fs, String path) {
+		this.fs = fs;
+		this.path = clean(path);
+	}
+
+	private static String clean(String path) {
+		if (path.indexOf("//") < 0 && (path.length() <= 1 || path.charAt(path.length() - 1) != '/')) {
+			return path;
+		}
+
+		StringBuilder sb = new StringBuilder(path.length());
+		char last = 0;
+
+		for (int i = 0; i < path.length(); i++) {
+			char c = path.charAt(i);
+
+			if (c != '/' || last != '/') {
+				sb.append(c);
+			}
+
+			last = c;
+		}
+
+		if (sb.length() > 1 && sb.charAt(sb.length() - 1) == '/') {
+			sb.setLength(sb.length() - 1);
+		}
+
+		return sb.toString();
+	}
+
+	/** @return The name of this path's entry in the zip file, which has no leading '/' (and so is empty for the root). */
+	String entryName() {
+		Path abs = toAbsolutePath().normalize();
+		return ((QuiltZipPath) abs).path.substring(1);
+	}
+
+	private String[] names() {
+		String[] n = names;
+
+		if (n == null) {
+			if (path.equals("/")) {
+				n = NO_NAMES;
+			} else if (path.isEmpty()) {
+				n = new String[] { "" };
+			} else {
+				n = (path.charAt(0) == '/' ? path.substring(1) : path).split("/");
+			}
+
+			names = n;
+		}
+
+		return n;
+	}
+
+	private QuiltZipPath toZipPath(Path other) {
+		if (!(other instanceof QuiltZipPath) || ((QuiltZipPath) other).fs != fs) {
+			throw new ProviderMismatchException();
+		}
+
+		return (QuiltZipPath) other;
+	}
+
+	private QuiltZipPath fromNames(boolean absolute, List<String> names) {
+		return new QuiltZipPath(fs, (absolute ? "/" : "") + String.join("/", names));
+	}
+
+	@Override
+	public QuiltZipFileSystem getFileSystem() {
+		return fs;
+	}
+
+	@Override
+	public boolean isAbsolute() {
+		return !path.isEmpty() && path.charAt(0) == '/';
+	}
+
+	@Override
+	public Path getRoot() {
+		return isAbsolute() ? fs.root : null;
+	}
+
+	@Override
+	public Path getFileName() {
+		String[] n = names();
+
+		if (n.length == 0) {
+			return null;
+		} else if (n.length == 1 && !isAbsolute()) {
+			return this;
+		} else {
+			return new QuiltZipPath(fs, n[n.length - 1]);
+		}
+	}
+
+	@Override
+	public Path getParent() {
+		String[] n = names();
+
+		if (n.length == 0 || (n.length == 1 && !isAbsolute())) {
+			return null;
+		}
+
+		int index = path.lastIndexOf('/');
+		return index == 0 ? fs.root : new QuiltZipPath(fs, path.substring(0, index));
+	}
+
+	@Override
+	public int getNameCount() {
+		return names().length;
+	}
+
+	@Override
+	public Path getName(int index) {
+		String[] n = names();
+
+		if (index < 0 || index >= n.length) {
+			throw new IllegalArgumentException();
+		}
+
+		return new QuiltZipPath(fs, n[index]);
+	}
+
+	@Override
+	public Path subpath(int beginIndex, int endIndex) {
+		String[] n = names();
+
+		if (beginIndex < 0 || beginIndex >= n.length || endIndex > n.length || beginIndex >= endIndex) {
+			throw new IllegalArgumentException();
+		}
+
+		return fromNames(false, Arrays.asList(n).subList(beginIndex, endIndex));
+	}
+
+	@Override
+	public boolean startsWith(Path other) {
+		if (!(other instanceof QuiltZipPath) || ((QuiltZipPath) other).fs != fs) {
+			return false;
+		}
+
+		QuiltZipPath o = (QuiltZipPath) other;
+
+		if (o.isAbsolute() != isAbsolute()) {
+			return false;
+		}
+
+		String[] n = names();
+		String[] on = o.names();
+
+		if (on.length > n.length) {
+			return false;
+		}
+
+		for (int i = 0; i < on.length; i++) {
+			if (!on[i].equals(n[i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean startsWith(String other) {
+		return startsWith(fs.getPath(other));
+	}
+
+	@Override
+	public boolean endsWith(Path other) {
+		if (!(other instanceof QuiltZipPath) || ((QuiltZipPath) other).fs != fs) {
+			return false;
+		}
+
+		QuiltZipPath o = (QuiltZipPath) other;
+
+		if (o.isAbsolute()) {
+			return o.path.equals(path);
+		}
+
+		String[] n = names();
+		String[] on = o.names();
+
+		if (on.length > n.length) {
+			return false;
+		}
+
+		for (int i = 1; i <= on.length; i++) {
+			if (!on[on.length - i].equals(n[n.length - i])) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	@Override
+	public boolean endsWith(String other) {
+		return endsWith(fs.getPath(other));
+	}
+
+	@Override
+	public Path normalize() {
+		String[] n = names();
+		List<String> result = new ArrayList<>(n.length);
+		boolean changed = false;
+
+		for (String name : n) {
+			if (name.equals(".")) {
+				changed = true;
+			} else if (name.equals("..")) {
+				if (!result.isEmpty() && !result.get(result.size() - 1).equals("..")) {
+					result.remove(result.size() - 1);
+					changed = true;
+				} else if (isAbsolute()) {
+					// Can't go above the root
+					changed = true;
+				} else {
+					result.add(name);
+				}
+			} else {
+				result.add(name);
+			}
+		}
+
+		return changed ? fromNames(isAbsolute(), result) : this;
+	}
+
+	@Override
+	public Path resolve(Path other) {
+		QuiltZipPath o = toZipPath(other);
+
+		if (o.isAbsolute()) {
+			return o;
+		} else if (o.path.isEmpty()) {
+			return this;
+		} else if (path.isEmpty()) {
+			return o;
+		} else if (path.equals("/")) {
+			return new QuiltZipPath(fs, "/" + o.path);
+		} else {
+			return new QuiltZipPath(fs, path + "/" + o.path);
+		}
+	}
+
+	@Override
+	public Path resolve(String other) {
+		return resolve(fs.getPath(other));
+	}
+
+	@Override
+	public Path resolveSibling(Path other) {
+		Path parent = getParent();
+		return parent == null ? toZipPath(other) : parent.resolve(other);
+	}
+
+	@Override
+	public Path resolveSibling(String other) {
+		return resolveSibling(fs.getPath(other));
+	}
+
+	@Override
+	public Path relativize(Path other) {
+		QuiltZipPath o = toZipPath(other);
+
+		if (o.isAbsolute() != isAbsolute()) {
+			throw new IllegalArgumentException("'other' is different type of Path");
+		}
+
+		if (o.path.equals(path)) {
+			return new QuiltZipPath(fs, "");
+		}
+
+		String[] n = path.isEmpty() ? NO_NAMES : names();
+		String[] on = o.path.isEmpty() ? NO_NAMES : o.names();
+		int common = 0;
+
+		while (common < n.length && common < on.length && n[common].equals(on[common])) {
+			common++;
+		}
+
+		List<String> result = new ArrayList<>();
+
+		for (int i = common; i < n.length; i++) {
+			result.add("..");
+		}
+
+		result.addAll(Arrays.asList(on).subList(common, on.length));
+		return fromNames(false, result);
+	}
+
+	/**
+	 * Returns a {@code jar:} URI for this path, rather than one with this file system's own scheme, so that the URI
+	 * can still be turned into a URL and opened by code that doesn't know about this file system. This provider isn't
+	 * installed, so the URI has to be turned back into a path with {@link QuiltZipFileSystemProvider#getOpenPath(URI)}
+	 * (as {@link org.quiltmc.loader.impl.util.UrlUtil#asPath(java.net.URL)} does) rather than
+	 * {@link java.nio.file.Paths#get(URI)}.
+	 */
+	@Override
+	public URI toUri() {
+		URI zipUri = fs.zipPath.toUri();
+
+		try {
+			return new URI("jar", zipUri.getScheme() + ":" + zipUri.getSchemeSpecificPart() + "!" + ((QuiltZipPath) toAbsolutePath()).path, null);
+		} catch (URISyntaxException e) {
+			throw new IllegalStateException("Failed to create a URI for " + this, e);
+		}
+	}
+
+	@Override
+	public Path toAbsolutePath() {
+		return isAbsolute() ? this : new QuiltZipPath(fs, "/" + path);
+	}
+
+	@Override
+	public Path toRealPath(LinkOption... options) throws IOException {
+		Path real = toAbsolutePath().normalize();
+
+		if (fs.getEntry(((QuiltZipPath) real).path.substring(1)) == null) {
+			throw new NoSuchFileException(toString());
+		}
+
+		return real;
+	}
+
+	@Override
+	public File toFile() {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>[] events, WatchEvent.Modifier... modifiers) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public WatchKey register(WatchService watcher, WatchEvent.Kind<?>... events) {
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Iterator<Path> iterator() {
+		String[] n = names();
+		List<Path> paths = new ArrayList<>(n.length);
+
+		for (String name : n) {
+			paths.add(new QuiltZipPath(fs, name));
+		}
+
+		return paths.iterator();
+	}
+
+	@Override
+	public int compareTo(Path other) {
+		return path.compareTo(toZipPath(other).path);
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		return obj instanceof QuiltZipPath && ((QuiltZipPath) obj).fs == fs && ((QuiltZipPath) obj).path.equals(path);
+	}
+
+	@Override
+	public int hashCode() {
+		return path.hashCode();
+	}
+
+	@Override
+	public String toString() {
+		return path;
+	}
+}
@@ -21,6 +21,7 @@ import net.fabricmc.loader.api.Version;
 import net.fabricmc.loader.api.VersionParsingException;
 import net.fabricmc.loader.api.VersionPredicate;
 import net.fabricmc.loader.api.metadata.ModDependency;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.entrypoint.EntrypointTransformer;
 import org.quiltmc.loader.impl.entrypoint.minecraft.EntrypointPatchBranding;
 import org.quiltmc.loader.impl.entrypoint.minecraft.EntrypointPatchHook;
@@ -157,7 +158,7 @@ public class MinecraftGameProvider implements GameProvider {
 
 		String version = arguments.remove(Arguments.GAME_VERSION);
 		if (version == null) version = System.getProperty(SystemProperties.GAME_VERSION);
-		versionData = McVersionLookup.getVersion(gameJar, entrypointClasses, version);
+		versionData = McVersionLookup.getVersion(gameJar, entrypointClasses, version, QuiltLoaderImpl.resolveCacheDir(getLaunchDirectory()));
 
 		QuiltLauncherBase.processArgumentMap(arguments, envType);
 
@@ -26,10 +26,20 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.IOException;
+import java.io.Writer;
 import java.lang.ProcessBuilder.Redirect;
+import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Set;
@@ -42,9 +52,16 @@ import org.quiltmc.loader.impl.QuiltLoaderImpl;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.gui.QuiltStatusTree.QuiltStatusNode;
 import org.quiltmc.loader.impl.gui.QuiltStatusTree.QuiltStatusTab;
+import org.quiltmc.loader.impl.util.UrlConversionException;
+import org.quiltmc.loader.impl.util.UrlUtil;
 
 /** The main entry point for all quilt-based stuff. */
 public final class QuiltGuiEntry {
+	/** The version of the crash report format, which is increased whenever existing fields change. */
+	private static final int REPORT_FORMAT_VERSION = 1;
+	/** The most memory the forked gui process may use, since it only has to show a single window. */
+	private static final String FORK_MAX_HEAP = "-Xmx128M";
+
 	/** Opens the given {@link QuiltStatusTree} in a new swing window.
 	 * 
 	 * @throws Exception if something went wrong while opening the window. */
@@ -95,19 +112,22 @@ public final class QuiltGuiEntry {
 	public static void displayCriticalError(Throwable exception, boolean exitAfter) {
 		QuiltLoaderImpl.INSTANCE.getLogger().fatal("A critical error occurred", exception);
 
-		GameProvider provider = QuiltLoaderImpl.INSTANCE.getGameProvider();
+		QuiltStatusTree tree = new QuiltStatusTree();
+		QuiltStatusTab crashTab = tree.addTab("Crash");
 
-		if ((provider == null || provider.canOpenErrorGui()) && !GraphicsEnvironment.isHeadless()) {
-			QuiltStatusTree tree = new QuiltStatusTree();
-			QuiltStatusTab crashTab = tree.addTab("Crash");
+		tree.mainText = "Failed to launch!";
+		addThrowable(crashTab.node, exception, new HashSet<>());
 
-			tree.mainText = "Failed to launch!";
-			addThrowable(crashTab.node, exception, new HashSet<>());
+		// Maybe add an "open mods folder" button?
+		// or should that be part of the main tree's right-click menu?
+		tree.addButton("Exit").makeClose();
 
-			// Maybe add an "open mods folder" button?
-			// or should that be part of the main tree's right-click menu?
-			tree.addButton("Exit").makeClose();
+		// Always written, since headless servers have no other way to see the tree
+		writeReport(exception, tree);
+
+		GameProvider provider = QuiltLoaderImpl.INSTANCE.getGameProvider();
 
+		if ((provider == null || provider.canOpenErrorGui()) && !GraphicsEnvironment.isHeadless()) {
 			try {
 				open(tree);
 			} catch (Exception e) {
@@ -124,6 +144,82 @@ public final class QuiltGuiEntry {
 		}
 	}
 
+	/** Writes the given error and tree to a json file in the game directory's "crash-reports" folder, so that tools can
+	 * read it without parsing the log.
+	 *
+	 * @return The file that was written, or null if it couldn't be written. */
+	static Path writeReport(Throwable exception, QuiltStatusTree tree) {
+		QuiltLoaderImpl loader = QuiltLoaderImpl.INSTANCE;
+		Path gameDir = loader.getGameDir() != null ? loader.getGameDir() : Paths.get(".");
+		String time = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd_HH.mm.ss", Locale.ROOT));
+		Path file = gameDir.resolve("crash-reports").resolve("quilt-loader-" + time + ".json");
+
+		try {
+			Files.createDirectories(file.getParent());
+
+			try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+					JsonWriter writer = JsonWriter.json(out)) {
+				writer.setIndent("\t");
+				writer.beginObject();
+				writer.name("format").value(REPORT_FORMAT_VERSION);
+				writer.name("time").value(time);
+
+				GameProvider provider = loader.getGameProvider();
+
+				if (provider != null) {
+					writer.name("game").value(provider.getGameId());
+					writer.name("gameVersion").value(provider.getRawGameVersion());
+				}
+
+				writer.name("error");
+				writeThrowable(writer, exception, new HashSet<>());
+				writer.name("tree");
+				tree.write(writer);
+				writer.endObject();
+			}
+
+			loader.getLogger().info("Wrote the error report to " + file.toAbsolutePath());
+			return file;
+		} catch (IOException e) {
+			loader.getLogger().warn("Failed to write the error report to " + file.toAbsolutePath(), e);
+			return null;
+		}
+	}
+
+	private static void writeThrowable(JsonWriter writer, Throwable e, Set<Throwable> seen) throws IOException {
+		writer.beginObject();
+		writer.name("type").value(e.getClass().getName());
+		writer.name("message");
+
+		if (e.getMessage() != null) {
+			writer.value(e.getMessage());
+		} else {
+			writer.nullValue();
+		}
+
+		if (seen.add(e)) {
+			writer.name("stackTrace").beginArray();
+			for (StackTraceElement element : e.getStackTrace()) {
+				writer.value(element.toString());
+			}
+			writer.endArray();
+
+			if (e.getCause() != null) {
+				writer.name("cause");
+				writeThrowable(writer, e.getCause(), seen);
+			}
+
+			// The solver reports each separate problem as a suppressed exception
+			writer.name("suppressed").beginArray();
+			for (Throwable t : e.getSuppressed()) {
+				writeThrowable(writer, t, seen);
+			}
+			writer.endArray();
+		}
+
+		writer.endObject();
+	}
+
 	private static void addThrowable(QuiltStatusNode node, Throwable e, Set<Throwable> seen) {
 		if (!seen.add(e)) {
 			return;
@@ -165,11 +261,9 @@ public final class QuiltGuiEntry {
 	private static void fork(QuiltStatusTree tree, boolean shouldWait) throws Exception {
 		List<String> commands = new ArrayList<>();
 		commands.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+		commands.add(FORK_MAX_HEAP);
 		commands.add("-cp");
-		// Is this a good idea?
-		// I don't think we actually care about most of the classes here
-		// just *this* jar file?
-		commands.add(System.getProperty("java.class.path"));
+		commands.add(getForkClasspath());
 		commands.add(QuiltGuiEntry.class.getName());
 
 		File jsonFile = File.createTempFile("quilt-loader-tree", ".json.gz");
@@ -206,6 +300,36 @@ public final class QuiltGuiEntry {
 		}
 	}
 
+	/** @return Only the jars that the gui needs (this one, its icons, and json5), or the full classpath if they can't be
+	 *         found. */
+	private static String getForkClasspath() {
+		Set<String> jars = new LinkedHashSet<>();
+
+		try {
+			for (Class<?> cls : new Class<?>[] { QuiltGuiEntry.class, JsonReader.class }) {
+				CodeSource source = cls.getProtectionDomain().getCodeSource();
+
+				if (source == null || source.getLocation() == null) {
+					return System.getProperty("java.class.path");
+				}
+
+				jars.add(UrlUtil.asPath(source.getLocation()).toAbsolutePath().toString());
+			}
+
+			// Resources are in a different folder to classes in a development environment
+			String icon = "ui/icon/quilt_x16.png";
+			URL iconUrl = QuiltGuiEntry.class.getClassLoader().getResource(icon);
+
+			if (iconUrl != null) {
+				jars.add(UrlUtil.asPath(UrlUtil.getSource(icon, iconUrl)).toAbsolutePath().toString());
+			}
+		} catch (UrlConversionException e) {
+			return System.getProperty("java.class.path");
+		}
+
+		return String.join(File.pathSeparator, jars);
+	}
+
 	/** The entry point after forking the main application over into a different process to get around incompatibilities
 	 * on OSX (and problems where some games switch swing over to use headless mode, which doesn't work very well for
 	 * us). */
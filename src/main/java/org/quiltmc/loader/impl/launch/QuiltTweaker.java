@@ -26,6 +26,7 @@ import org.quiltmc.loader.impl.game.MinecraftGameProvider;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.launch.common.QuiltMixinBootstrap;
 import org.quiltmc.loader.impl.util.Arguments;
+import org.quiltmc.loader.impl.util.ClassByteCache;
 import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.UrlConversionException;
 import org.quiltmc.loader.impl.util.UrlUtil;
@@ -48,7 +49,9 @@ import java.lang.reflect.Field;
 import java.net.JarURLConnection;
 import java.net.URL;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.jar.JarEntry;
@@ -59,6 +62,10 @@ public abstract class QuiltTweaker extends QuiltLauncherBase implements ITweaker
 	protected Arguments arguments;
 	private LaunchClassLoader launchClassLoader;
 	private boolean isDevelopment;
+	/** Classes that have been through every transformer except mixin, since mixin asks for its targets repeatedly. */
+	private static final ClassByteCache transformedClassCache = ClassByteCache.create();
+	/** The transformers that produced {@link #transformedClassCache}. */
+	private static List<IClassTransformer> cachedTransformers = Collections.emptyList();
 
 	@SuppressWarnings("unchecked")
 	private final boolean isPrimaryTweaker = ((List<ITweaker>) Launch.blackboard.get("Tweaks")).isEmpty();
@@ -122,6 +129,7 @@ public abstract class QuiltTweaker extends QuiltLauncherBase implements ITweaker
 		loader.freeze();
 
 		launchClassLoader.registerTransformer("org.quiltmc.loader.impl.launch.FabricClassTransformer");
+		launchClassLoader.registerTransformer(DefinedClassEvictor.class.getName());
 
 		if (!isDevelopment) {
 			// Obfuscated environment
@@ -147,7 +155,7 @@ public abstract class QuiltTweaker extends QuiltLauncherBase implements ITweaker
 
 		QuiltLoaderImpl.INSTANCE.loadAccessWideners();
 
-		MinecraftGameProvider.TRANSFORMER.locateEntrypoints(this);
+		MinecraftGameProvider.TRANSFORMER.locateEntrypoints(this, provider);
 
 		// Setup Mixin environment
 		MixinBootstrap.init();
@@ -190,20 +198,52 @@ public abstract class QuiltTweaker extends QuiltLauncherBase implements ITweaker
 	@Override
 	public byte[] getClassByteArray(String name, boolean runTransformers) throws IOException {
 		String transformedName = name.replace('/', '.');
-		byte[] classBytes = launchClassLoader.getClassBytes(name);
 
-		if (runTransformers) {
-			for (IClassTransformer transformer : launchClassLoader.getTransformers()) {
-				if (transformer instanceof Proxy) {
-					continue; // skip mixin as per method contract
-				}
-				classBytes = transformer.transform(name, transformedName, classBytes);
+		if (!runTransformers) {
+			return launchClassLoader.getClassBytes(name);
+		}
+
+		List<IClassTransformer> transformers = launchClassLoader.getTransformers();
+
+		synchronized (transformedClassCache) {
+			// Other tweakers can still register transformers, which would make everything cached so far wrong
+			if (!transformers.equals(cachedTransformers)) {
+				transformedClassCache.clear();
+				cachedTransformers = new ArrayList<>(transformers);
+			}
+		}
+
+		byte[] classBytes = transformedClassCache.get(transformedName);
+
+		if (classBytes != null) {
+			return classBytes;
+		}
+
+		classBytes = launchClassLoader.getClassBytes(name);
+
+		for (IClassTransformer transformer : transformers) {
+			if (transformer instanceof Proxy || transformer instanceof DefinedClassEvictor) {
+				continue; // skip mixin as per method contract, and nothing is being defined here
 			}
+			classBytes = transformer.transform(name, transformedName, classBytes);
 		}
 
+		transformedClassCache.put(transformedName, classBytes);
 		return classBytes;
 	}
 
+	/**
+	 * Drops classes from the cache once {@link LaunchClassLoader} runs its transformers on them to define them, as mixin
+	 * mostly asks for classes before they're loaded. Never changes the class.
+	 */
+	public static final class DefinedClassEvictor implements IClassTransformer {
+		@Override
+		public byte[] transform(String name, String transformedName, byte[] basicClass) {
+			transformedClassCache.remove(transformedName);
+			return basicClass;
+		}
+	}
+
 	// By default the remapped jar will be on the classpath after the obfuscated one.
 	// This will lead to us finding and the launching the obfuscated one when we search
 	// for the entrypoint.
@@ -20,6 +20,7 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.security.DigestInputStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -27,21 +28,35 @@ import org.apache.logging.log4j.Logger;
 import net.fabricmc.mapping.tree.TinyMappingFactory;
 import net.fabricmc.mapping.tree.TinyTree;
 
+import org.quiltmc.loader.impl.util.HashUtil;
+
 public class MappingConfiguration {
 	protected static Logger LOGGER = LogManager.getFormatterLogger("QuiltLoader");
 
 	private static TinyTree mappings;
+	private static String mappingsHash;
 	private static boolean checkedMappings;
 
 	public TinyTree getMappings() {
 		if (!checkedMappings) {
 			InputStream mappingStream = QuiltLauncherBase.class.getClassLoader().getResourceAsStream("mappings/mappings.tiny");
+			mappingsHash = "";
 
 			if (mappingStream != null) {
-				try (BufferedReader reader = new BufferedReader(new InputStreamReader(mappingStream))) {
+				DigestInputStream digestStream = new DigestInputStream(mappingStream, HashUtil.newDigest());
+
+				try (BufferedReader reader = new BufferedReader(new InputStreamReader(digestStream))) {
 					long time = System.currentTimeMillis();
 					mappings = TinyMappingFactory.loadWithDetection(reader);
 					LOGGER.debug("Loading mappings took " + (System.currentTimeMillis() - time) + " ms");
+
+					// Make sure the hash covers the whole file, even if the parser stopped early
+					byte[] buffer = new byte[8192];
+					while (digestStream.read(buffer) > 0) {
+						// Just digesting
+					}
+
+					mappingsHash = HashUtil.toHex(digestStream.getMessageDigest().digest());
 				} catch (IOException ee) {
 					ee.printStackTrace();
 				}
@@ -64,6 +79,15 @@ public class MappingConfiguration {
 		return mappings;
 	}
 
+	/**
+	 * @return A hash of the mappings file that {@link #getMappings()} was read from, or an empty string if there are
+	 *		 no mappings.
+	 */
+	public String getMappingsHash() {
+		getMappings();
+		return mappingsHash;
+	}
+
 	public String getTargetNamespace() {
 		return QuiltLauncherBase.getLauncher().isDevelopment() ? "named" : "intermediary";
 	}
@@ -0,0 +1,56 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.common;
+
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.quiltmc.loader.impl.ModContainer;
+
+import net.fabricmc.api.EnvType;
+
+/**
+ * Finds every mixin config inside the mod that declares it, so that Mixin can read each one straight from that mod
+ * rather than searching every jar on the classpath for it. The configs themselves aren't read here, since Mixin parses
+ * them anyway.
+ */
+public final class MixinConfigIndex {
+	/** Every config, by resource name, in the first mod that declares it. */
+	private final Map<String, Path> configs = new HashMap<>();
+
+	private MixinConfigIndex() {
+	}
+
+	static MixinConfigIndex build(Collection<ModContainer> mods, EnvType env) {
+		MixinConfigIndex index = new MixinConfigIndex();
+
+		for (ModContainer mod : mods) {
+			for (String config : mod.getInternalMeta().mixins(env)) {
+				index.configs.putIfAbsent(config, mod.getPath(config));
+			}
+		}
+
+		return index;
+	}
+
+	/** @return The config with the given name, in the mod that declared it, or null if it isn't known. */
+	public Path getResource(String name) {
+		return configs.get(name.startsWith("/") ? name.substring(1) : name);
+	}
+}
@@ -28,6 +28,7 @@ import org.spongepowered.asm.launch.MixinBootstrap;
 import org.spongepowered.asm.mixin.MixinEnvironment;
 import org.spongepowered.asm.mixin.Mixins;
 
+import java.nio.file.Path;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
@@ -40,6 +41,7 @@ public final class QuiltMixinBootstrap {
 
 	protected static Logger LOGGER = LogManager.getFormatterLogger("Quilt|MixinBootstrap");
 	private static boolean initialized = false;
+	private static MixinConfigIndex configIndex;
 
 	static void addConfiguration(String configuration) {
 		Mixins.addConfiguration(configuration);
@@ -53,6 +55,15 @@ public final class QuiltMixinBootstrap {
 		return set;
 	}
 
+	/**
+	 * @return The mixin config with the given name, in the mod that declared it, or null if it isn't one (or Mixin
+	 * hasn't been set up yet).
+	 */
+	public static Path findMixinResource(String name) {
+		MixinConfigIndex index = configIndex;
+		return index == null ? null : index.getResource(name);
+	}
+
 	public static void init(EnvType side, QuiltLoaderImpl loader) {
 		if (initialized) {
 			throw new IllegalStateException("QuiltMixinBootstrap has already been initialized!");
@@ -79,6 +90,7 @@ public final class QuiltMixinBootstrap {
 			}
 		}
 
+		configIndex = MixinConfigIndex.build(loader.getMods(), side);
 		MixinBootstrap.init();
 		getMixinConfigs(loader, side).forEach(QuiltMixinBootstrap::addConfiguration);
 		initialized = true;
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.knot;
+
+import java.io.IOException;
+import java.lang.ref.SoftReference;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.tree.ClassNode;
+
+/**
+ * Parsed classes for {@link MixinServiceKnot}, which mixin asks for many times while preparing and applying configs.
+ * Only the most recently used classes are kept, and even those are only softly referenced, so the cache gives memory
+ * back whenever the game needs it.
+ *
+ * <p>Mixin is free to modify the nodes it gets, so each caller gets its own copy of the cached node. Copying a node
+ * is still a lot cheaper than fetching the class bytes (which may run transformers) and parsing them again.</p>
+ */
+final class ClassNodeCache {
+	private static final int MAX_ENTRIES = 1024;
+
+	private static final class Key {
+		final String name;
+		final boolean runTransformers;
+
+		Key(String name, boolean runTransformers) {
+			this.name = name;
+			this.runTransformers = runTransformers;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof Key)) {
+				return false;
+			}
+
+			Key other = (Key) obj;
+			return name.equals(other.name) && runTransformers == other.runTransformers;
+		}
+
+		@Override
+		public int hashCode() {
+			return name.hashCode() * 2 + (runTransformers ? 1 : 0);
+		}
+	}
+
+	interface ClassBytesSource {
+		byte[] get(String name, boolean runTransformers) throws ClassNotFoundException, IOException;
+	}
+
+	private final Map<Key, SoftReference<ClassNode>> entries = new LinkedHashMap<Key, SoftReference<ClassNode>>(256, 0.75f, true) {
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<Key, SoftReference<ClassNode>> eldest) {
+			return size() > MAX_ENTRIES;
+		}
+	};
+
+	ClassNode get(String name, boolean runTransformers, ClassBytesSource source) throws ClassNotFoundException, IOException {
+		Key key = new Key(name, runTransformers);
+		SoftReference<ClassNode> entry;
+
+		synchronized (entries) {
+			entry = entries.get(key);
+		}
+
+		ClassNode cached = entry != null ? entry.get() : null;
+
+		if (cached == null) {
+			cached = new ClassNode();
+			new ClassReader(source.get(name, runTransformers)).accept(cached, 0);
+
+			synchronized (entries) {
+				entries.put(key, new SoftReference<>(cached));
+			}
+		}
+
+		ClassNode copy = new ClassNode();
+
+		// Visiting a method resets its labels, so the same node can't be copied by two threads at once
+		synchronized (cached) {
+			cached.accept(copy);
+		}
+
+		return copy;
+	}
+}
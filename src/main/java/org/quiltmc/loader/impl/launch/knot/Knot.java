@@ -117,7 +117,7 @@ public final class Knot extends QuiltLauncherBase {
 		}
 
 		// Locate entrypoints before switching class loaders
-		provider.getEntrypointTransformer().locateEntrypoints(this);
+		provider.getEntrypointTransformer().locateEntrypoints(this, provider);
 
 		Thread.currentThread().setContextClassLoader(cl);
 
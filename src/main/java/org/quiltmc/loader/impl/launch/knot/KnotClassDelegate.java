@@ -20,7 +20,9 @@ import net.fabricmc.api.EnvType;
 import org.quiltmc.loader.impl.game.GameProvider;
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
 import org.quiltmc.loader.impl.transformer.QuiltTransformer;
+import org.quiltmc.loader.impl.util.ClassByteCache;
 import org.quiltmc.loader.impl.util.FileSystemUtil;
+import org.quiltmc.loader.impl.util.SystemProperties;
 import org.quiltmc.loader.impl.util.UrlConversionException;
 import org.quiltmc.loader.impl.util.UrlUtil;
 import org.spongepowered.asm.mixin.transformer.QuiltMixinTransformerProxy;
@@ -54,11 +56,16 @@ class KnotClassDelegate {
 	}
 
 	private final Map<String, Metadata> metadataCache = new HashMap<>();
+	/** Classes that mixin has asked for, after every transformer except mixin, until they're defined. */
+	private final ClassByteCache transformedClassCache = ClassByteCache.create();
 	private final KnotClassLoaderInterface itf;
 	private final GameProvider provider;
 	private final boolean isDevelopment;
 	private final EnvType envType;
 	private QuiltMixinTransformerProxy mixinTransformer;
+	private final boolean useMixinTargetIndex = !Boolean.getBoolean(SystemProperties.DISABLE_MIXIN_TARGET_INDEX);
+	/** The classes that mixin might change, or null if that isn't known yet. */
+	private volatile MixinTargetIndex mixinTargets;
 	private boolean transformInitialized = false;
 
 	KnotClassDelegate(boolean isDevelopment, EnvType envType, KnotClassLoaderInterface itf, GameProvider provider) {
@@ -113,7 +120,7 @@ class KnotClassDelegate {
 							}
 
 							if (manifest == null) {
-								try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(path, false)) {
+								try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getReadOnlyJarFileSystem(path)) {
 									Path manifestPath = jarFs.get().getPath("META-INF/MANIFEST.MF");
 									if (Files.exists(manifestPath)) {
 										try (InputStream stream = Files.newInputStream(manifestPath)) {
@@ -149,18 +156,42 @@ class KnotClassDelegate {
 	}
 
 	public byte[] getPostMixinClassByteArray(String name) {
-		byte[] transformedClassArray = getPreMixinClassByteArray(name, true);
+		byte[] transformedClassArray = getPreMixinClassByteArray(name, true, true);
 		if (!transformInitialized || !canTransformClass(name)) {
 			return transformedClassArray;
 		}
 
-		return getMixinTransformer().transformClassBytes(name, name, transformedClassArray);
+		MixinTargetIndex targets = mixinTargets;
+		boolean indexCurrent = targets != null && targets.isCurrent();
+
+		// Missing classes still go to mixin, as it might generate them
+		if (indexCurrent && transformedClassArray != null && !targets.isTarget(name)) {
+			return transformedClassArray;
+		}
+
+		byte[] mixedClassArray = getMixinTransformer().transformClassBytes(name, name, transformedClassArray);
+
+		if (!indexCurrent && useMixinTargetIndex) {
+			// Mixin has just prepared any new configs, so their targets are known now
+			mixinTargets = MixinTargetIndex.build();
+		}
+
+		return mixedClassArray;
 	}
 
 	/**
 	 * Runs all the class transformers except mixin
 	 */
 	public byte[] getPreMixinClassByteArray(String name, boolean skipOriginalLoader) {
+		return getPreMixinClassByteArray(name, skipOriginalLoader, false);
+	}
+
+	/**
+	 * @param forDefinition True if the class is about to be defined, in which case it's taken out of the cache rather
+	 * than added to it. Mixin mostly asks for classes before they're loaded, so keeping classes that have already been
+	 * defined would just hold on to memory.
+	 */
+	private byte[] getPreMixinClassByteArray(String name, boolean skipOriginalLoader, boolean forDefinition) {
 		// some of the transformers rely on dot notation
 		name = name.replace('/', '.');
 
@@ -172,17 +203,35 @@ class KnotClassDelegate {
 			}
 		}
 
+		byte[] cached = forDefinition ? transformedClassCache.remove(name) : transformedClassCache.get(name);
+		if (cached != null) {
+			return cached;
+		}
+
+		boolean cacheable = !forDefinition;
 		byte[] input = provider.getEntrypointTransformer().transform(name);
 		if (input == null) {
 			try {
-				input = getRawClassByteArray(name, skipOriginalLoader);
+				input = getRawClassByteArray(name, true);
+
+				if (input == null && !skipOriginalLoader) {
+					// This loader has already missed, so only the original loader is left to ask
+					input = readClassBytes(itf.getOriginalResourceAsStream(getClassFileName(name)));
+					// Classes only the original loader has are never defined by this one, so must not be handed out
+					// to the class loader later on
+					cacheable = false;
+				}
 			} catch (IOException e) {
 				throw new RuntimeException("Failed to load class file for '" + name + "'!", e);
 			}
 		}
 
 		if (input != null) {
-			return QuiltTransformer.transform(isDevelopment, envType, name, input);
+			byte[] transformed = QuiltTransformer.transform(isDevelopment, envType, name, input);
+			if (cacheable) {
+				transformedClassCache.put(name, transformed);
+			}
+			return transformed;
 		}
 
 		return null;
@@ -200,7 +249,10 @@ class KnotClassDelegate {
 
 	public byte[] getRawClassByteArray(String name, boolean skipOriginalLoader) throws IOException {
 		String classFile = getClassFileName(name);
-		InputStream inputStream = itf.getResourceAsStream(classFile, skipOriginalLoader);
+		return readClassBytes(itf.getResourceAsStream(classFile, skipOriginalLoader));
+	}
+
+	private static byte[] readClassBytes(InputStream inputStream) throws IOException {
 		if (inputStream == null) {
 			return null;
 		}
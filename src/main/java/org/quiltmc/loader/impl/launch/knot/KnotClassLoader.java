@@ -17,6 +17,8 @@
 package org.quiltmc.loader.impl.launch.knot;
 
 import net.fabricmc.api.EnvType;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+import org.quiltmc.loader.impl.filesystem.ModResourceIndex;
 import org.quiltmc.loader.impl.game.GameProvider;
 
 import java.io.IOException;
@@ -24,7 +26,12 @@ import java.io.InputStream;
 import java.net.URL;
 import java.net.URLClassLoader;
 import java.security.SecureClassLoader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterface {
@@ -43,7 +50,24 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 		}
 	}
 
+	/** An entry on {@link #urlLoader}'s classpath, as needed to put resources back into classpath order. */
+	private static final class ClasspathEntry {
+		final URL url;
+		/** The prefix of every resource URL in this entry, or null if its resources come from the index instead. */
+		final String unindexedBase;
+
+		ClasspathEntry(URL url, ModResourceIndex index) {
+			this.url = url;
+			this.unindexedBase = index.isIndexed(url) ? null : ModResourceIndex.getBaseUrl(url);
+		}
+	}
+
 	private final DynamicURLClassLoader urlLoader;
+	/** Everything on {@link #urlLoader}'s classpath that isn't in {@link #unindexedLoaderIndex}, once it exists. */
+	private volatile DynamicURLClassLoader unindexedLoader;
+	private ModResourceIndex unindexedLoaderIndex;
+	/** {@link #urlLoader}'s classpath, in order. Set along with {@link #unindexedLoader}, and replaced as URLs are added. */
+	private volatile List<ClasspathEntry> classpath;
 	private final ClassLoader originalLoader;
 	private final KnotClassDelegate delegate;
 
@@ -97,7 +121,25 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 	public Enumeration<URL> getResources(String name) throws IOException {
 		Objects.requireNonNull(name);
 
-		Enumeration<URL> first = urlLoader.getResources(name);
+		ModResourceIndex index = QuiltLoaderImpl.INSTANCE.getModResourceIndex();
+		Enumeration<URL> first;
+
+		if (index != null && !name.isEmpty() && !name.startsWith("/")) {
+			// Mods are answered by the shared index, so only the other classpath entries need to be searched
+			List<URL> unindexed = Collections.list(getUnindexedLoader(index).getResources(name));
+			Map<URL, URL> indexed = index.getUrlsByOrigin(name);
+
+			if (indexed.isEmpty()) {
+				first = Collections.enumeration(unindexed);
+			} else if (unindexed.isEmpty() && indexed.size() == 1) {
+				first = Collections.enumeration(indexed.values());
+			} else {
+				first = Collections.enumeration(mergeInClasspathOrder(unindexed, indexed));
+			}
+		} else {
+			first = urlLoader.getResources(name);
+		}
+
 		Enumeration<URL> second = originalLoader.getResources(name);
 		return new Enumeration<URL>() {
 			Enumeration<URL> current = first;
@@ -178,7 +220,84 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 
 	@Override
 	public void addURL(URL url) {
-		urlLoader.addURL(url);
+		synchronized (urlLoader) {
+			urlLoader.addURL(url);
+
+			if (unindexedLoader != null) {
+				ClasspathEntry entry = new ClasspathEntry(url, unindexedLoaderIndex);
+				List<ClasspathEntry> entries = new ArrayList<>(classpath);
+				entries.add(entry);
+				classpath = entries;
+
+				if (entry.unindexedBase != null) {
+					unindexedLoader.addURL(url);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Puts the resources found by the unindexed loader and by the index back into classpath order, which is the order
+	 * that {@link #urlLoader} would have returned them in.
+	 *
+	 * @param unindexed The resources found by the unindexed loader, which are already in classpath order.
+	 * @param indexed The resources found by the index, keyed by classpath entry.
+	 */
+	private List<URL> mergeInClasspathOrder(List<URL> unindexed, Map<URL, URL> indexed) {
+		Map<URL, URL> remaining = new LinkedHashMap<>(indexed);
+		List<URL> merged = new ArrayList<>(unindexed.size() + indexed.size());
+		int next = 0;
+
+		for (ClasspathEntry entry : classpath) {
+			if (entry.unindexedBase == null) {
+				URL url = remaining.remove(entry.url);
+
+				if (url != null) {
+					merged.add(url);
+				}
+			} else if (next < unindexed.size()) {
+				String base = entry.unindexedBase;
+
+				while (next < unindexed.size() && unindexed.get(next).toString().startsWith(base)) {
+					merged.add(unindexed.get(next++));
+				}
+			}
+		}
+
+		// Anything that couldn't be matched to a classpath entry is kept, in the same relative order
+		merged.addAll(unindexed.subList(next, unindexed.size()));
+		merged.addAll(remaining.values());
+		return merged;
+	}
+
+	private URLClassLoader getUnindexedLoader(ModResourceIndex index) {
+		DynamicURLClassLoader loader = unindexedLoader;
+
+		if (loader == null) {
+			synchronized (urlLoader) {
+				loader = unindexedLoader;
+
+				if (loader == null) {
+					List<ClasspathEntry> entries = new ArrayList<>();
+					List<URL> urls = new ArrayList<>();
+
+					for (URL url : urlLoader.getURLs()) {
+						ClasspathEntry entry = new ClasspathEntry(url, index);
+						entries.add(entry);
+
+						if (entry.unindexedBase != null) {
+							urls.add(url);
+						}
+					}
+
+					unindexedLoaderIndex = index;
+					classpath = entries;
+					unindexedLoader = loader = new DynamicURLClassLoader(urls.toArray(new URL[0]));
+				}
+			}
+		}
+
+		return loader;
 	}
 
 	static {
@@ -193,4 +312,9 @@ class KnotClassLoader extends SecureClassLoader implements KnotClassLoaderInterf
 		}
 		return inputStream;
 	}
+
+	@Override
+	public InputStream getOriginalResourceAsStream(String filename) throws IOException {
+		return originalLoader.getResourceAsStream(filename);
+	}
 }
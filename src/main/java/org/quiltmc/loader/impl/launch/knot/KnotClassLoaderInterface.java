@@ -25,4 +25,6 @@ interface KnotClassLoaderInterface {
 	boolean isClassLoaded(String name);
 	void addURL(URL url);
 	InputStream getResourceAsStream(String filename, boolean skipOriginalLoader) throws IOException;
+	/** Only asks the class loader that loaded Knot, without looking through this loader's own classpath. */
+	InputStream getOriginalResourceAsStream(String filename) throws IOException;
 }
@@ -98,4 +98,9 @@ class KnotCompatibilityClassLoader extends URLClassLoader implements KnotClassLo
 
 		return super.getResourceAsStream(classFile);
 	}
+
+	@Override
+	public InputStream getOriginalResourceAsStream(String filename) throws IOException {
+		return getParent().getResourceAsStream(filename);
+	}
 }
@@ -17,7 +17,7 @@
 package org.quiltmc.loader.impl.launch.knot;
 
 import org.quiltmc.loader.impl.launch.common.QuiltLauncherBase;
-import org.objectweb.asm.ClassReader;
+import org.quiltmc.loader.impl.launch.common.QuiltMixinBootstrap;
 import org.objectweb.asm.tree.ClassNode;
 import org.spongepowered.asm.launch.platform.container.ContainerHandleURI;
 import org.spongepowered.asm.launch.platform.container.IContainerHandle;
@@ -29,11 +29,14 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Collection;
 import java.util.Collections;
 
 public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBytecodeProvider, ITransformerProvider, IClassTracker {
 	private final ReEntranceLock lock;
+	private final ClassNodeCache classNodes = new ClassNodeCache();
 
 	public MixinServiceKnot() {
 		lock = new ReEntranceLock(1);
@@ -60,10 +63,7 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public ClassNode getClassNode(String name, boolean runTransformers) throws ClassNotFoundException, IOException {
-		ClassReader reader = new ClassReader(getClassBytes(name, runTransformers));
-		ClassNode node = new ClassNode();
-		reader.accept(node, 0);
-		return node;
+		return classNodes.get(name, runTransformers, this::getClassBytes);
 	}
 
 	@Override
@@ -173,6 +173,17 @@ public class MixinServiceKnot implements IMixinService, IClassProvider, IClassBy
 
 	@Override
 	public InputStream getResourceAsStream(String name) {
+		// Configs are read straight from their mod, rather than searching the whole classpath
+		Path resource = QuiltMixinBootstrap.findMixinResource(name);
+
+		if (resource != null) {
+			try {
+				return Files.newInputStream(resource);
+			} catch (IOException e) {
+				// Fall back to the classpath
+			}
+		}
+
 		return QuiltLauncherBase.getLauncher().getResourceAsStream(name);
 	}
 
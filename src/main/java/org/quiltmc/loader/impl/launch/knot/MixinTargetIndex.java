@@ -0,0 +1,112 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.launch.knot;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.spongepowered.asm.mixin.MixinEnvironment;
+import org.spongepowered.asm.mixin.Mixins;
+import org.spongepowered.asm.mixin.extensibility.IMixinConfig;
+import org.spongepowered.asm.mixin.transformer.Config;
+
+/**
+ * Every class that a mixin might change, taken from the configs that mixin has already prepared. Classes outside of
+ * this can skip the mixin transformer completely.
+ *
+ * <p>An index stops being usable as soon as a config is added or the environment changes. Until mixin has prepared
+ * every config (which only happens once it has been given a class) no index can be built, and every class has to go
+ * through the transformer.</p>
+ */
+final class MixinTargetIndex {
+	private final MixinEnvironment environment;
+	private final int configCount;
+	/** The targets of every mixin, along with the classes that they're nested in. */
+	private final Set<String> targets;
+	/** Mixin classes themselves, and their inner classes, have to go to mixin so it can reject or pass them through. */
+	private final String[] mixinPackages;
+
+	private MixinTargetIndex(MixinEnvironment environment, int configCount, Set<String> targets, String[] mixinPackages) {
+		this.environment = environment;
+		this.configCount = configCount;
+		this.targets = targets;
+		this.mixinPackages = mixinPackages;
+	}
+
+	/**
+	 * @return An index of the targets of every config, or null if mixin hasn't prepared all of them yet, or is set up to
+	 *		 look at every class.
+	 */
+	static MixinTargetIndex build() {
+		MixinEnvironment environment = MixinEnvironment.getCurrentEnvironment();
+
+		if (environment.getOption(MixinEnvironment.Option.DEBUG_EXPORT) || environment.getOption(MixinEnvironment.Option.HOT_SWAP)) {
+			return null;
+		}
+
+		if (Mixins.getUnvisitedCount() > 0) {
+			return null;
+		}
+
+		Collection<Config> configs = Mixins.getConfigs();
+		Set<String> targets = new HashSet<>();
+		List<String> mixinPackages = new ArrayList<>();
+
+		for (Config config : configs) {
+			IMixinConfig mixinConfig = config.getConfig();
+			String mixinPackage = mixinConfig.getMixinPackage();
+
+			if (mixinPackage != null && !mixinPackage.isEmpty()) {
+				mixinPackages.add(mixinPackage);
+			}
+
+			for (String target : mixinConfig.getTargets()) {
+				targets.add(target);
+
+				// Mixin might change the nest host of a target too
+				for (int i = target.lastIndexOf('$'); i > 0; i = target.lastIndexOf('$', i - 1)) {
+					targets.add(target.substring(0, i));
+				}
+			}
+		}
+
+		return new MixinTargetIndex(environment, configs.size(), targets, mixinPackages.toArray(new String[0]));
+	}
+
+	/** @return True if this still covers every config that mixin has. */
+	boolean isCurrent() {
+		return environment == MixinEnvironment.getCurrentEnvironment() && configCount == Mixins.getConfigs().size();
+	}
+
+	/** @return True if mixin might change the given class, so it has to go through the transformer. */
+	boolean isTarget(String name) {
+		if (targets.contains(name)) {
+			return true;
+		}
+
+		for (String mixinPackage : mixinPackages) {
+			if (name.startsWith(mixinPackage)) {
+				return true;
+			}
+		}
+
+		return false;
+	}
+}
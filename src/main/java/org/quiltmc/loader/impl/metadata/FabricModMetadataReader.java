@@ -16,6 +16,7 @@
 
 package org.quiltmc.loader.impl.metadata;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
@@ -37,6 +38,12 @@ public final class FabricModMetadataReader {
 	// Per the ECMA-404 (www.ecma-international.org/publications/files/ECMA-ST/ECMA-404.pdf), the JSON spec does not prohibit duplicate keys.
 	// For all intents and purposes of replicating the logic of Gson's fromJson before we have migrated to JsonReader, duplicate keys will replace previous entries.
 	public static LoaderModMetadata parseMetadata(Logger logger, Path modJson) throws IOException, ParseMetadataException {
+		return parseMetadata(logger, Files.readAllBytes(modJson));
+	}
+
+	/** Parses a {@code fabric.mod.json} that has already been loaded into memory, for example one that was read
+	 * directly out of a nested jar. */
+	public static LoaderModMetadata parseMetadata(Logger logger, byte[] modJson) throws IOException, ParseMetadataException {
 		try {
 			// So some context:
 			// Per the json specification, ordering of fields is not typically enforced.
@@ -54,7 +61,7 @@ public final class FabricModMetadataReader {
 			// Re-read the JSON file.
 			int schemaVersion = 0;
 
-			try (JsonReader reader = JsonReader.json(new InputStreamReader(Files.newInputStream(modJson), StandardCharsets.UTF_8))) {
+			try (JsonReader reader = JsonReader.json(new InputStreamReader(new ByteArrayInputStream(modJson), StandardCharsets.UTF_8))) {
 				if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 					throw new ParseMetadataException("Root of \"fabric.mod.json\" must be an object", reader);
 				}
@@ -95,7 +102,7 @@ public final class FabricModMetadataReader {
 			}
 
 			// Slow path, schema version wasn't specified early enough, re-read with detected/inferred version
-			try (JsonReader reader = JsonReader.json(new InputStreamReader(Files.newInputStream(modJson), StandardCharsets.UTF_8))) {
+			try (JsonReader reader = JsonReader.json(new InputStreamReader(new ByteArrayInputStream(modJson), StandardCharsets.UTF_8))) {
 				// No need to check if the start of the json file as it has already been checked
 				reader.beginObject();
 				final LoaderModMetadata ret = readModMetadata(logger, reader, schemaVersion);
@@ -16,7 +16,9 @@
 
 package org.quiltmc.loader.impl.metadata.qmj;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
@@ -49,11 +51,29 @@ public final class ModMetadataReader {
 	 * @throws IOException if there are any issues reading the json file
 	 * @throws ParseException if the json file has errors in the quilt.mod.json specification
 	 */
-	@SuppressWarnings("SwitchStatementWithTooFewBranches") // Switch statement intentionally used for future expandability
 	public static InternalModMetadata read(Logger logger, Path json) throws IOException, ParseException {
+		return read(logger, Files.newInputStream(json));
+	}
+
+	/**
+	 * Reads a {@code quilt.mod.json} that has already been loaded into memory, for example one that was read directly
+	 * out of a nested jar.
+	 *
+	 * @param logger the logger to emit warnings from
+	 * @param json the contents of the json file
+	 * @return an instance of mod metadata
+	 * @throws IOException if there are any issues reading the json file
+	 * @throws ParseException if the json file has errors in the quilt.mod.json specification
+	 */
+	public static InternalModMetadata read(Logger logger, byte[] json) throws IOException, ParseException {
+		return read(logger, new ByteArrayInputStream(json));
+	}
+
+	@SuppressWarnings("SwitchStatementWithTooFewBranches") // Switch statement intentionally used for future expandability
+	private static InternalModMetadata read(Logger logger, InputStream json) throws IOException, ParseException {
 		JsonLoaderValue value;
 
-		try (JsonReader reader = JsonReader.json(new InputStreamReader(Files.newInputStream(json), StandardCharsets.UTF_8))) {
+		try (JsonReader reader = JsonReader.json(new InputStreamReader(json, StandardCharsets.UTF_8))) {
 			// Root must be an object
 			if (reader.peek() != JsonToken.BEGIN_OBJECT) {
 				throw new ParseException(reader, "A quilt.mod.json must have an object at the root");
@@ -92,6 +92,19 @@ public final class McVersion {
 			return this.setNameAndRelease(name);
 		}
 
+		// Getters, for caching the detected version
+		String getName() {
+			return name;
+		}
+
+		String getRelease() {
+			return release;
+		}
+
+		OptionalInt getClassVersion() {
+			return classVersion;
+		}
+
 		public McVersion build() {
 			return new McVersion(this.name, this.release, this.classVersion);
 		}
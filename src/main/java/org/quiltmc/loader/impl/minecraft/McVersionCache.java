@@ -0,0 +1,210 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.minecraft;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.quiltmc.loader.impl.util.HashUtil;
+
+/**
+ * Remembers the versions detected for game jars between launches. Entries are matched by the jar's path, size and
+ * modification time first, which costs nothing, and then by its hash so that copies of the same jar still hit. The
+ * whole cache is thrown away when the loader that detected the versions changes, since its detection might have too.
+ */
+final class McVersionCache {
+	private static final int MAGIC = 0x514d4356; // "QMCV"
+	private static final int FORMAT_VERSION = 2;
+	/** Launchers normally only ever use one or two game jars per game directory. */
+	private static final int MAX_ENTRIES = 8;
+
+	private final String loaderKey;
+	private final List<Entry> entries;
+	/** The hash computed by the last {@link #get} that missed on size and modification time, to reuse in {@link #put}. */
+	private Path hashedJar;
+	private String hash;
+	private boolean dirty = false;
+
+	private McVersionCache(String loaderKey, List<Entry> entries) {
+		this.loaderKey = loaderKey;
+		this.entries = entries;
+	}
+
+	/** @param loaderKey Identifies the loader that is reading the cache, see {@link McVersionLookup#getLoaderKey()}.
+	 * @return The cache stored in the given file, or an empty cache if it couldn't be read or was written by a different
+	 *		 loader. */
+	static McVersionCache read(Path file, String loaderKey) {
+		List<Entry> entries = new ArrayList<>();
+
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() == MAGIC && in.readInt() == FORMAT_VERSION && loaderKey.equals(in.readUTF())) {
+				int count = in.readInt();
+
+				for (int i = 0; i < count; i++) {
+					entries.add(Entry.read(in));
+				}
+			}
+		} catch (NoSuchFileException e) {
+			// Nothing cached yet
+		} catch (IOException e) {
+			entries.clear();
+		}
+
+		return new McVersionCache(loaderKey, entries);
+	}
+
+	/** @return A builder filled in with the cached version of the given jar, or null if it hasn't been cached. */
+	McVersion.Builder get(Path gameJar, String entrypointKey) throws IOException {
+		String path = gameJar.toAbsolutePath().toString();
+		long size = Files.size(gameJar);
+		long lastModified = Files.getLastModifiedTime(gameJar).toMillis();
+
+		for (Entry entry : entries) {
+			if (entry.path.equals(path) && entry.size == size && entry.lastModified == lastModified && entry.entrypointKey.equals(entrypointKey)) {
+				return entry.toBuilder();
+			}
+		}
+
+		String hash = hash(gameJar);
+
+		for (Entry entry : entries) {
+			if (entry.hash.equals(hash) && entry.entrypointKey.equals(entrypointKey)) {
+				// Remember the new location so the next launch doesn't need to hash the jar again
+				put(gameJar, entrypointKey, entry.toBuilder());
+				return entry.toBuilder();
+			}
+		}
+
+		return null;
+	}
+
+	private String hash(Path gameJar) throws IOException {
+		if (!gameJar.equals(hashedJar)) {
+			hash = HashUtil.hash(gameJar);
+			hashedJar = gameJar;
+		}
+
+		return hash;
+	}
+
+	void put(Path gameJar, String entrypointKey, McVersion.Builder builder) throws IOException {
+		Entry entry = new Entry();
+		entry.path = gameJar.toAbsolutePath().toString();
+		entry.size = Files.size(gameJar);
+		entry.lastModified = Files.getLastModifiedTime(gameJar).toMillis();
+		entry.hash = hash(gameJar);
+		entry.entrypointKey = entrypointKey;
+		entry.name = builder.getName();
+		entry.release = builder.getRelease();
+		entry.classVersion = builder.getClassVersion().orElse(-1);
+
+		entries.removeIf(e -> e.path.equals(entry.path) && e.entrypointKey.equals(entrypointKey));
+		entries.add(0, entry);
+
+		while (entries.size() > MAX_ENTRIES) {
+			entries.remove(entries.size() - 1);
+		}
+
+		dirty = true;
+	}
+
+	/** Writes this cache to the given file, if anything has changed since it was read. */
+	void write(Path file) throws IOException {
+		if (!dirty) {
+			return;
+		}
+
+		dirty = false;
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(loaderKey);
+			out.writeInt(entries.size());
+
+			for (Entry entry : entries) {
+				entry.write(out);
+			}
+		}
+
+		Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static final class Entry {
+		String path;
+		long size;
+		long lastModified;
+		String hash;
+		String entrypointKey;
+		String name;
+		String release;
+		int classVersion;
+
+		McVersion.Builder toBuilder() {
+			McVersion.Builder builder = new McVersion.Builder().setName(name).setRelease(release);
+
+			if (classVersion >= 0) {
+				builder.setClassVersion(classVersion);
+			}
+
+			return builder;
+		}
+
+		static Entry read(DataInputStream in) throws IOException {
+			Entry entry = new Entry();
+			entry.path = in.readUTF();
+			entry.size = in.readLong();
+			entry.lastModified = in.readLong();
+			entry.hash = in.readUTF();
+			entry.entrypointKey = in.readUTF();
+			entry.name = in.readBoolean() ? in.readUTF() : null;
+			entry.release = in.readBoolean() ? in.readUTF() : null;
+			entry.classVersion = in.readInt();
+			return entry;
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeUTF(path);
+			out.writeLong(size);
+			out.writeLong(lastModified);
+			out.writeUTF(hash);
+			out.writeUTF(entrypointKey);
+			writeNullable(out, name);
+			writeNullable(out, release);
+			out.writeInt(classVersion);
+		}
+
+		private static void writeNullable(DataOutputStream out, String str) throws IOException {
+			out.writeBoolean(str != null);
+
+			if (str != null) {
+				out.writeUTF(str);
+			}
+		}
+	}
+}
@@ -16,7 +16,8 @@
 
 package org.quiltmc.loader.impl.minecraft;
 
-import java.io.DataInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
@@ -24,9 +25,12 @@ import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystem;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
 
 import net.fabricmc.loader.api.VersionParsingException;
 
@@ -43,7 +47,7 @@ import org.objectweb.asm.MethodVisitor;
 import org.objectweb.asm.Opcodes;
 
 import org.quiltmc.loader.impl.metadata.ParseMetadataException;
-import org.quiltmc.loader.impl.util.FileSystemUtil;
+import org.quiltmc.loader.impl.util.HashUtil;
 import org.quiltmc.loader.impl.util.version.FabricSemanticVersionImpl;
 import org.quiltmc.loader.impl.util.version.SemanticVersionPredicateParser;
 
@@ -70,50 +74,103 @@ public final class McVersionLookup {
 
 	// FIXME: "Really upstream, this could have just been a short lived class visitor" - i509
 	public static McVersion getVersion(Path gameJar, List<String> entrypointClasses, @Nullable String versionName) {
-		McVersion.Builder builder = new McVersion.Builder();
+		return getVersion(gameJar, entrypointClasses, versionName, null);
+	}
 
-		// check various known files for version information
-		if (versionName != null) {
-			builder.setNameAndRelease(versionName);
+	/**
+	 * @param cacheDir The loader cache directory, to remember the detected version in between launches. If this is
+	 *			null then the version is always detected from the jar.
+	 */
+	public static McVersion getVersion(Path gameJar, List<String> entrypointClasses, @Nullable String versionName, @Nullable Path cacheDir) {
+		return getVersion(gameJar, entrypointClasses, versionName, cacheDir, cacheDir == null ? null : getLoaderKey());
+	}
+
+	/**
+	 * @param cacheDir The loader cache directory, to remember the detected version in between launches.
+	 * @param loaderKey Identifies the loader doing the detection, so that updating the loader discards the versions
+	 *			detected by older versions. The version isn't cached if this is null.
+	 */
+	public static McVersion getVersion(Path gameJar, List<String> entrypointClasses, @Nullable String versionName, @Nullable Path cacheDir, @Nullable String loaderKey) {
+		Path cacheFile = cacheDir == null || loaderKey == null ? null : cacheDir.resolve("game-versions.bin");
+		McVersionCache cache = cacheFile == null ? null : McVersionCache.read(cacheFile, loaderKey);
+		String entrypointKey = String.join(",", entrypointClasses);
+		McVersion.Builder builder = null;
+
+		if (cache != null) {
+			try {
+				builder = cache.get(gameJar, entrypointKey);
+			} catch (IOException e) {
+				e.printStackTrace();
+				cache = null;
+			}
 		}
 
-		try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(gameJar, false)) {
-			FileSystem fs = jarFs.get();
-			// Determine class version
-			for (String entrypointClass : entrypointClasses) {
-				String fileString = entrypointClass.replace('.', '/') + ".class";
-				Path file = fs.getPath(fileString);
+		if (builder == null) {
+			builder = new McVersion.Builder();
+
+			// Always detect the name when caching, since the next launch might not pass the version in
+			boolean detectName = versionName == null || cache != null;
 
-				if (Files.isRegularFile(file)) {
-					try (DataInputStream is = new DataInputStream(Files.newInputStream(file))) {
-						if (is.readInt() != 0xCAFEBABE) {
-							continue;
-						}
+			try (ZipFile zip = new ZipFile(gameJar.toFile())) {
+				JarReader reader = name -> readEntry(zip, name);
 
-						is.readUnsignedShort();
-						builder.setClassVersion(is.readUnsignedShort());
+				// Determine class version
+				for (String entrypointClass : entrypointClasses) {
+					byte[] bytes = reader.read(entrypointClass.replace('.', '/') + ".class");
 
+					if (bytes != null && bytes.length >= 8 && readInt(bytes, 0) == 0xCAFEBABE) {
+						builder.setClassVersion(((bytes[6] & 0xFF) << 8) | (bytes[7] & 0xFF));
 						break;
 					}
 				}
+
+				// Check various known files for version information if unknown
+				if (detectName) {
+					fillVersionFromJar(gameJar, reader, builder);
+				}
+
+				if (cache != null) {
+					cache.put(gameJar, entrypointKey, builder);
+				}
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
+		}
 
-			// Check various known files for version information if unknown
-			if (versionName == null) {
-				fillVersionFromJar(gameJar, fs, builder);
+		if (cache != null) {
+			try {
+				cache.write(cacheFile);
+			} catch (IOException e) {
+				e.printStackTrace();
 			}
-		} catch (IOException e) {
-			e.printStackTrace();
+		}
+
+		if (versionName != null) {
+			builder.setNameAndRelease(versionName);
 		}
 
 		return builder.build();
 	}
 
+	/** @return A hash of the loader jar's version, size and modification time, or null if the loader isn't running
+	 *		 from a versioned jar (such as in a development environment, where the detection could change at any
+	 *		 time). */
+	@Nullable
+	static String getLoaderKey() {
+		MessageDigest digest = HashUtil.newDigest();
+
+		try {
+			return HashUtil.updateCodeSource(digest, McVersionLookup.class) ? HashUtil.toHex(digest.digest()) : null;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+
 	public static McVersion getVersionExceptClassVersion(Path gameJar) {
 		McVersion.Builder builder = new McVersion.Builder();
 
-		try (FileSystemUtil.FileSystemDelegate jarFs = FileSystemUtil.getJarFileSystem(gameJar, false)) {
-			fillVersionFromJar(gameJar, jarFs.get(), builder);
+		try (ZipFile zip = new ZipFile(gameJar.toFile())) {
+			fillVersionFromJar(gameJar, name -> readEntry(zip, name), builder);
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
@@ -122,51 +179,94 @@ public final class McVersionLookup {
 	}
 
 	public static void fillVersionFromJar(Path gameJar, FileSystem fs, McVersion.Builder builder) {
+		fillVersionFromJar(gameJar, name -> {
+			Path file = fs.getPath(name);
+			return Files.isRegularFile(file) ? Files.readAllBytes(file) : null;
+		}, builder);
+	}
+
+	/**
+	 * Reads every file that may contain version information at most once, and parses each class at most once
+	 * (handing the same {@link ClassReader} to every analyzer that applies to it).
+	 */
+	private static void fillVersionFromJar(Path gameJar, JarReader reader, McVersion.Builder builder) {
 		try {
-			Path file;
+			byte[] bytes;
 
 			// version.json - contains version and target release for 18w47b+
-			if (Files.isRegularFile(file = fs.getPath("version.json"))
-					&& fromVersionJson(Files.newInputStream(file), builder)) {
+			if ((bytes = reader.read("version.json")) != null
+					&& fromVersionJson(new ByteArrayInputStream(bytes), builder)) {
 				return;
 			}
 
 			// constant field RealmsSharedConstants.VERSION_STRING
-			if (Files.isRegularFile(file = fs.getPath("net/minecraft/realms/RealmsSharedConstants.class"))
-					&& fromAnalyzer(Files.newInputStream(file), new FieldStringConstantVisitor("VERSION_STRING"), builder)) {
+			if ((bytes = reader.read("net/minecraft/realms/RealmsSharedConstants.class")) != null
+					&& fromAnalyzer(new ClassReader(bytes), new FieldStringConstantVisitor("VERSION_STRING"), builder)) {
 				return;
 			}
 
 			// constant return value of RealmsBridge.getVersionString (presumably inlined+dead code eliminated VERSION_STRING)
-			if (Files.isRegularFile(file = fs.getPath("net/minecraft/realms/RealmsBridge.class"))
-					&& fromAnalyzer(Files.newInputStream(file), new MethodConstantRetVisitor("getVersionString"), builder)) {
+			if ((bytes = reader.read("net/minecraft/realms/RealmsBridge.class")) != null
+					&& fromAnalyzer(new ClassReader(bytes), new MethodConstantRetVisitor("getVersionString"), builder)) {
 				return;
 			}
 
 			// version-like String constant used in MinecraftServer.run or another MinecraftServer method
-			if (Files.isRegularFile(file = fs.getPath("net/minecraft/server/MinecraftServer.class"))
-					&& fromAnalyzer(Files.newInputStream(file), new MethodConstantVisitor("run"), builder)) {
+			if ((bytes = reader.read("net/minecraft/server/MinecraftServer.class")) != null
+					&& fromAnalyzer(new ClassReader(bytes), new MethodConstantVisitor("run"), builder)) {
 				return;
 			}
 
-			if (Files.isRegularFile(file = fs.getPath("net/minecraft/client/Minecraft.class"))) {
+			if ((bytes = reader.read("net/minecraft/client/Minecraft.class")) != null) {
+				ClassReader cr = new ClassReader(bytes);
+
 				// version-like constant return value of a Minecraft method (obfuscated/unknown name)
-				if (fromAnalyzer(Files.newInputStream(file), new MethodConstantRetVisitor(null), builder)) {
+				if (fromAnalyzer(cr, new MethodConstantRetVisitor(null), builder)) {
 					return;
 				}
 
 				// version-like constant passed into Display.setTitle in a Minecraft method (obfuscated/unknown name)
-				if (fromAnalyzer(Files.newInputStream(file), new MethodStringConstantContainsVisitor("org/lwjgl/opengl/Display", "setTitle"), builder)) {
+				if (fromAnalyzer(cr, new MethodStringConstantContainsVisitor("org/lwjgl/opengl/Display", "setTitle"), builder)) {
 					return;
 				}
 			}
-		} catch (IOException e) {
+		} catch (IOException | IllegalArgumentException e) {
 			e.printStackTrace();
 		}
 
 		builder.setFromFileName(gameJar.getFileName().toString());
 	}
 
+	private static byte[] readEntry(ZipFile zip, String name) throws IOException {
+		ZipEntry entry = zip.getEntry(name);
+
+		if (entry == null || entry.isDirectory()) {
+			return null;
+		}
+
+		try (InputStream is = zip.getInputStream(entry)) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream(entry.getSize() > 0 ? (int) entry.getSize() : 8192);
+			byte[] buffer = new byte[8192];
+			int len;
+
+			while ((len = is.read(buffer)) > 0) {
+				out.write(buffer, 0, len);
+			}
+
+			return out.toByteArray();
+		}
+	}
+
+	private static int readInt(byte[] bytes, int offset) {
+		return ((bytes[offset] & 0xFF) << 24) | ((bytes[offset + 1] & 0xFF) << 16) | ((bytes[offset + 2] & 0xFF) << 8) | (bytes[offset + 3] & 0xFF);
+	}
+
+	@FunctionalInterface
+	private interface JarReader {
+		/** @return The contents of the given file, or null if it doesn't exist. */
+		byte[] read(String name) throws IOException;
+	}
+
 	private static boolean fromVersionJson(InputStream is, McVersion.Builder builder) {
 		try (JsonReader reader = JsonReader.json(new InputStreamReader(is, StandardCharsets.UTF_8))) {
 			String id = null;
@@ -228,22 +328,13 @@ public final class McVersionLookup {
 		return false;
 	}
 
-	private static <T extends ClassVisitor & Analyzer> boolean fromAnalyzer(InputStream is, T analyzer, McVersion.Builder builder) {
-		try {
-			ClassReader cr = new ClassReader(is);
-			cr.accept(analyzer, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
-			String result = analyzer.getResult();
+	private static <T extends ClassVisitor & Analyzer> boolean fromAnalyzer(ClassReader cr, T analyzer, McVersion.Builder builder) {
+		cr.accept(analyzer, ClassReader.SKIP_FRAMES | ClassReader.SKIP_DEBUG);
+		String result = analyzer.getResult();
 
-			if (result != null) {
-				builder.setNameAndRelease(result);
-				return true;
-			}
-		} catch (IOException e) {
-			e.printStackTrace();
-		} finally {
-			try {
-				is.close();
-			} catch (IOException e) { }
+		if (result != null) {
+			builder.setNameAndRelease(result);
+			return true;
 		}
 
 		return false;
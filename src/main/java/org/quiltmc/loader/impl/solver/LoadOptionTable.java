@@ -0,0 +1,122 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.Arrays;
+
+/** Gives every {@link LoadOption} a stable int ID, starting at 1, so that {@link Sat4jWrapper} can keep everything it
+ * knows about an option in plain arrays indexed by that ID rather than in boxed maps. Options are looked up by identity
+ * in an open addressing hash table that is kept at most half full. IDs are never reused, even after an option has been
+ * removed from the solver, so a literal can be negated just by flipping its sign.
+ * <p>
+ * Each option also gets a single {@link NegatedLoadOption}, which is handed out every time it's negated. */
+final class LoadOptionTable {
+	private LoadOption[] keys = new LoadOption[64];
+	private int[] keyIds = new int[64];
+	private int mask = keys.length - 1;
+
+	/** Indexed by ID, so index 0 is always empty. */
+	private LoadOption[] options = new LoadOption[32];
+	private NegatedLoadOption[] negated = new NegatedLoadOption[32];
+	private int count;
+
+	/** @return The highest ID that has been given out so far. */
+	int maxId() {
+		return count;
+	}
+
+	/** @return The ID of the given option, or 0 if it hasn't been given one. */
+	int getId(LoadOption option) {
+		int index = System.identityHashCode(option) & mask;
+		LoadOption key;
+
+		while ((key = keys[index]) != null) {
+			if (key == option) {
+				return keyIds[index];
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		return 0;
+	}
+
+	/** @return The ID of the given option, giving it a new one if it doesn't have one yet. */
+	int getOrAddId(LoadOption option) {
+		int index = System.identityHashCode(option) & mask;
+		LoadOption key;
+
+		while ((key = keys[index]) != null) {
+			if (key == option) {
+				return keyIds[index];
+			}
+
+			index = (index + 1) & mask;
+		}
+
+		int id = ++count;
+
+		if (id >= options.length) {
+			options = Arrays.copyOf(options, options.length * 2);
+			negated = Arrays.copyOf(negated, negated.length * 2);
+		}
+
+		options[id] = option;
+		keys[index] = option;
+		keyIds[index] = id;
+
+		if (count * 2 > keys.length) {
+			rehash();
+		}
+
+		return id;
+	}
+
+	/** @return The option with the given ID, or null if no option has been given it. */
+	LoadOption get(int id) {
+		return id > 0 && id <= count ? options[id] : null;
+	}
+
+	/** @return The negation of the given option, which is always the same object for the same option. */
+	NegatedLoadOption negate(LoadOption option) {
+		int id = getOrAddId(option);
+		NegatedLoadOption not = negated[id];
+
+		if (not == null) {
+			not = negated[id] = new NegatedLoadOption(option);
+		}
+
+		return not;
+	}
+
+	private void rehash() {
+		keys = new LoadOption[keys.length * 2];
+		keyIds = new int[keys.length];
+		mask = keys.length - 1;
+
+		for (int id = 1; id <= count; id++) {
+			int index = System.identityHashCode(options[id]) & mask;
+
+			while (keys[index] != null) {
+				index = (index + 1) & mask;
+			}
+
+			keys[index] = options[id];
+			keyIds[index] = id;
+		}
+	}
+}
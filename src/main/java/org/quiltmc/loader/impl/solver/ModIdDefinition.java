@@ -51,15 +51,11 @@ abstract class ModIdDefinition extends Rule {
 		return false;
 	}
 
-	/** @deprecated Not used yet. In the future this will be used for better error message generation. */
-	@Deprecated
 	@Override
 	public Collection<? extends LoadOption> getNodesFrom() {
 		return Collections.emptySet();
 	}
 
-	/** @deprecated Not used yet. In the future this will be used for better error message generation. */
-	@Deprecated
 	@Override
 	public Collection<? extends LoadOption> getNodesTo() {
 		return Collections.emptySet();
@@ -26,6 +26,7 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.function.IntFunction;
 import java.util.stream.Collectors;
 
 import org.apache.logging.log4j.Logger;
@@ -47,6 +48,10 @@ import net.fabricmc.loader.api.metadata.ModDependency;
 
 public final class ModSolver {
 	static final boolean DEBUG_PRINT_STATE = Boolean.getBoolean(SystemProperties.DEBUG_MOD_RESOLVING);
+	/** The most options of a single rule to list in an error, since large packs can have hundreds. */
+	static final int MAX_LISTED_OPTIONS = 10;
+	/** How long to spend looking for more separate problems once the first has been found, in milliseconds. */
+	static final long EXPLAIN_TIME_BUDGET = Long.getLong(SystemProperties.SOLVER_EXPLAIN_TIME_BUDGET, 5000);
 
 	private final Logger logger;
 
@@ -195,59 +200,48 @@ public final class ModSolver {
 		// Resolving
 
 		try {
-			while (!sat.hasSolution()) {
-
-				Collection<Rule> why = sat.getError();
-
-				Map<MainModLoadOption, MandatoryModIdDefinition> roots = new HashMap<>();
-				List<Rule> causes = new ArrayList<>();
-				for (Rule link : why) {
-					if (!causes.contains(link)) {
-						causes.add(link);
+			if (!sat.hasSolution()) {
+				// Every separate problem is found in one go, so they can all be fixed at once
+				for (Collection<Rule> why : sat.getErrors(EXPLAIN_TIME_BUDGET)) {
+
+					Map<MainModLoadOption, MandatoryModIdDefinition> roots = new HashMap<>();
+					List<Rule> causes = new ArrayList<>();
+					for (Rule link : why) {
+						if (!causes.contains(link)) {
+							causes.add(link);
+						}
 					}
-				}
 
-				// Separate out mandatory mods (roots) from other causes
-				for (Iterator<Rule> iterator = causes.iterator(); iterator.hasNext();) {
-					Rule link = iterator.next();
-					if (link instanceof MandatoryModIdDefinition) {
-						MandatoryModIdDefinition mandatoryMod = (MandatoryModIdDefinition) link;
-						roots.put(mandatoryMod.candidate, mandatoryMod);
-						iterator.remove();
+					// Separate out mandatory mods (roots) from other causes
+					for (Iterator<Rule> iterator = causes.iterator(); iterator.hasNext();) {
+						Rule link = iterator.next();
+						if (link instanceof MandatoryModIdDefinition) {
+							MandatoryModIdDefinition mandatoryMod = (MandatoryModIdDefinition) link;
+							roots.put(mandatoryMod.candidate, mandatoryMod);
+							iterator.remove();
+						}
 					}
-				}
-
-				// Plugin functionality to handle errors would likely go *RIGHT HERE*
-				// I.E. downloading missing / outdated *optional* mods
-
-				/*
-				 * Plugins would most likely be passed the map of roots, and the list of causes.
-				 * Alternatively, we could do some pre-processing to identify specific cases, such as
-				 * a mod or library (or api class implementation) being missing, and then send those
-				 * out separately.
-				 *
-				 * This does mean that we'd need to remove and re-add edited clauses though when
-				 * trying to fix problems. (For example downloading a mod should process all of the
-				 * dependencies, provides, etc of that mod related to all others). 
-				 */
-
-				ModSolvingException ex = describeError(roots, causes);
-				if (ex == null) {
-					ex = fallbackErrorDescription(roots, causes);
-				}
-
-				errors.add(ex);
-
-				if (causes.isEmpty()) {
-					break;
-				} else {
-
-					boolean removedAny = blameSingleRule(sat, causes);
 
-					// If that failed... stop finding more errors
-					if (!removedAny) {
-						break;
+					// Plugin functionality to handle errors would likely go *RIGHT HERE*
+					// I.E. downloading missing / outdated *optional* mods
+
+					/*
+					 * Plugins would most likely be passed the map of roots, and the list of causes.
+					 * Alternatively, we could do some pre-processing to identify specific cases, such as
+					 * a mod or library (or api class implementation) being missing, and then send those
+					 * out separately.
+					 *
+					 * This does mean that we'd need to remove and re-add edited clauses though when
+					 * trying to fix problems. (For example downloading a mod should process all of the
+					 * dependencies, provides, etc of that mod related to all others). 
+					 */
+
+					ModSolvingException ex = describeError(roots, causes);
+					if (ex == null) {
+						ex = fallbackErrorDescription(roots, causes);
 					}
+
+					errors.add(ex);
 				}
 			}
 
@@ -335,32 +329,6 @@ public final class ModSolver {
 		return new ModSolveResult(resultingModMap, providedModMap, extraResults);
 	}
 
-	private boolean blameSingleRule(Sat4jWrapper sat, List<Rule> causes) {
-
-		// Remove dependencies and conflicts first
-		for (Rule link : causes) {
-
-			if (link instanceof QuiltRuleDep) {
-				QuiltRuleDep dep = (QuiltRuleDep) link;
-
-				if (dep.hasAnyValidOptions()) {
-					continue;
-				}
-			}
-
-			sat.removeRule(link);
-			return true;
-		}
-
-		// If that failed... try removing anything else
-		for (Rule link : causes) {
-			sat.removeRule(link);
-			return true;
-		}
-
-		return false;
-	}
-
 	private <O extends LoadOption> LoadOptionResult<O> createLoadOptionResult(Class<O> cls, Map<LoadOption, Boolean> map) {
 		Map<O, Boolean> resultMap = new HashMap<>();
 		for (Entry<LoadOption, Boolean> entry : map.entrySet()) {
@@ -481,22 +449,19 @@ public final class ModSolver {
 					.append(" is being loaded from the user's mod directory.");
 			return;
 		}
-		URL originUrl = candidate.getOriginUrl();
-		// step 1: try to find source mod's URL
-		URL sourceUrl = getSourceURL(originUrl);
-		if (sourceUrl == null) {
+		// step 1: find the source mod, as recorded during discovery
+		ModCandidate parent = candidate.getParent();
+		if (parent == null) {
 			errors.append("\n\t - Mod ").append(getCandidateName(candidate))
 					.append(" v").append(getCandidateFriendlyVersion(candidate))
 					.append(" is being provided by <unknown mod>.");
 			return;
 		}
-		// step 2: try to find source mod candidate
-		ModCandidate srcCandidate = null;
-		for (Map.Entry<String, ModCandidate> entry : result.entrySet()) {
-			if (sourceUrl.equals(entry.getValue().getOriginUrl())) {
-				srcCandidate = entry.getValue();
-				break;
-			}
+		URL sourceUrl = parent.getOriginUrl();
+		// step 2: make sure that the source mod was actually chosen
+		ModCandidate srcCandidate = result.get(parent.getInfo().getId());
+		if (srcCandidate != null && !sourceUrl.equals(srcCandidate.getOriginUrl())) {
+			srcCandidate = null;
 		}
 		if (srcCandidate == null) {
 			errors.append("\n\t - Mod ").append(getCandidateName(candidate))
@@ -513,10 +478,6 @@ public final class ModSolver {
 				.append('.');
 	}
 
-	private URL getSourceURL(URL originUrl) {
-		return ModResolver.getSourceURL(originUrl);
-	}
-
 	static String getCandidateName(ModCandidate candidate) {
 		return "'" + candidate.getInfo().getName() + "' (" + candidate.getInfo().getId() + ")";
 	}
@@ -572,8 +533,190 @@ public final class ModSolver {
 	/** @return A {@link ModResolutionException} describing the error in a readable format, or null if this is unable to
 	 *		 do so. (In which case {@link #fallbackErrorDescription(Map, List)} will be used instead). */
 	private static ModSolvingException describeError(Map<MainModLoadOption, MandatoryModIdDefinition> roots, List<Rule> causes) {
-		// TODO: Create a graph from roots to each other and then build the error through that!
-		return null;
+		RuleGraph graph = new RuleGraph(causes);
+		graph.walk(roots.keySet());
+
+		StringBuilder errors = new StringBuilder();
+
+		for (Rule cause : causes) {
+			int start = errors.length();
+
+			if (errors.length() > 0) {
+				errors.append('\n');
+			}
+
+			if (!describeProblem(errors, graph, cause)) {
+				errors.setLength(start);
+			}
+		}
+
+		if (errors.length() == 0) {
+			// None of the causes are something we know how to explain
+			return null;
+		}
+
+		return new ModSolvingException(errors.toString());
+	}
+
+	/** Appends a description of the given rule if it's the actual problem, rather than a link that only explains why a
+	 * mod is loaded.
+	 *
+	 * @return True if anything was appended. */
+	private static boolean describeProblem(StringBuilder errors, RuleGraph graph, Rule cause) {
+		LoadOption source;
+
+		if (cause instanceof QuiltRuleDepOnly) {
+			QuiltRuleDepOnly dep = (QuiltRuleDepOnly) cause;
+			org.quiltmc.loader.api.ModDependency.Only publicDep = dep.publicDep;
+			source = graph.getOwner(dep.source);
+
+			if (publicDep.optional()) {
+				if (dep.invalidOptions.isEmpty()) {
+					return false;
+				}
+
+				errors.append(describeOption(source)).append(" can't be loaded alongside ").append(publicDep.id())
+					.append(" ");
+				appendVersions(errors, dep.invalidOptions);
+				errors.append(", as it only works with ").append(describeVersions(publicDep));
+			} else if (dep.validOptions.isEmpty()) {
+				errors.append(describeOption(source)).append(" requires ").append(describeVersions(publicDep))
+					.append(" of ").append(publicDep.id());
+
+				if (dep.invalidOptions.isEmpty()) {
+					errors.append(", which is missing!");
+				} else {
+					errors.append(", but only ");
+					appendVersions(errors, dep.invalidOptions);
+					errors.append(" is present!");
+				}
+			} else {
+				// Some other rule must be stopping the valid options from loading
+				return false;
+			}
+		} else if (cause instanceof QuiltRuleDepAny) {
+			QuiltRuleDepAny dep = (QuiltRuleDepAny) cause;
+
+			if (dep.hasAnyValidOptions()) {
+				return false;
+			}
+
+			source = graph.getOwner(dep.source);
+			errors.append(describeOption(source)).append(" requires any of ");
+			appendLimited(errors, dep.options.length, i -> dep.options[i].publicDep.id() + " "
+				+ describeVersions(dep.options[i].publicDep));
+			errors.append(", but none of them are present!");
+		} else if (cause instanceof QuiltRuleBreakOnly) {
+			QuiltRuleBreakOnly breaks = (QuiltRuleBreakOnly) cause;
+
+			if (breaks.conflictingOptions.isEmpty()) {
+				return false;
+			}
+
+			source = graph.getOwner(breaks.source);
+			errors.append(describeOption(source)).append(" is incompatible with ").append(describeVersions(breaks.publicDep))
+				.append(" of ").append(breaks.publicDep.id()).append(", but ");
+			appendVersions(errors, breaks.conflictingOptions);
+			errors.append(" is present!");
+		} else if (cause instanceof QuiltRuleBreakAll) {
+			QuiltRuleBreakAll breaks = (QuiltRuleBreakAll) cause;
+
+			if (!breaks.hasAnyConflictingOptions()) {
+				return false;
+			}
+
+			source = graph.getOwner(breaks.source);
+			errors.append(describeOption(source)).append(" is incompatible with all of ");
+			appendLimited(errors, breaks.options.length, i -> breaks.options[i].publicDep.id() + " "
+				+ describeVersions(breaks.options[i].publicDep));
+			errors.append(" being present together!");
+		} else if (cause instanceof OptionalModIdDefintion) {
+			OptionalModIdDefintion def = (OptionalModIdDefintion) cause;
+			List<ModLoadOption> needed = new ArrayList<>();
+
+			for (ModLoadOption option : def.sources) {
+				if (graph.isReachable(option)) {
+					needed.add(option);
+				}
+			}
+
+			if (needed.size() < 2) {
+				return false;
+			}
+
+			errors.append("Only one version of ").append(def.getFriendlyName()).append(" can be loaded, but ");
+			appendVersions(errors, needed);
+			errors.append(needed.size() == 2 ? " are both needed!" : " are all needed!");
+
+			for (ModLoadOption option : needed) {
+				appendPath(errors, graph, option);
+			}
+
+			return true;
+		} else {
+			return false;
+		}
+
+		appendPath(errors, graph, source);
+		return true;
+	}
+
+	/** Appends the shortest chain of mods that caused the given option to be loaded, unless it's mandatory itself. */
+	private static void appendPath(StringBuilder errors, RuleGraph graph, LoadOption option) {
+		List<ModLoadOption> path = graph.getModPath(option);
+
+		if (path.size() < 2) {
+			return;
+		}
+
+		errors.append("\n\t- ").append(describeOption(path.get(path.size() - 1))).append(" is loaded because ");
+
+		for (int i = path.size() - 2; i >= 0; i--) {
+			errors.append(describeOption(path.get(i)));
+
+			if (i > 0) {
+				errors.append(" requires it, which is loaded because ");
+			}
+		}
+
+		errors.append(" requires it.");
+	}
+
+	private static String describeOption(LoadOption option) {
+		if (option instanceof ModLoadOption) {
+			return getLoadOptionDescription((ModLoadOption) option);
+		}
+
+		return String.valueOf(option);
+	}
+
+	private static String describeVersions(org.quiltmc.loader.api.ModDependency.Only dep) {
+		if (dep.versions().isEmpty()) {
+			return "any version";
+		}
+
+		return "version " + dep.versions().stream().map(Object::toString).collect(Collectors.joining(" or "));
+	}
+
+	/** Appends the versions of the given mods, so that lists of hundreds of options don't end up in the error. */
+	private static void appendVersions(StringBuilder errors, List<ModLoadOption> options) {
+		appendLimited(errors, options.size(), i -> "v" + getCandidateFriendlyVersion(options.get(i)));
+	}
+
+	private static void appendLimited(StringBuilder errors, int count, IntFunction<String> element) {
+		int shown = Math.min(count, MAX_LISTED_OPTIONS);
+
+		for (int i = 0; i < shown; i++) {
+			if (i > 0) {
+				errors.append(i == count - 1 ? " and " : ", ");
+			}
+
+			errors.append(element.apply(i));
+		}
+
+		if (shown < count) {
+			errors.append(" and ").append(count - shown).append(" others");
+		}
 	}
 
 	private static ModSolvingException fallbackErrorDescription(Map<MainModLoadOption, MandatoryModIdDefinition> roots, List<Rule> causes) {
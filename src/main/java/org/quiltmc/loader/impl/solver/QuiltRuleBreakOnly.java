@@ -158,12 +158,7 @@ class QuiltRuleBreakOnly extends QuiltRuleBreak {
 		errors.append(okayOptions.size());
 		errors.append(" okay options)");
 
-		for (ModLoadOption option : conflictingOptions) {
-			errors.append("\n\tx " + option.fullString());
-		}
-
-		for (ModLoadOption option : okayOptions) {
-			errors.append("\n\t+ " + option.fullString());
-		}
+		appendOptions(errors, "x", conflictingOptions);
+		appendOptions(errors, "+", okayOptions);
 	}
 }
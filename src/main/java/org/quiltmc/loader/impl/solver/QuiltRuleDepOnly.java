@@ -167,12 +167,7 @@ class QuiltRuleDepOnly extends QuiltRuleDep {
 		errors.append(invalidOptions.size());
 		errors.append(" invalid options)");
 
-		for (ModLoadOption option : validOptions) {
-			errors.append("\n\t+ " + option.fullString());
-		}
-
-		for (ModLoadOption option : invalidOptions) {
-			errors.append("\n\tx " + option.fullString());
-		}
+		appendOptions(errors, "+", validOptions);
+		appendOptions(errors, "x", invalidOptions);
 	}
 }
@@ -17,6 +17,7 @@
 package org.quiltmc.loader.impl.solver;
 
 import java.util.Collection;
+import java.util.List;
 
 import org.quiltmc.loader.util.sat4j.pb.tools.DependencyHelper;
 
@@ -47,17 +48,26 @@ abstract class Rule {
 		return true;
 	}
 
-	/** TODO: Better name!
-	 * 
-	 * @deprecated Not used yet. In the future this will be used for better error message generation. */
-	@Deprecated
+	/** @return The options that this rule starts from (usually the mod that declared it), which are the edges into this
+	 *         rule in a {@link RuleGraph}. */
 	public abstract Collection<? extends LoadOption> getNodesFrom();
 
-	/** TODO: Better name!
-	 * 
-	 * @deprecated Not used yet. In the future this will be used for better error message generation. */
-	@Deprecated
+	/** @return The options that this rule leads to (usually the mods that it depends on or breaks). A {@link RuleGraph}
+	 *         only follows the ones that the rule actually requires. */
 	public abstract Collection<? extends LoadOption> getNodesTo();
 
 	public abstract void fallbackErrorDescription(StringBuilder errors);
+
+	/** Appends each option on a new line with the given prefix, up to {@link ModSolver#MAX_LISTED_OPTIONS}. */
+	static void appendOptions(StringBuilder errors, String prefix, List<ModLoadOption> options) {
+		int shown = Math.min(options.size(), ModSolver.MAX_LISTED_OPTIONS);
+
+		for (int i = 0; i < shown; i++) {
+			errors.append("\n\t").append(prefix).append(' ').append(options.get(i).fullString());
+		}
+
+		if (shown < options.size()) {
+			errors.append("\n\t").append(prefix).append(" (").append(options.size() - shown).append(" more)");
+		}
+	}
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.solver;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+
+/** A directed graph of the {@link Rule}s that caused a solver error, built from {@link Rule#getNodesFrom()}. This is
+ * used to explain why each mod involved in an error had to be loaded, by finding the shortest chain of rules from a
+ * mandatory mod to it. Only rules that force their targets to be loaded are followed, so an option that can be reached
+ * really is needed by the roots. */
+final class RuleGraph {
+	private final Map<LoadOption, List<Rule>> rulesFrom = new HashMap<>();
+
+	/** The rule that first reached each option, or null for the roots themselves. Only filled in by {@link #walk}. */
+	private final Map<LoadOption, Rule> reachedBy = new HashMap<>();
+	private final Map<LoadOption, LoadOption> reachedFrom = new HashMap<>();
+
+	RuleGraph(Collection<Rule> rules) {
+		for (Rule rule : rules) {
+			for (LoadOption from : rule.getNodesFrom()) {
+				rulesFrom.computeIfAbsent(RuleDefinition.process(from), o -> new ArrayList<>()).add(rule);
+			}
+		}
+	}
+
+	/** Finds the shortest path from the given roots to every option in the graph, breadth first. */
+	void walk(Collection<? extends LoadOption> roots) {
+		Queue<LoadOption> queue = new ArrayDeque<>();
+
+		for (LoadOption root : roots) {
+			if (!reachedBy.containsKey(root)) {
+				reachedBy.put(root, null);
+				queue.add(root);
+			}
+		}
+
+		LoadOption option;
+
+		while ((option = queue.poll()) != null) {
+			for (Rule rule : rulesFrom.getOrDefault(option, Collections.emptyList())) {
+				for (LoadOption to : getRequiredNodes(rule)) {
+					reach(queue, option, rule, to);
+
+					// The dependencies of a provided mod are declared by the mod that provides it
+					if (to instanceof ModLoadOption) {
+						reach(queue, option, rule, ((ModLoadOption) to).getRoot());
+					}
+				}
+			}
+		}
+	}
+
+	/** @return The options that the given rule needs at least one of, if its source is loaded. Optional dependencies and
+	 *         breakages never cause anything to be loaded, and neither do the versions that a dependency doesn't accept. */
+	private static Collection<? extends LoadOption> getRequiredNodes(Rule rule) {
+		if (rule instanceof QuiltRuleDepOnly) {
+			QuiltRuleDepOnly dep = (QuiltRuleDepOnly) rule;
+			return dep.publicDep.optional() ? Collections.emptyList() : dep.validOptions;
+		} else if (rule instanceof QuiltRuleDepAny) {
+			// Leads to the sub-options, which each have their own QuiltRuleDepOnly
+			return rule.getNodesTo();
+		} else {
+			return Collections.emptyList();
+		}
+	}
+
+	private void reach(Queue<LoadOption> queue, LoadOption from, Rule rule, LoadOption to) {
+		to = RuleDefinition.process(to);
+
+		if (!reachedBy.containsKey(to)) {
+			reachedBy.put(to, rule);
+			reachedFrom.put(to, from);
+			queue.add(to);
+		}
+	}
+
+	boolean isReachable(LoadOption option) {
+		return reachedBy.containsKey(RuleDefinition.process(option));
+	}
+
+	/** @return The mods on the shortest path from a root to the given option, starting with the root. This is empty if
+	 *         the option can't be reached from any root. Options that aren't mods (like the parts of a
+	 *         {@link QuiltRuleDepAny}) are skipped. */
+	List<ModLoadOption> getModPath(LoadOption option) {
+		List<ModLoadOption> path = new ArrayList<>();
+		option = RuleDefinition.process(option);
+
+		if (!reachedBy.containsKey(option)) {
+			return path;
+		}
+
+		while (option != null) {
+			if (option instanceof ModLoadOption && (path.isEmpty() || path.get(path.size() - 1) != option)) {
+				path.add((ModLoadOption) option);
+			}
+
+			option = reachedFrom.get(option);
+		}
+
+		Collections.reverse(path);
+		return path;
+	}
+
+	/** @return The closest mod that declared the given option, which is the option itself for mods. This is mostly
+	 *         useful for finding the mod that declared a {@link QuiltModDepOption}. */
+	LoadOption getOwner(LoadOption option) {
+		LoadOption current = RuleDefinition.process(option);
+
+		while (current != null && !(current instanceof ModLoadOption)) {
+			current = reachedFrom.get(current);
+		}
+
+		return current != null ? current : option;
+	}
+}
@@ -25,6 +25,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.logging.log4j.Logger;
 import org.quiltmc.loader.impl.discovery.ModSolvingError;
@@ -91,15 +92,32 @@ class Sat4jWrapper implements RuleContext {
 
 	private volatile boolean cancelled = false;
 
-	private final Map<LoadOption, Integer> optionToWeight = new HashMap<>();
 	private final Map<Rule, List<RuleDefinition>> ruleToDefinitions = new HashMap<>();
 
-	private final Map<LoadOption, Integer> optionToIndex = new HashMap<>();
-	private final Map<Integer, LoadOption> indexToOption = new HashMap<>();
+	/** Every option that has been seen, including ones that were only used by rules. Everything below is indexed by the
+	 * IDs that this gives out. */
+	private final LoadOptionTable optionTable = new LoadOptionTable();
+
+	/** Which options have been added (with {@link #addOption(LoadOption, int)} or {@link #setWeight(LoadOption, int)}),
+	 * and haven't been removed since. */
+	private boolean[] optionAdded = new boolean[32];
+	private int[] optionWeight = new int[32];
+
+	/** The sat4j variable of each option in the current solver, or 0 if it hasn't been given one yet. */
+	private int[] optionToVar = new int[32];
+	/** The option ID of each sat4j variable in the current solver, or 0 if the variable isn't an option. */
+	private int[] varToOption = new int[32];
+
+	/** Reused for every clause, since sat4j copies the literals into its own constraints. */
+	private final VecInt clauseBuffer = new VecInt();
 
 	/** Only available during {@link Sat4jSolveStep#SOLVE}. */
 	private Map<IConstr, Rule> constraintToRule = null;
 
+	/** The reverse of {@link #constraintToRule}, used to take a rule out of the solver while looking for more errors.
+	 * Only available during {@link Sat4jSolveStep#SOLVE}. */
+	private Map<Rule, List<IConstr>> ruleToConstraints = null;
+
 	public Sat4jWrapper(Logger logger) {
 		this.logger = logger;
 	}
@@ -122,7 +140,7 @@ class Sat4jWrapper implements RuleContext {
 	@Override
 	public void addOption(LoadOption option, int weight) {
 		validateCanAdd();
-		optionToWeight.put(option, weight);
+		setAdded(option, weight);
 
 		if (LOG) {
 			logger.info("Sat4jWrapper: adding option " + option + " with weight " + weight);
@@ -144,7 +162,14 @@ class Sat4jWrapper implements RuleContext {
 	@Override
 	public void setWeight(LoadOption option, int weight) {
 		validateCanAdd();
-		optionToWeight.put(option, weight);
+		setAdded(option, weight);
+	}
+
+	private void setAdded(LoadOption option, int weight) {
+		int id = optionTable.getOrAddId(option);
+		ensureOptionCapacity(id);
+		optionAdded[id] = true;
+		optionWeight[id] = weight;
 	}
 
 	@Override
@@ -155,8 +180,19 @@ class Sat4jWrapper implements RuleContext {
 			logger.info("Sat4jWrapper: removing option " + option);
 		}
 
-		indexToOption.remove(optionToIndex.remove(option));
-		optionToWeight.remove(option);
+		int id = optionTable.getId(option);
+
+		if (id != 0 && id < optionAdded.length) {
+			optionAdded[id] = false;
+			optionWeight[id] = 0;
+
+			int var = optionToVar[id];
+
+			if (var != 0) {
+				optionToVar[id] = 0;
+				varToOption[var] = 0;
+			}
+		}
 
 		List<Rule> rulesToRedefine = new ArrayList<>();
 
@@ -183,8 +219,10 @@ class Sat4jWrapper implements RuleContext {
 
 		ruleToDefinitions.put(rule, new ArrayList<>(1));
 
-		for (LoadOption option : optionToWeight.keySet()) {
-			rule.onLoadOptionAdded(option);
+		for (int id = 1; id <= optionTable.maxId(); id++) {
+			if (isAdded(id)) {
+				rule.onLoadOptionAdded(optionTable.get(id));
+			}
 		}
 
 		rule.define(new RuleDefinerInternal(rule));
@@ -241,9 +279,9 @@ class Sat4jWrapper implements RuleContext {
 			}
 
 			rulesChanged = false;
-			optionToIndex.clear();
-			indexToOption.clear();
+			clearVariables();
 			constraintToRule = new HashMap<>();
+			ruleToConstraints = new HashMap<>();
 			solver = SolverFactory.newDefault();
 			solver = explainer = new XplainPB(solver);
 			putDefinitions();
@@ -264,10 +302,10 @@ class Sat4jWrapper implements RuleContext {
 			solver = new OptToPBSATAdapter(optimiser = new PseudoOptDecorator(SolverFactory.newDefault()));
 //			optimiser.setTimeoutForFindingBetterSolution(2);
 			step = Sat4jSolveStep.RE_SOLVING;
-			optionToIndex.clear();
-			indexToOption.clear();
+			clearVariables();
 			solver.setVerbose(true);
 			constraintToRule = null;
+			ruleToConstraints = null;
 			putDefinitions();
 			return true;
 		} else {
@@ -285,12 +323,123 @@ class Sat4jWrapper implements RuleContext {
 		Set<Rule> rules = new HashSet<>();
 
 		for (IConstr c : constraints) {
-			rules.add(constraintToRule.get(c));
+			Rule rule = constraintToRule.get(c);
+
+			// Constraints removed by getErrors are never needed, but skip them just in case
+			if (rule != null) {
+				rules.add(rule);
+			}
 		}
 
 		return rules;
 	}
 
+	/** Finds every separate error that prevented {@link #hasSolution()} from returning true, rather than only the first
+	 * one. Each error is a minimal set of rules that can't all be satisfied, as found by {@link #getError()}. After each
+	 * one is found its rules are taken out of the solver, so the next error doesn't contain any of them. Mandatory mods
+	 * are kept in, since one mod can be the root of several problems.
+	 * <p>
+	 * This stops once the remaining rules can be satisfied, or once the time budget has been used up. The first error is
+	 * always found, however long it takes. After that the solver is only given whatever is left of the budget, and the
+	 * errors found so far are returned if it runs out. Afterwards {@link #hasSolution()} will start again from every
+	 * rule.
+	 *
+	 * @param timeBudget The number of milliseconds to spend finding more errors after the first.
+	 * @throws TimeoutException if this was cancelled, or if the first error couldn't be found.
+	 * @throws IllegalStateException if the last call to {@link #hasSolution()} didn't return false, or if any other
+	 *             methods have been called since the last call to {@link #hasSolution()}. */
+	public List<Collection<Rule>> getErrors(long timeBudget) throws TimeoutException {
+		long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeBudget);
+		List<Collection<Rule>> errors = new ArrayList<>();
+
+		// The constraints of the previous errors are about to be removed
+		rulesChanged = true;
+
+		try {
+			while (true) {
+				Collection<Rule> error = getError();
+				errors.add(error);
+
+				if (!limitTimeout(deadline)) {
+					break;
+				}
+
+				if (!removeFromSolver(error)) {
+					break;
+				}
+
+				if (explainer.isSatisfiable() || !limitTimeout(deadline)) {
+					break;
+				}
+			}
+		} catch (TimeoutException e) {
+			if (errors.isEmpty() || cancelled) {
+				throw e;
+			}
+		}
+
+		if (LOG && System.nanoTime() - deadline > 0) {
+			logger.info("Sat4jWrapper: ran out of time after finding " + errors.size() + " errors");
+		}
+
+		return errors;
+	}
+
+	/** Makes the solver give up once the given deadline has passed.
+	 *
+	 * @return False if the deadline has already passed. */
+	private boolean limitTimeout(long deadline) {
+		long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+
+		if (remaining <= 0) {
+			return false;
+		}
+
+		explainer.setTimeoutMs(remaining);
+		return true;
+	}
+
+	/** Removes the constraints of the given rules from the current solver, without redefining anything.
+	 *
+	 * @return True if anything was removed. */
+	private boolean removeFromSolver(Collection<Rule> rules) {
+		boolean onlyMandatory = true;
+
+		for (Rule rule : rules) {
+			if (!(rule instanceof MandatoryModIdDefinition)) {
+				onlyMandatory = false;
+				break;
+			}
+		}
+
+		boolean removedAny = false;
+
+		for (Rule rule : rules) {
+			if (rule instanceof MandatoryModIdDefinition && !onlyMandatory) {
+				continue;
+			}
+
+			List<IConstr> constraints = ruleToConstraints.remove(rule);
+
+			if (constraints == null) {
+				continue;
+			}
+
+			for (IConstr c : constraints) {
+				constraintToRule.remove(c);
+
+				if (!explainer.removeConstr(c)) {
+					// The solver is in an unknown state now, so it can't be trusted for any more errors
+					return false;
+				}
+
+				removedAny = true;
+			}
+		}
+
+		return removedAny;
+	}
+
 	/** Computes and returns the optimised solution.
 	 * 
 	 * @return The solution.
@@ -360,7 +509,7 @@ class Sat4jWrapper implements RuleContext {
 				continue;
 			}
 
-			LoadOption option = indexToOption.get(value);
+			LoadOption option = value < varToOption.length ? optionTable.get(varToOption[value]) : null;
 			if (option == null) {
 				throw new ModSolvingError("Unknown value " + value);
 			}
@@ -402,44 +551,64 @@ class Sat4jWrapper implements RuleContext {
 	// # Internal #
 	// ############
 
+	/** @return The sat4j literals of the given options. This is always the same {@link IVecInt}, which is only valid
+	 *         until the next call. */
 	/* package-private */ IVecInt mapOptionsToSat4jClause(LoadOption[] options) {
-		IVecInt vec = new VecInt(options.length);
+		IVecInt vec = clauseBuffer;
+		vec.clear();
 
 		for (LoadOption option : options) {
-			boolean negated = false;
-
 			if (option instanceof NegatedLoadOption) {
-				negated = true;
-				option = ((NegatedLoadOption) option).not;
-			}
-
-			int value = putOptionRaw(option);
-
-			if (negated) {
-				value = -value;
+				vec.push(-putOptionRaw(((NegatedLoadOption) option).not));
+			} else {
+				vec.push(putOptionRaw(option));
 			}
-
-			vec.push(value);
 		}
 
 		return vec;
 	}
 
 	private int putOptionRaw(LoadOption option) {
-		Integer objVal = optionToIndex.get(option);
+		int id = optionTable.getOrAddId(option);
+		ensureOptionCapacity(id);
+		int var = optionToVar[id];
+
+		if (var == 0) {
+			var = solver.nextFreeVarId(true);
+			optionToVar[id] = var;
+
+			if (var >= varToOption.length) {
+				varToOption = Arrays.copyOf(varToOption, Math.max(var + 1, varToOption.length * 2));
+			}
 
-		if (objVal == null) {
-			objVal = solver.nextFreeVarId(true);
-			optionToIndex.put(option, objVal);
-			indexToOption.put(objVal, option);
+			varToOption[var] = id;
 
 			if (LOG) {
-				logger.info("Sat4jWrapper: " + objVal + " = " + option);
+				logger.info("Sat4jWrapper: " + var + " = " + option);
 			}
 		}
 
-		int value = objVal;
-		return value;
+		return var;
+	}
+
+	private boolean isAdded(int id) {
+		// Options that have only been negated might not be in the arrays yet
+		return id < optionAdded.length && optionAdded[id];
+	}
+
+	private void ensureOptionCapacity(int id) {
+		if (id >= optionAdded.length) {
+			int length = Math.max(id + 1, optionAdded.length * 2);
+			optionAdded = Arrays.copyOf(optionAdded, length);
+			optionWeight = Arrays.copyOf(optionWeight, length);
+			optionToVar = Arrays.copyOf(optionToVar, length);
+		}
+	}
+
+	/** Forgets the sat4j variable of every option, ready for a new solver. */
+	private void clearVariables() {
+		Arrays.fill(optionToVar, 0);
+		Arrays.fill(varToOption, 0);
 	}
 
 	private void checkCancelled() throws TimeoutException {
@@ -451,10 +620,17 @@ class Sat4jWrapper implements RuleContext {
 	private void putDefinitions() {
 		if (constraintToRule != null) {
 			constraintToRule.clear();
+			ruleToConstraints.clear();
 		}
 
-		for (LoadOption option : optionToWeight.keySet()) {
-			putOptionRaw(option);
+		int maxId = optionTable.maxId();
+		int addedCount = 0;
+
+		for (int id = 1; id <= maxId; id++) {
+			if (isAdded(id)) {
+				putOptionRaw(optionTable.get(id));
+				addedCount++;
+			}
 		}
 
 		for (Map.Entry<Rule, List<RuleDefinition>> entry : ruleToDefinitions.entrySet()) {
@@ -466,17 +642,14 @@ class Sat4jWrapper implements RuleContext {
 		}
 
 		if (optimiser != null) {
-			int count = optionToWeight.size();
-			IVecInt vars = new VecInt(count);
-			IVec<BigInteger> coeffs = new Vec<>(count);
-
-			for (Map.Entry<LoadOption, Integer> entry : optionToWeight.entrySet()) {
-				Integer value = optionToIndex.get(entry.getKey());
-				if (value == null) {
-					throw new NullPointerException(entry.getKey() + " isn't in the optionToIndex map!");
+			IVecInt vars = new VecInt(addedCount);
+			IVec<BigInteger> coeffs = new Vec<>(addedCount);
+
+			for (int id = 1; id <= maxId; id++) {
+				if (isAdded(id)) {
+					vars.push(optionToVar[id]);
+					coeffs.push(BigInteger.valueOf(optionWeight[id]));
 				}
-				vars.push(value);
-				coeffs.push(BigInteger.valueOf(entry.getValue()));
 			}
 
 			optimiser.setObjectiveFunction(new ObjectiveFunction(vars, coeffs));
@@ -497,6 +670,7 @@ class Sat4jWrapper implements RuleContext {
 			for (IConstr c : added) {
 				if (c != null) {
 					constraintToRule.put(c, rule);
+					ruleToConstraints.computeIfAbsent(rule, r -> new ArrayList<>(1)).add(c);
 				}
 			}
 		}
@@ -516,7 +690,7 @@ class Sat4jWrapper implements RuleContext {
 				return ((NegatedLoadOption) option).not;
 			}
 
-			return new NegatedLoadOption(RuleDefinition.process(option));
+			return optionTable.negate(RuleDefinition.process(option));
 		}
 
 		private void rule(RuleDefinition def) {
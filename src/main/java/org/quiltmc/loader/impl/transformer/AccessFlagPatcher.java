@@ -0,0 +1,108 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import org.objectweb.asm.ClassReader;
+
+/**
+ * Applies an {@link AccessWidenerIndex.ClassEntry} directly to the access_flags of a class file, leaving the rest of
+ * the class (and especially the constant pool and method bodies) untouched.
+ */
+final class AccessFlagPatcher {
+	private AccessFlagPatcher() {
+
+	}
+
+	static byte[] patch(byte[] classBytes, AccessWidenerIndex.ClassEntry entry) {
+		if (!entry.canPatchInPlace()) {
+			throw new IllegalArgumentException("Access widener entry cannot be applied in place!");
+		}
+
+		if (entry.isEmpty()) {
+			return classBytes;
+		}
+
+		// ClassReader only parses the constant pool offsets here, which is all we need to navigate the file
+		ClassReader reader = new ClassReader(classBytes);
+		byte[] out = classBytes.clone();
+		char[] buffer = new char[reader.getMaxStringLength()];
+
+		int offset = reader.header;
+		writeShort(out, offset, (reader.readUnsignedShort(offset) & ~entry.classClear) | entry.classSet);
+
+		int interfaceCount = reader.readUnsignedShort(offset + 6);
+		offset += 8 + interfaceCount * 2;
+
+		offset = patchMembers(reader, out, offset, AccessWidenerIndex.KIND_FIELD, entry, buffer);
+		offset = patchMembers(reader, out, offset, AccessWidenerIndex.KIND_METHOD, entry, buffer);
+
+		int attributeCount = reader.readUnsignedShort(offset);
+		offset += 2;
+
+		for (int i = 0; i < attributeCount; i++) {
+			String name = reader.readUTF8(offset, buffer);
+			int length = reader.readInt(offset + 2);
+
+			if ("InnerClasses".equals(name)) {
+				int classCount = reader.readUnsignedShort(offset + 6);
+				int classOffset = offset + 8;
+
+				for (int j = 0; j < classCount; j++) {
+					AccessWidenerIndex.MemberEntry member = entry.find(AccessWidenerIndex.KIND_INNER_CLASS, reader.readClass(classOffset, buffer), "");
+
+					if (member != null) {
+						writeShort(out, classOffset + 6, member.apply(reader.readUnsignedShort(classOffset + 6)));
+					}
+
+					classOffset += 8;
+				}
+			}
+
+			offset += 6 + length;
+		}
+
+		return out;
+	}
+
+	/** @return The offset directly after the member table. */
+	private static int patchMembers(ClassReader reader, byte[] out, int offset, byte kind, AccessWidenerIndex.ClassEntry entry, char[] buffer) {
+		int count = reader.readUnsignedShort(offset);
+		offset += 2;
+
+		for (int i = 0; i < count; i++) {
+			AccessWidenerIndex.MemberEntry member = entry.find(kind, reader.readUTF8(offset + 2, buffer), reader.readUTF8(offset + 4, buffer));
+
+			if (member != null) {
+				writeShort(out, offset, member.apply(reader.readUnsignedShort(offset)));
+			}
+
+			int attributeCount = reader.readUnsignedShort(offset + 6);
+			offset += 8;
+
+			for (int j = 0; j < attributeCount; j++) {
+				offset += 6 + reader.readInt(offset + 2);
+			}
+		}
+
+		return offset;
+	}
+
+	private static void writeShort(byte[] bytes, int offset, int value) {
+		bytes[offset] = (byte) (value >>> 8);
+		bytes[offset + 1] = (byte) value;
+	}
+}
@@ -0,0 +1,375 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.FieldVisitor;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+
+/**
+ * A compiled form of every mod's access wideners, split up per target class.
+ * <p>
+ * Each {@link ClassEntry} stores the access flags that need to be set and cleared on the class itself, and on its
+ * fields, methods and inner class attributes. These are computed once (by running the real
+ * {@link AccessWidenerVisitor} over the structure of the class) and then persisted alongside the hash of all of the
+ * access widener files, so later launches with the same mods neither need to parse the access wideners nor run a full
+ * {@link ClassReader} to {@link org.objectweb.asm.ClassWriter} round trip - instead the flags are patched directly into
+ * the original class file by {@link AccessFlagPatcher}.
+ */
+public final class AccessWidenerIndex {
+	private static final int MAGIC = 0x51415749; // "QAWI"
+	private static final int FORMAT_VERSION = 1;
+
+	static final byte KIND_FIELD = 0;
+	static final byte KIND_METHOD = 1;
+	static final byte KIND_INNER_CLASS = 2;
+
+	/** Only the bits that are actually stored in the access_flags of a class file can be patched. */
+	private static final int ACCESS_MASK = 0xFFFF;
+
+	private final String hash;
+	private final Set<String> targets;
+	private final Map<String, ClassEntry> classes = new ConcurrentHashMap<>();
+	private volatile boolean dirty;
+
+	private AccessWidenerIndex(String hash, Set<String> targets) {
+		this.hash = hash;
+		this.targets = targets;
+	}
+
+	/** @param hash The combined hash of every access widener that was read into the {@link AccessWidener}.
+	 * @param targets The {@link AccessWidener#getTargets() targets} of the access widener, in dotted form. */
+	public static AccessWidenerIndex create(String hash, Set<String> targets) {
+		AccessWidenerIndex index = new AccessWidenerIndex(hash, Collections.unmodifiableSet(new HashSet<>(targets)));
+		index.dirty = true;
+		return index;
+	}
+
+	/** @return The index stored in the given file, or null if the file doesn't exist, couldn't be read, or was
+	 *		 written for a different set of access wideners. */
+	public static AccessWidenerIndex read(Path file, String expectedHash) {
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+			if (in.readInt() != MAGIC || in.readInt() != FORMAT_VERSION || !expectedHash.equals(in.readUTF())) {
+				return null;
+			}
+
+			int targetCount = in.readInt();
+			Set<String> targets = new HashSet<>(targetCount * 2);
+
+			for (int i = 0; i < targetCount; i++) {
+				targets.add(in.readUTF());
+			}
+
+			AccessWidenerIndex index = new AccessWidenerIndex(expectedHash, Collections.unmodifiableSet(targets));
+			int classCount = in.readInt();
+
+			for (int i = 0; i < classCount; i++) {
+				String name = in.readUTF();
+				index.classes.put(name, ClassEntry.read(in));
+			}
+
+			return index;
+		} catch (NoSuchFileException e) {
+			return null;
+		} catch (IOException e) {
+			QuiltLoaderImpl.INSTANCE.getLogger().warn("Failed to read the access widener cache " + file + ", it will be rebuilt", e);
+			return null;
+		}
+	}
+
+	/** Writes this index to the given file, if anything has changed since it was read. */
+	public void write(Path file) throws IOException {
+		if (!dirty) {
+			return;
+		}
+
+		dirty = false;
+		Files.createDirectories(file.getParent());
+		Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+
+		try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+			out.writeInt(MAGIC);
+			out.writeInt(FORMAT_VERSION);
+			out.writeUTF(hash);
+			out.writeInt(targets.size());
+
+			for (String target : targets) {
+				out.writeUTF(target);
+			}
+
+			Map<String, ClassEntry> snapshot = new HashMap<>(classes);
+			out.writeInt(snapshot.size());
+
+			for (Map.Entry<String, ClassEntry> entry : snapshot.entrySet()) {
+				out.writeUTF(entry.getKey());
+				entry.getValue().write(out);
+			}
+		}
+
+		try {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+		}
+	}
+
+	public String getHash() {
+		return hash;
+	}
+
+	public Set<String> getTargets() {
+		return targets;
+	}
+
+	public boolean isTarget(String className) {
+		return targets.contains(className);
+	}
+
+	/** @param className The dotted name of the class.
+	 * @param classBytes The class bytes that are about to be widened.
+	 * @param accessWidener Supplies the fully read access widener, only used if the entry isn't already cached for
+	 *			these exact bytes. */
+	public ClassEntry getEntry(String className, byte[] classBytes, Supplier<AccessWidener> accessWidener) {
+		int crc = crc(classBytes);
+		ClassEntry entry = classes.get(className);
+
+		if (entry == null || entry.crc != crc) {
+			entry = ClassEntry.compute(crc, classBytes, accessWidener.get());
+			classes.put(className, entry);
+			dirty = true;
+		}
+
+		return entry;
+	}
+
+	private static int crc(byte[] bytes) {
+		CRC32 crc = new CRC32();
+		crc.update(bytes, 0, bytes.length);
+		return (int) crc.getValue();
+	}
+
+	/** The access changes that the access wideners make to a single class. */
+	public static final class ClassEntry {
+		final int crc;
+		final int classClear, classSet;
+		final List<MemberEntry> members;
+		/** False if widening needs more than flag changes, for example if calls to private methods need to be
+		 * changed from INVOKESPECIAL to INVOKEVIRTUAL. */
+		final boolean inPlace;
+
+		ClassEntry(int crc, int classClear, int classSet, List<MemberEntry> members, boolean inPlace) {
+			this.crc = crc;
+			this.classClear = classClear;
+			this.classSet = classSet;
+			this.members = members;
+			this.inPlace = inPlace;
+		}
+
+		static ClassEntry compute(int crc, byte[] classBytes, AccessWidener accessWidener) {
+			ClassReader reader = new ClassReader(classBytes);
+			int flags = ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES;
+
+			AccessRecorder original = new AccessRecorder();
+			reader.accept(original, flags);
+			AccessRecorder widened = new AccessRecorder();
+			reader.accept(AccessWidenerVisitor.createClassVisitor(QuiltLoaderImpl.ASM_VERSION, widened, accessWidener), flags);
+
+			List<MemberEntry> members = new ArrayList<>();
+			boolean inPlace = true;
+
+			for (Map.Entry<MemberKey, Integer> entry : widened.access.entrySet()) {
+				MemberKey key = entry.getKey();
+				int before = original.access.get(key);
+				int after = entry.getValue();
+
+				if (before == after) {
+					continue;
+				}
+
+				if (key.kind == KIND_METHOD && (before & Opcodes.ACC_PRIVATE) != 0 && !"<init>".equals(key.name)) {
+					// AccessWidenerVisitor also rewrites the calls to this method
+					inPlace = false;
+				}
+
+				members.add(new MemberEntry(key.kind, key.name, key.desc, before & ~after & ACCESS_MASK, after & ~before & ACCESS_MASK));
+			}
+
+			int before = original.classAccess;
+			int after = widened.classAccess;
+			return new ClassEntry(crc, before & ~after & ACCESS_MASK, after & ~before & ACCESS_MASK, members, inPlace);
+		}
+
+		static ClassEntry read(DataInputStream in) throws IOException {
+			int crc = in.readInt();
+			boolean inPlace = in.readBoolean();
+			int classClear = in.readUnsignedShort();
+			int classSet = in.readUnsignedShort();
+			int memberCount = in.readInt();
+			List<MemberEntry> members = new ArrayList<>(memberCount);
+
+			for (int i = 0; i < memberCount; i++) {
+				byte kind = in.readByte();
+				String name = in.readUTF();
+				String desc = in.readUTF();
+				members.add(new MemberEntry(kind, name, desc, in.readUnsignedShort(), in.readUnsignedShort()));
+			}
+
+			return new ClassEntry(crc, classClear, classSet, members, inPlace);
+		}
+
+		void write(DataOutputStream out) throws IOException {
+			out.writeInt(crc);
+			out.writeBoolean(inPlace);
+			out.writeShort(classClear);
+			out.writeShort(classSet);
+			out.writeInt(members.size());
+
+			for (MemberEntry member : members) {
+				out.writeByte(member.kind);
+				out.writeUTF(member.name);
+				out.writeUTF(member.desc);
+				out.writeShort(member.clear);
+				out.writeShort(member.set);
+			}
+		}
+
+		public boolean isEmpty() {
+			return classClear == 0 && classSet == 0 && members.isEmpty();
+		}
+
+		/** @return True if {@link AccessFlagPatcher} can apply this entry without running the full
+		 *		 {@link AccessWidenerVisitor}. */
+		public boolean canPatchInPlace() {
+			return inPlace;
+		}
+
+		MemberEntry find(byte kind, String name, String desc) {
+			for (MemberEntry member : members) {
+				if (member.kind == kind && member.name.equals(name) && member.desc.equals(desc)) {
+					return member;
+				}
+			}
+
+			return null;
+		}
+	}
+
+	static final class MemberEntry {
+		final byte kind;
+		final String name;
+		/** The descriptor of fields and methods, or an empty string for inner classes. */
+		final String desc;
+		final int clear, set;
+
+		MemberEntry(byte kind, String name, String desc, int clear, int set) {
+			this.kind = kind;
+			this.name = name;
+			this.desc = desc;
+			this.clear = clear;
+			this.set = set;
+		}
+
+		int apply(int access) {
+			return (access & ~clear) | set;
+		}
+	}
+
+	private static final class MemberKey {
+		final byte kind;
+		final String name, desc;
+
+		MemberKey(byte kind, String name, String desc) {
+			this.kind = kind;
+			this.name = name;
+			this.desc = desc;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (!(obj instanceof MemberKey)) {
+				return false;
+			}
+
+			MemberKey other = (MemberKey) obj;
+			return kind == other.kind && name.equals(other.name) && desc.equals(other.desc);
+		}
+
+		@Override
+		public int hashCode() {
+			return (kind * 31 + name.hashCode()) * 31 + desc.hashCode();
+		}
+	}
+
+	/** Records the access flags that reach the end of a visitor chain, without keeping anything else. */
+	private static final class AccessRecorder extends ClassVisitor {
+		final Map<MemberKey, Integer> access = new HashMap<>();
+		int classAccess;
+
+		AccessRecorder() {
+			super(QuiltLoaderImpl.ASM_VERSION);
+		}
+
+		@Override
+		public void visit(int version, int access, String name, String signature, String superName, String[] interfaces) {
+			classAccess = access;
+		}
+
+		@Override
+		public void visitInnerClass(String name, String outerName, String innerName, int access) {
+			this.access.put(new MemberKey(KIND_INNER_CLASS, name, ""), access);
+		}
+
+		@Override
+		public FieldVisitor visitField(int access, String name, String descriptor, String signature, Object value) {
+			this.access.put(new MemberKey(KIND_FIELD, name, descriptor), access);
+			return null;
+		}
+
+		@Override
+		public MethodVisitor visitMethod(int access, String name, String descriptor, String signature, String[] exceptions) {
+			this.access.put(new MemberKey(KIND_METHOD, name, descriptor), access);
+			return null;
+		}
+	}
+}
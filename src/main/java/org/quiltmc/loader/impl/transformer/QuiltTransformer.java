@@ -48,12 +48,28 @@ public final class QuiltTransformer {
 		boolean isMinecraftClass = name.startsWith("net.minecraft.") || name.startsWith("com.mojang.blaze3d.") || name.indexOf('.') < 0;
 		boolean transformAccess = isMinecraftClass && QuiltLauncherBase.getLauncher().getMappingConfiguration().requiresPackageAccessHack();
 		boolean environmentStrip = !isMinecraftClass || isDevelopment;
-		boolean applyAccessWidener = isMinecraftClass && QuiltLoaderImpl.INSTANCE.getAccessWidener().getTargets().contains(name);
+		AccessWidenerIndex accessWidenerIndex = QuiltLoaderImpl.INSTANCE.getAccessWidenerIndex();
+		boolean applyAccessWidener;
+
+		if (accessWidenerIndex != null) {
+			applyAccessWidener = isMinecraftClass && accessWidenerIndex.isTarget(name);
+		} else {
+			applyAccessWidener = isMinecraftClass && QuiltLoaderImpl.INSTANCE.getAccessWidener().getTargets().contains(name);
+		}
 
 		if (!transformAccess && !environmentStrip && !applyAccessWidener) {
 			return bytes;
 		}
 
+		if (applyAccessWidener && !transformAccess && !environmentStrip && accessWidenerIndex != null) {
+			// Only access flags need changing, so patch them into the existing class file if we can
+			AccessWidenerIndex.ClassEntry entry = accessWidenerIndex.getEntry(name, bytes, QuiltLoaderImpl.INSTANCE::getAccessWidener);
+
+			if (entry.canPatchInPlace()) {
+				return AccessFlagPatcher.patch(bytes, entry);
+			}
+		}
+
 		ClassReader classReader = new ClassReader(bytes);
 		ClassWriter classWriter = new ClassWriter(0);
 		ClassVisitor visitor = classWriter;
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+
+/**
+ * A size bounded cache of class bytes that have been through every transformer except mixin. Mixin reads the same
+ * target classes over and over (and then the class loader reads them again to actually define them), so this saves
+ * running the whole transformer chain each time. Once the cached arrays add up to more than the limit, the least
+ * recently used classes are evicted first.
+ *
+ * <p>Arrays are copied on the way in and out, so callers are free to modify what they get back.</p>
+ */
+public final class ClassByteCache {
+	private static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+
+	private final long maxBytes;
+	private final LinkedHashMap<String, byte[]> entries = new LinkedHashMap<>(256, 0.75f, true);
+	private long totalBytes;
+	private long hits;
+	private long misses;
+
+	public ClassByteCache(long maxBytes) {
+		this.maxBytes = maxBytes;
+	}
+
+	/** @return A cache limited by {@link SystemProperties#CLASS_BYTE_CACHE_SIZE}, which defaults to 32 MiB. */
+	public static ClassByteCache create() {
+		long maxBytes = DEFAULT_MAX_BYTES;
+		String value = System.getProperty(SystemProperties.CLASS_BYTE_CACHE_SIZE);
+
+		if (value != null) {
+			try {
+				maxBytes = Long.parseLong(value.trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid " + SystemProperties.CLASS_BYTE_CACHE_SIZE + ": " + value, e);
+			}
+		}
+
+		return new ClassByteCache(maxBytes);
+	}
+
+	public boolean isEnabled() {
+		return maxBytes > 0;
+	}
+
+	/** @param name The class name, in dot notation. */
+	public byte[] get(String name) {
+		if (maxBytes <= 0) {
+			return null;
+		}
+
+		byte[] bytes;
+
+		synchronized (entries) {
+			bytes = entries.get(name);
+
+			if (bytes == null) {
+				misses++;
+				return null;
+			}
+
+			hits++;
+		}
+
+		return bytes.clone();
+	}
+
+	/**
+	 * Removes a class from the cache, for when it's about to be defined and so is unlikely to be asked for again.
+	 *
+	 * @param name The class name, in dot notation.
+	 * @return The cached bytes, or null if the class wasn't cached.
+	 */
+	public byte[] remove(String name) {
+		if (maxBytes <= 0) {
+			return null;
+		}
+
+		synchronized (entries) {
+			byte[] bytes = entries.remove(name);
+
+			if (bytes == null) {
+				misses++;
+				return null;
+			}
+
+			hits++;
+			totalBytes -= bytes.length;
+			// Nothing else can see this array any more, so it doesn't need copying
+			return bytes;
+		}
+	}
+
+	/** @param name The class name, in dot notation. */
+	public void put(String name, byte[] bytes) {
+		if (maxBytes <= 0 || bytes == null || bytes.length > maxBytes) {
+			return;
+		}
+
+		byte[] copy = bytes.clone();
+
+		synchronized (entries) {
+			byte[] old = entries.put(name, copy);
+
+			if (old != null) {
+				totalBytes -= old.length;
+			}
+
+			totalBytes += copy.length;
+
+			for (Iterator<byte[]> iterator = entries.values().iterator(); totalBytes > maxBytes && iterator.hasNext();) {
+				totalBytes -= iterator.next().length;
+				iterator.remove();
+			}
+		}
+	}
+
+	/** Forgets every class, for when the transformers that produced them have changed. */
+	public void clear() {
+		synchronized (entries) {
+			entries.clear();
+			totalBytes = 0;
+		}
+	}
+
+	@Override
+	public String toString() {
+		synchronized (entries) {
+			return String.format("%d classes (%d KiB) cached, %d hits, %d misses", entries.size(), totalBytes / 1024, hits, misses);
+		}
+	}
+}
@@ -21,19 +21,26 @@ import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.FileSystem;
-import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystemNotFoundException;
 import java.nio.file.FileSystems;
 import java.nio.file.Path;
 import java.util.*;
 
+import org.quiltmc.loader.impl.filesystem.QuiltZipFileSystem;
+
 public final class FileSystemUtil {
+    /**
+     * A reference to a shared jar file system. This must be closed once it is no longer needed, which only closes the
+     * file system itself once every other reference to it has been closed too.
+     */
     public static class FileSystemDelegate implements AutoCloseable {
         private final FileSystem fileSystem;
-        private final boolean owner;
+        private final JarFileSystemRegistry.Entry entry;
+        private boolean closed;
 
-        public FileSystemDelegate(FileSystem fileSystem, boolean owner) {
+        FileSystemDelegate(FileSystem fileSystem, JarFileSystemRegistry.Entry entry) {
             this.fileSystem = fileSystem;
-            this.owner = owner;
+            this.entry = entry;
         }
 
         public FileSystem get() {
@@ -41,9 +48,10 @@ public final class FileSystemUtil {
         }
 
         @Override
-        public void close() throws IOException {
-            if (owner) {
-                fileSystem.close();
+        public synchronized void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                JarFileSystemRegistry.release(entry);
             }
         }
     }
@@ -52,6 +60,7 @@ public final class FileSystemUtil {
 
     }
 
+    private static final boolean DISABLE_OPTIMIZED_ZIP = Boolean.getBoolean(SystemProperties.DISABLE_OPTIMIZED_ZIP);
     private static final Map<String, String> jfsArgsCreate = new HashMap<>();
     private static final Map<String, String> jfsArgsEmpty = new HashMap<>();
 
@@ -68,17 +77,55 @@ public final class FileSystemUtil {
 	}
 
 	public static FileSystemDelegate getJarFileSystem(URI uri, boolean create) throws IOException {
-        URI jarUri;
-        try {
-            jarUri = new URI("jar:" + uri.getScheme(), uri.getHost(), uri.getPath(), uri.getFragment());
-        } catch (URISyntaxException e) {
-            throw new IOException(e);
-        }
-
-        try {
-            return new FileSystemDelegate(FileSystems.newFileSystem(jarUri, create ? jfsArgsCreate : jfsArgsEmpty), true);
-        } catch (FileSystemAlreadyExistsException e) {
-            return new FileSystemDelegate(FileSystems.getFileSystem(jarUri), false);
-        }
+        return JarFileSystemRegistry.acquire(toJarUri(uri), create ? jfsArgsCreate : jfsArgsEmpty);
     }
+
+	/**
+	 * Opens a zip for reading only. Unless {@link SystemProperties#DISABLE_OPTIMIZED_ZIP} is set, this uses a
+	 * {@link QuiltZipFileSystem}, which reads the central directory once into a sorted table and serves entries from
+	 * a memory mapped view of the zip, rather than the JDK's zip file system.
+	 */
+	public static FileSystemDelegate getReadOnlyJarFileSystem(Path path) throws IOException {
+		if (DISABLE_OPTIMIZED_ZIP) {
+			return getJarFileSystem(path, false);
+		}
+
+		return JarFileSystemRegistry.acquireReadOnly(toReadOnlyKey(path.toUri()), path);
+	}
+
+	/** @return A new reference to the jar file system for the given path, or null if it isn't already open. */
+	public static FileSystemDelegate retainJarFileSystem(Path path) throws IOException {
+		FileSystemDelegate delegate = JarFileSystemRegistry.retain(toReadOnlyKey(path.toUri()));
+		return delegate != null ? delegate : JarFileSystemRegistry.retain(toJarUri(path.toUri()));
+	}
+
+	/** Closes the jar file system that was opened for the given path, if there is one, even if it is still in use. */
+	public static void closeJarFileSystem(Path path) throws IOException {
+		URI jarUri = toJarUri(path.toUri());
+		JarFileSystemRegistry.forceClose(toReadOnlyKey(path.toUri()));
+		JarFileSystemRegistry.forceClose(jarUri);
+
+		try {
+			// Might have been opened by something other than the loader
+			FileSystems.getFileSystem(jarUri).close();
+		} catch (FileSystemNotFoundException e) {
+			// Never opened, or already closed
+		}
+	}
+
+	private static URI toReadOnlyKey(URI uri) throws IOException {
+		try {
+			return new URI("quilt-zip:" + uri.getScheme(), uri.getHost(), uri.getPath(), uri.getFragment());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
+
+	private static URI toJarUri(URI uri) throws IOException {
+		try {
+			return new URI("jar:" + uri.getScheme(), uri.getHost(), uri.getPath(), uri.getFragment());
+		} catch (URISyntaxException e) {
+			throw new IOException(e);
+		}
+	}
 }
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystemNotFoundException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/** Helpers for computing the content hashes that the loader's on-disk caches are keyed by. */
+public final class HashUtil {
+	private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+	private HashUtil() {
+
+	}
+
+	public static MessageDigest newDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			// SHA-1 is required to be present on every java platform
+			throw new IllegalStateException(e);
+		}
+	}
+
+	public static void update(MessageDigest digest, String str) {
+		byte[] bytes = str.getBytes(StandardCharsets.UTF_8);
+		update(digest, bytes.length);
+		digest.update(bytes);
+	}
+
+	public static void update(MessageDigest digest, long value) {
+		for (int i = 0; i < 8; i++) {
+			digest.update((byte) (value >>> (i * 8)));
+		}
+	}
+
+	public static void update(MessageDigest digest, Path file) throws IOException {
+		byte[] buffer = new byte[8192];
+
+		try (InputStream stream = Files.newInputStream(file)) {
+			int len;
+
+			while ((len = stream.read(buffer)) > 0) {
+				digest.update(buffer, 0, len);
+			}
+		}
+	}
+
+	/** Adds the implementation version of the given class's package, and the size and modification time of the jar
+	 * that it was loaded from, so that cached results are thrown away whenever that jar is updated.
+	 * @return False if the class wasn't loaded from a jar and its package has no version, which is most likely a
+	 *		 development environment where the class could change at any time. */
+	public static boolean updateCodeSource(MessageDigest digest, Class<?> cls) throws IOException {
+		String version = cls.getPackage() == null ? null : cls.getPackage().getImplementationVersion();
+		CodeSource source = cls.getProtectionDomain().getCodeSource();
+		Path path = null;
+
+		if (source != null && source.getLocation() != null) {
+			try {
+				path = Paths.get(source.getLocation().toURI());
+			} catch (URISyntaxException | IllegalArgumentException | FileSystemNotFoundException e) {
+				// Not a file
+			}
+		}
+
+		if (path != null && Files.isRegularFile(path)) {
+			update(digest, Files.size(path));
+			update(digest, Files.getLastModifiedTime(path).toMillis());
+		} else if (version == null) {
+			return false;
+		}
+
+		update(digest, version == null ? "" : version);
+		return true;
+	}
+
+	public static String hash(byte[] bytes) {
+		return toHex(newDigest().digest(bytes));
+	}
+
+	public static String hash(Path file) throws IOException {
+		MessageDigest digest = newDigest();
+		update(digest, file);
+		return toHex(digest.digest());
+	}
+
+	public static String toHex(byte[] bytes) {
+		char[] chars = new char[bytes.length * 2];
+
+		for (int i = 0; i < bytes.length; i++) {
+			chars[i * 2] = HEX[(bytes[i] >> 4) & 0xF];
+			chars[i * 2 + 1] = HEX[bytes[i] & 0xF];
+		}
+
+		return new String(chars);
+	}
+}
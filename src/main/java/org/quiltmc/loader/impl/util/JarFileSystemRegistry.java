@@ -0,0 +1,222 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.util;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.quiltmc.loader.impl.filesystem.QuiltZipFileSystem;
+
+/**
+ * Keeps track of every jar {@link FileSystem} that the loader opens, so that each jar's central directory is only read
+ * once no matter how many parts of the loader need it. File systems are reference counted: every
+ * {@link FileSystemUtil#getJarFileSystem} or {@link FileSystemUtil#getReadOnlyJarFileSystem} call must be paired with a {@link FileSystemUtil.FileSystemDelegate#close()},
+ * and the file system is only closed once nothing is using it any more.
+ */
+public final class JarFileSystemRegistry {
+	private static final Map<URI, Entry> ENTRIES = new HashMap<>();
+
+	private static final AtomicLong ACQUIRE_COUNT = new AtomicLong();
+	private static final AtomicLong OPEN_COUNT = new AtomicLong();
+	private static final AtomicLong CLOSE_COUNT = new AtomicLong();
+	private static final AtomicLong OPEN_NANOS = new AtomicLong();
+
+	private JarFileSystemRegistry() {
+
+	}
+
+	static FileSystemUtil.FileSystemDelegate acquire(URI jarUri, Map<String, ?> env) throws IOException {
+		return acquire(jarUri, null, env);
+	}
+
+	/**
+	 * @param key The key to share the file system under, which must differ from the jar URI used for the same zip in
+	 * {@link #acquire(URI, Map)}.
+	 */
+	static FileSystemUtil.FileSystemDelegate acquireReadOnly(URI key, Path zip) throws IOException {
+		return acquire(key, zip, null);
+	}
+
+	private static FileSystemUtil.FileSystemDelegate acquire(URI key, Path readOnlyZip, Map<String, ?> env) throws IOException {
+		Entry entry;
+
+		synchronized (ENTRIES) {
+			entry = ENTRIES.computeIfAbsent(key, uri -> new Entry(uri, readOnlyZip));
+			entry.references++;
+		}
+
+		ACQUIRE_COUNT.incrementAndGet();
+
+		try {
+			// Opened outside of the registry lock, so different jars can be read in parallel
+			return new FileSystemUtil.FileSystemDelegate(entry.open(env), entry);
+		} catch (IOException | RuntimeException e) {
+			release(entry);
+			throw e;
+		}
+	}
+
+	/** @return A new reference to the file system for the given jar, or null if it isn't open already. */
+	static FileSystemUtil.FileSystemDelegate retain(URI jarUri) {
+		Entry entry;
+
+		synchronized (ENTRIES) {
+			entry = ENTRIES.get(jarUri);
+
+			if (entry == null || entry.fileSystem == null) {
+				return null;
+			}
+
+			entry.references++;
+		}
+
+		ACQUIRE_COUNT.incrementAndGet();
+		return new FileSystemUtil.FileSystemDelegate(entry.fileSystem, entry);
+	}
+
+	static void release(Entry entry) throws IOException {
+		synchronized (ENTRIES) {
+			if (entry.closed || --entry.references > 0) {
+				return;
+			}
+
+			ENTRIES.remove(entry.uri);
+			// Closed while still locked, so that nothing can open the same jar again before this has been closed
+			entry.close();
+		}
+	}
+
+	/** Closes the file system for the given jar, even if something is still using it. */
+	static void forceClose(URI jarUri) throws IOException {
+		synchronized (ENTRIES) {
+			Entry entry = ENTRIES.remove(jarUri);
+
+			if (entry != null) {
+				entry.close();
+			}
+		}
+	}
+
+	public static Metrics getMetrics() {
+		int open;
+
+		synchronized (ENTRIES) {
+			open = ENTRIES.size();
+		}
+
+		return new Metrics(open, OPEN_COUNT.get(), CLOSE_COUNT.get(), ACQUIRE_COUNT.get(), OPEN_NANOS.get());
+	}
+
+	static final class Entry {
+		final URI uri;
+		/** The zip to open as a {@link QuiltZipFileSystem}, or null to open {@link #uri} through the JDK instead. */
+		private final Path readOnlyZip;
+		/** Guarded by {@link JarFileSystemRegistry#ENTRIES}. */
+		int references;
+		boolean closed;
+		volatile FileSystem fileSystem;
+		/** False if the file system was opened by something other than the loader, in which case it's never closed. */
+		private boolean owner;
+
+		Entry(URI uri, Path readOnlyZip) {
+			this.uri = uri;
+			this.readOnlyZip = readOnlyZip;
+		}
+
+		synchronized FileSystem open(Map<String, ?> env) throws IOException {
+			if (fileSystem == null) {
+				long start = System.nanoTime();
+
+				try {
+					fileSystem = readOnlyZip != null ? QuiltZipFileSystem.open(readOnlyZip) : FileSystems.newFileSystem(uri, env);
+					owner = true;
+					OPEN_COUNT.incrementAndGet();
+				} catch (FileSystemAlreadyExistsException e) {
+					fileSystem = FileSystems.getFileSystem(uri);
+					owner = false;
+				}
+
+				OPEN_NANOS.addAndGet(System.nanoTime() - start);
+			}
+
+			return fileSystem;
+		}
+
+		synchronized void close() throws IOException {
+			closed = true;
+
+			if (owner && fileSystem != null && fileSystem.isOpen()) {
+				fileSystem.close();
+				CLOSE_COUNT.incrementAndGet();
+			}
+		}
+	}
+
+	/** A snapshot of how the registry has been used so far. */
+	public static final class Metrics {
+		private final int openJars;
+		private final long totalOpened;
+		private final long totalClosed;
+		private final long acquisitions;
+		private final long openNanos;
+
+		Metrics(int openJars, long totalOpened, long totalClosed, long acquisitions, long openNanos) {
+			this.openJars = openJars;
+			this.totalOpened = totalOpened;
+			this.totalClosed = totalClosed;
+			this.acquisitions = acquisitions;
+			this.openNanos = openNanos;
+		}
+
+		/** @return The number of jars that are currently open. */
+		public int getOpenJars() {
+			return openJars;
+		}
+
+		/** @return The number of times a jar file system was actually created, and so had its central directory read. */
+		public long getTotalOpened() {
+			return totalOpened;
+		}
+
+		public long getTotalClosed() {
+			return totalClosed;
+		}
+
+		/** @return The number of times a file system was asked for, including ones that were already open. */
+		public long getAcquisitions() {
+			return acquisitions;
+		}
+
+		/** @return The total time spent creating file systems, which is mostly spent reading central directories. */
+		public long getOpenNanos() {
+			return openNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d jar file systems open, %d opened (%d shared) and %d closed so far, %.1f ms spent opening",
+				openJars, totalOpened, acquisitions - totalOpened, totalClosed, openNanos / 1_000_000.0);
+		}
+	}
+}
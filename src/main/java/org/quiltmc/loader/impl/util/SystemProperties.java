@@ -25,8 +25,18 @@ public final class SystemProperties {
 	public static final String LAUNCHER_NAME = "quilt.launcherName";
 	public static final String DEBUG_MOD_RESOLVING = "quilt.debug.mod_resolving";
 	public static final String DEBUG_MOD_SOLVING = "quilt.debug.mod_solving";
+	/** How many milliseconds the solver may spend finding more problems after the first, when mods can't be loaded. */
+	public static final String SOLVER_EXPLAIN_TIME_BUDGET = "quilt.solverExplainTimeBudget";
 	public static final String MODS_DIRECTORY = "quilt.modsDir";
 	public static final String CONFIG_DIRECTORY = "quilt.configDir";
+	public static final String CACHE_DIRECTORY = "quilt.cacheDir";
+	public static final String PARALLEL_ENTRYPOINTS = "quilt.parallelEntrypoints";
+	/** Opens mod jars with the JDK zip file system instead of the loader's read-only one. */
+	public static final String DISABLE_OPTIMIZED_ZIP = "quilt.disableOptimizedZipFs";
+	/** The most bytes of transformed classes to keep for mixin, or 0 to not keep any. */
+	public static final String CLASS_BYTE_CACHE_SIZE = "quilt.classByteCacheSize";
+	/** Sends every class through the mixin transformer, rather than only the classes that mixins target. */
+	public static final String DISABLE_MIXIN_TARGET_INDEX = "quilt.disableMixinTargetIndex";
 
 	private SystemProperties() {
 	}
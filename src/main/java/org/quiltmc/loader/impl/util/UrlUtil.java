@@ -21,6 +21,8 @@ import java.net.*;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 
+import org.quiltmc.loader.impl.filesystem.QuiltZipFileSystemProvider;
+
 public final class UrlUtil {
 	private UrlUtil() {
 
@@ -63,7 +65,18 @@ public final class UrlUtil {
 			return asFile(url).toPath();
 		} else {
 			try {
-				return Paths.get(url.toURI());
+				URI uri = url.toURI();
+
+				if ("jar".equals(uri.getScheme())) {
+					// Paths inside mod jars belong to a file system that isn't installed, so the JDK can't find them
+					Path path = QuiltZipFileSystemProvider.getOpenPath(uri);
+
+					if (path != null) {
+						return path;
+					}
+				}
+
+				return Paths.get(uri);
 			} catch (URISyntaxException e) {
 				throw new UrlConversionException(e);
 			}
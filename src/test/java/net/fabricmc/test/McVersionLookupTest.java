@@ -17,15 +17,24 @@
 package net.fabricmc.test;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.SimpleFileVisitor;
 import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import org.quiltmc.loader.impl.minecraft.McVersion;
 import org.quiltmc.loader.impl.minecraft.McVersionLookup;
@@ -67,6 +76,59 @@ public final class McVersionLookupTest {
 		}
 	}
 
+	@Test
+	public void cachedVersion(@TempDir Path dir) throws IOException {
+		Path jar = dir.resolve("minecraft.jar");
+		Path cacheDir = dir.resolve("cache");
+
+		writeGameJar(jar, "1.16.4");
+		FileTime lastModified = Files.getLastModifiedTime(jar);
+		Assertions.assertEquals("1.16.4", lookup(jar, cacheDir, "loader-a"));
+		Assertions.assertTrue(Files.isRegularFile(cacheDir.resolve("game-versions.bin")));
+
+		// Same path, size and modification time, so the cached version is used without reading the jar
+		writeGameJar(jar, "1.16.5");
+		Files.setLastModifiedTime(jar, lastModified);
+		Assertions.assertEquals("1.16.4", lookup(jar, cacheDir, "loader-a"));
+
+		// A different loader might detect versions differently, so it can't use anything cached by the old one
+		Assertions.assertEquals("1.16.5", lookup(jar, cacheDir, "loader-b"));
+
+		// The jar's size changed, so it has to be read again
+		writeGameJar(jar, "21w03a");
+		Assertions.assertEquals("21w03a", lookup(jar, cacheDir, "loader-b"));
+	}
+
+	@Test
+	public void uncachedVersion(@TempDir Path dir) throws IOException {
+		Path jar = dir.resolve("minecraft.jar");
+		Path cacheDir = dir.resolve("cache");
+		writeGameJar(jar, "1.16.4");
+
+		// Without a loader key (as in a development environment) nothing is cached
+		Assertions.assertEquals("1.16.4", lookup(jar, cacheDir, null));
+		Assertions.assertFalse(Files.exists(cacheDir.resolve("game-versions.bin")));
+
+		// A broken cache file is ignored, and then replaced
+		Files.createDirectories(cacheDir);
+		Files.write(cacheDir.resolve("game-versions.bin"), new byte[] { 1, 2, 3 });
+		Assertions.assertEquals("1.16.4", lookup(jar, cacheDir, "loader-a"));
+		Assertions.assertTrue(Files.size(cacheDir.resolve("game-versions.bin")) > 3);
+	}
+
+	private static String lookup(Path jar, Path cacheDir, String loaderKey) {
+		return McVersionLookup.getVersion(jar, Collections.singletonList("net.minecraft.client.main.Main"), null, cacheDir, loaderKey).getRaw();
+	}
+
+	private static void writeGameJar(Path jar, String version) throws IOException {
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			zip.putNextEntry(new ZipEntry("version.json"));
+			String json = "{\"id\": \"" + version + "\", \"name\": \"" + version + "\", \"release_target\": \"" + version + "\"}";
+			zip.write(json.getBytes(StandardCharsets.UTF_8));
+			zip.closeEntry();
+		}
+	}
+
 	private static void check(Path file, String name, List<String> invalid) {
 		McVersion result = McVersionLookup.getVersionExceptClassVersion(file);
 		String msg = String.format("%s: %s (%s)", name, result.getNormalized(), result.getRaw());
@@ -16,21 +16,37 @@
 
 package net.fabricmc.test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
 import java.util.Map.Entry;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeAll;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.quiltmc.loader.impl.discovery.DirectoryModCandidateFinder;
 import org.quiltmc.loader.impl.discovery.ModCandidate;
 import org.quiltmc.loader.impl.discovery.ModResolutionException;
 import org.quiltmc.loader.impl.discovery.ModResolver;
 import org.quiltmc.loader.impl.discovery.ModSolvingException;
 import org.quiltmc.loader.impl.solver.ModSolveResult;
+import org.quiltmc.loader.impl.util.UrlUtil;
 
 final class ModResolvingTests {
 	private static final Logger LOGGER = LogManager.getLogger();
@@ -181,6 +197,150 @@ final class ModResolvingTests {
         assertNoMoreMods(modSet);
     }
 
+	@Test
+	public void nestedJars(@TempDir Path modRoot) throws Exception {
+		byte[] library = jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"));
+		byte[] notAMod = jar("readme.txt", "Not a mod");
+		Files.write(modRoot.resolve("main.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-main", "1.0.0", "library.jar", "nothing.jar"),
+			"library.jar", library,
+			"nothing.jar", notAMod
+		));
+
+		int inMemoryBefore = countInMemoryJars();
+		ModResolver resolver = newResolver(modRoot);
+		ModSolveResult modSet = resolver.resolve(null);
+		ModCandidate main = modSet.modMap.get("mod-resolving-tests-main");
+		ModCandidate nested = modSet.modMap.get("mod-resolving-tests-library");
+
+		assertModPresent(modSet, "mod-resolving-tests-main", "1.0.0");
+		assertModPresent(modSet, "mod-resolving-tests-library", "1.0.0");
+		assertNoMoreMods(modSet);
+
+		// The selected nested jar must have been copied out of main.jar, and nothing.jar ignored entirely
+		Assertions.assertSame(main, nested.getParent());
+		Assertions.assertNull(main.getParent());
+		Assertions.assertTrue(Files.isRegularFile(UrlUtil.asPath(nested.getOriginUrl())));
+		Assertions.assertEquals(inMemoryBefore + 1, countInMemoryJars());
+		Assertions.assertEquals(main.getOriginUrl(), resolver.getSourceURL(nested.getOriginUrl()));
+	}
+
+	@Test
+	public void nestedJarsAfterRelease(@TempDir Path modRoot) throws Exception {
+		Files.write(modRoot.resolve("main.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-main", "1.0.0", "library.jar"),
+			"library.jar", jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"))
+		));
+		Path newLibrary = modRoot.resolve("library.jar");
+		Files.write(newLibrary, jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "2.0.0")));
+
+		ModResolver resolver = newResolver(modRoot);
+		assertModPresent(resolver.resolve(null), "mod-resolving-tests-library", "2.0.0");
+
+		// main.jar is closed by this, so the nested library that wasn't selected before must be found again
+		resolver.releaseJarFileSystems();
+		Files.delete(newLibrary);
+		ModSolveResult modSet = resolver.resolve(null);
+		ModCandidate nested = modSet.modMap.get("mod-resolving-tests-library");
+
+		assertModPresent(modSet, "mod-resolving-tests-main", "1.0.0");
+		assertModPresent(modSet, "mod-resolving-tests-library", "1.0.0");
+		assertNoMoreMods(modSet);
+		Assertions.assertTrue(Files.isRegularFile(UrlUtil.asPath(nested.getOriginUrl())));
+	}
+
+	@Test
+	public void storedNestedJarWithDataDescriptor(@TempDir Path modRoot) throws Exception {
+		// ZipInputStream can't read stored entries that have a data descriptor, but they're valid in a central directory
+		byte[] library = storedJarWithDataDescriptor("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"));
+		Files.write(modRoot.resolve("main.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-main", "1.0.0", "library.jar"),
+			"library.jar", library
+		));
+
+		ModSolveResult modSet = resolveModSet(modRoot);
+
+		assertModPresent(modSet, "mod-resolving-tests-main", "1.0.0");
+		assertModPresent(modSet, "mod-resolving-tests-library", "1.0.0");
+		assertNoMoreMods(modSet);
+	}
+
+	@Test
+	public void duplicateNestedJars(@TempDir Path modRoot) throws Exception {
+		byte[] oldLibrary = jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"));
+		byte[] newLibrary = jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "2.0.0"));
+		Files.write(modRoot.resolve("main.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-main", "1.0.0", "library.jar"),
+			"library.jar", oldLibrary
+		));
+		Files.write(modRoot.resolve("other.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-other", "1.0.0", "library.jar"),
+			"library.jar", newLibrary
+		));
+		Files.write(modRoot.resolve("copy.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-copy", "1.0.0", "library.jar"),
+			"library.jar", newLibrary
+		));
+
+		// Resolve more than once, since the nested jars are cached between resolves
+		ModResolver resolver = newResolver(modRoot);
+
+		for (int i = 0; i < 3; i++) {
+			int inMemoryBefore = countInMemoryJars();
+			ModSolveResult modSet = resolver.resolve(null);
+			ModCandidate library = modSet.modMap.get("mod-resolving-tests-library");
+
+			assertModPresent(modSet, "mod-resolving-tests-main", "1.0.0");
+			assertModPresent(modSet, "mod-resolving-tests-other", "1.0.0");
+			assertModPresent(modSet, "mod-resolving-tests-copy", "1.0.0");
+			assertModPresent(modSet, "mod-resolving-tests-library", "2.0.0");
+			assertNoMoreMods(modSet);
+
+			Assertions.assertTrue(Files.isRegularFile(UrlUtil.asPath(library.getOriginUrl())));
+			String parent = library.getParent().getInfo().getId();
+			Assertions.assertTrue(parent.equals("mod-resolving-tests-other") || parent.equals("mod-resolving-tests-copy"), parent);
+
+			// Only the selected copy of the library may be kept in memory
+			if (i == 0) {
+				Assertions.assertEquals(inMemoryBefore + 1, countInMemoryJars());
+			} else {
+				Assertions.assertEquals(inMemoryBefore, countInMemoryJars());
+			}
+		}
+	}
+
+	@Test
+	public void discardedNestedJars(@TempDir Path modRoot) throws Exception {
+		// bundle.jar has to be copied out of main.jar to find the jar inside of it, but nothing depends on either
+		byte[] library = jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"));
+		byte[] inner = jar("quilt.mod.json", optionalQuiltModJson("mod-resolving-tests-inner"));
+		byte[] bundle = jar(
+			"quilt.mod.json", optionalQuiltModJson("mod-resolving-tests-bundle", "inner.jar"),
+			"inner.jar", inner
+		);
+		Files.write(modRoot.resolve("main.jar"), jar(
+			"fabric.mod.json", fabricModJson("mod-resolving-tests-main", "1.0.0", "library.jar", "bundle.jar"),
+			"library.jar", library,
+			"bundle.jar", bundle
+		));
+
+		ModResolver resolver = newResolver(modRoot);
+
+		for (int i = 0; i < 2; i++) {
+			int inMemoryBefore = countInMemoryJars();
+			ModSolveResult modSet = resolver.resolve(null);
+
+			assertModPresent(modSet, "mod-resolving-tests-main", "1.0.0");
+			assertModPresent(modSet, "mod-resolving-tests-library", "1.0.0");
+			assertModMissing(modSet, "mod-resolving-tests-bundle");
+			assertModMissing(modSet, "mod-resolving-tests-inner");
+			assertNoMoreMods(modSet);
+
+			// Only the library is kept in memory, and it's reused by the second resolve
+			Assertions.assertEquals(i == 0 ? inMemoryBefore + 1 : inMemoryBefore, countInMemoryJars());
+		}
+	}
+
     @Test
     public void breaksError() {
     	resolveErrorSet("breaks");
@@ -191,6 +351,61 @@ final class ModResolvingTests {
         resolveErrorSet("multi_breaks");
     }
 
+	@Test
+	public void conflictingVersionsError(@TempDir Path modRoot) throws Exception {
+		Files.write(modRoot.resolve("first.jar"), jar(
+			"fabric.mod.json", dependantModJson("mod-resolving-tests-first", "1.0.0"),
+			"library.jar", jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "1.0.0"))
+		));
+		Files.write(modRoot.resolve("second.jar"), jar(
+			"fabric.mod.json", dependantModJson("mod-resolving-tests-second", "2.0.0"),
+			"library.jar", jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "2.0.0"))
+		));
+		// Nothing needs this version, so it mustn't be blamed for the conflict
+		Files.write(modRoot.resolve("third.jar"), jar(
+			"fabric.mod.json", "{\"schemaVersion\": 1, \"id\": \"mod-resolving-tests-third\", \"version\": \"1.0.0\", "
+				+ "\"jars\": [{\"file\": \"library.jar\"}], \"suggests\": {\"mod-resolving-tests-library\": \"*\"}}",
+			"library.jar", jar("fabric.mod.json", fabricModJson("mod-resolving-tests-library", "3.0.0"))
+		));
+
+		ModSolvingException error = Assertions.assertThrows(ModSolvingException.class, () -> resolveModSet(modRoot));
+		List<String> lines = Arrays.asList(error.getMessage().split("\n"));
+
+		// The versions are listed in whichever order they were found in
+		Assertions.assertEquals(3, lines.size(), error.getMessage());
+		Assertions.assertTrue(lines.get(0).equals("Only one version of mod-resolving-tests-library can be loaded, but v1.0.0 and v2.0.0 are both needed!")
+			|| lines.get(0).equals("Only one version of mod-resolving-tests-library can be loaded, but v2.0.0 and v1.0.0 are both needed!"), lines.get(0));
+		Assertions.assertTrue(lines.contains("\t- 'mod-resolving-tests-library' (mod-resolving-tests-library) v1.0.0 is loaded because "
+			+ "'mod-resolving-tests-first' (mod-resolving-tests-first) v1.0.0 requires it."), error.getMessage());
+		Assertions.assertTrue(lines.contains("\t- 'mod-resolving-tests-library' (mod-resolving-tests-library) v2.0.0 is loaded because "
+			+ "'mod-resolving-tests-second' (mod-resolving-tests-second) v1.0.0 requires it."), error.getMessage());
+	}
+
+	@Test
+	public void independentConflictsError(@TempDir Path modRoot) throws Exception {
+		// Two conflicts that share no mods, which must both be reported rather than just the first one found
+		writeDependantJar(modRoot, "mod-resolving-tests-first", "mod-resolving-tests-library", "1.0.0");
+		writeDependantJar(modRoot, "mod-resolving-tests-second", "mod-resolving-tests-library", "2.0.0");
+		writeDependantJar(modRoot, "mod-resolving-tests-third", "mod-resolving-tests-other", "1.0.0");
+		writeDependantJar(modRoot, "mod-resolving-tests-fourth", "mod-resolving-tests-other", "2.0.0");
+
+		ModSolvingException error = Assertions.assertThrows(ModSolvingException.class, () -> resolveModSet(modRoot));
+		Assertions.assertEquals("Found 2 errors while resolving mods!", error.getMessage());
+
+		List<String> conflicts = new ArrayList<>();
+
+		for (Throwable suppressed : error.getSuppressed()) {
+			conflicts.add(suppressed.getMessage().split("\n")[0].replace("v2.0.0 and v1.0.0", "v1.0.0 and v2.0.0"));
+		}
+
+		// The conflicts are reported in whichever order they were found in
+		Collections.sort(conflicts);
+		Assertions.assertEquals(Arrays.asList(
+			"Only one version of mod-resolving-tests-library can be loaded, but v1.0.0 and v2.0.0 are both needed!",
+			"Only one version of mod-resolving-tests-other can be loaded, but v1.0.0 and v2.0.0 are both needed!"
+		), conflicts);
+	}
+
     private static void resolveErrorSet(String subpath) {
     	try {
     		ModSolveResult result = resolveModSet("error", subpath);
@@ -215,12 +430,113 @@ final class ModResolvingTests {
     }
 
 	private static ModSolveResult resolveModSet(String type, String subpath) throws ModResolutionException {
+		return resolveModSet(testLocation.resolve(type).resolve(subpath));
+	}
 
-		Path modRoot = testLocation.resolve(type).resolve(subpath);
+	private static ModSolveResult resolveModSet(Path modRoot) throws ModResolutionException {
+		return newResolver(modRoot).resolve(null);
+	}
 
+	private static ModResolver newResolver(Path modRoot) {
 		ModResolver resolver = new ModResolver(LOGGER, true, modRoot);
 		resolver.addCandidateFinder(new DirectoryModCandidateFinder(modRoot, false));
-		return resolver.resolve(null);
+		return resolver;
+	}
+
+	/** @return A fabric.mod.json that nests the given jars, and depends on mod-resolving-tests-library if it nests any. */
+	private static String fabricModJson(String id, String version, String... jars) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"schemaVersion\": 1, \"id\": \"").append(id).append("\", \"version\": \"").append(version).append("\"");
+
+		if (jars.length > 0) {
+			sb.append(", \"jars\": [");
+
+			for (int i = 0; i < jars.length; i++) {
+				sb.append(i == 0 ? "" : ", ").append("{\"file\": \"").append(jars[i]).append("\"}");
+			}
+
+			sb.append("], \"depends\": {\"mod-resolving-tests-library\": \"*\"}");
+		}
+
+		return sb.append("}").toString();
+	}
+
+	/** @return A fabric.mod.json that nests library.jar, and depends on exactly the given version of it. */
+	private static String dependantModJson(String id, String libraryVersion) {
+		return "{\"schemaVersion\": 1, \"id\": \"" + id + "\", \"version\": \"1.0.0\", \"jars\": [{\"file\": \"library.jar\"}], "
+			+ "\"depends\": {\"mod-resolving-tests-library\": \"" + libraryVersion + "\"}}";
+	}
+
+	/** Writes a jar for the given mod, which nests and depends on exactly the given version of the given library. */
+	private static void writeDependantJar(Path modRoot, String id, String libraryId, String libraryVersion) throws IOException {
+		Files.write(modRoot.resolve(id + ".jar"), jar(
+			"fabric.mod.json", "{\"schemaVersion\": 1, \"id\": \"" + id + "\", \"version\": \"1.0.0\", \"jars\": [{\"file\": \"library.jar\"}], "
+				+ "\"depends\": {\"" + libraryId + "\": \"" + libraryVersion + "\"}}",
+			"library.jar", jar("fabric.mod.json", fabricModJson(libraryId, libraryVersion))
+		));
+	}
+
+	/** @return A quilt.mod.json for a mod that's only loaded if something depends on it. */
+	private static String optionalQuiltModJson(String id, String... jars) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"schema_version\": 1, \"quilt_loader\": {\"group\": \"org.quiltmc\", \"id\": \"").append(id);
+		sb.append("\", \"version\": \"1.0.0\", \"load_type\": \"if_required\", \"jars\": [");
+
+		for (int i = 0; i < jars.length; i++) {
+			sb.append(i == 0 ? "\"" : ", \"").append(jars[i]).append("\"");
+		}
+
+		return sb.append("]}}").toString();
+	}
+
+	/** @param entries Pairs of entry names and their contents, which are either a string or the bytes of a nested jar.
+	 * @return The bytes of a jar file holding the given entries. */
+	private static byte[] jar(Object... entries) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+		try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+			for (int i = 0; i < entries.length; i += 2) {
+				Object content = entries[i + 1];
+				zip.putNextEntry(new ZipEntry((String) entries[i]));
+				zip.write(content instanceof String ? ((String) content).getBytes(StandardCharsets.UTF_8) : (byte[]) content);
+				zip.closeEntry();
+			}
+		}
+
+		return bytes.toByteArray();
+	}
+
+	/** @return The bytes of a jar file with a single stored entry, whose sizes and crc are only given after its data. */
+	private static byte[] storedJarWithDataDescriptor(String name, String content) {
+		byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+		byte[] data = content.getBytes(StandardCharsets.UTF_8);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		int centralOffset = 30 + nameBytes.length + data.length + 16;
+		ByteBuffer zip = ByteBuffer.allocate(centralOffset + 46 + nameBytes.length + 22).order(ByteOrder.LITTLE_ENDIAN);
+
+		// Local header, with bit 3 set and no sizes
+		zip.putInt(0x04034b50).putShort((short) 20).putShort((short) 8).putShort((short) 0).putInt(0);
+		zip.putInt(0).putInt(0).putInt(0).putShort((short) nameBytes.length).putShort((short) 0).put(nameBytes);
+		zip.put(data);
+		// Data descriptor
+		zip.putInt(0x08074b50).putInt((int) crc.getValue()).putInt(data.length).putInt(data.length);
+		// Central directory header
+		zip.putInt(0x02014b50).putShort((short) 20).putShort((short) 20).putShort((short) 8).putShort((short) 0).putInt(0);
+		zip.putInt((int) crc.getValue()).putInt(data.length).putInt(data.length).putShort((short) nameBytes.length);
+		zip.putShort((short) 0).putShort((short) 0).putShort((short) 0).putShort((short) 0).putInt(0).putInt(0).put(nameBytes);
+		// End of central directory
+		zip.putInt(0x06054b50).putShort((short) 0).putShort((short) 0).putShort((short) 1).putShort((short) 1);
+		zip.putInt(46 + nameBytes.length).putInt(centralOffset).putShort((short) 0);
+
+		return zip.array();
+	}
+
+	/** @return How many nested jars are currently copied out of their parent jars. */
+	private static int countInMemoryJars() throws IOException {
+		try (Stream<Path> files = Files.list(ModResolver.getInMemoryFs().getPath("/"))) {
+			return (int) files.count();
+		}
 	}
 
 	/** Asserts that the mod with the given ID is both present and is loaded with the specified version. This also
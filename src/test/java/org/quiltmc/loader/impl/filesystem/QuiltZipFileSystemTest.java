@@ -0,0 +1,344 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.filesystem;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileSystem;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.quiltmc.loader.impl.util.UrlUtil;
+
+/** Checks that {@link QuiltZipFileSystem} sees generated jars in the same way as the JDK's zip file system. */
+public class QuiltZipFileSystemTest {
+	/** An even number of seconds, since that's all a zip can store. */
+	private static final long TIME = 1_600_000_000_000L;
+
+	@TempDir
+	Path tempDir;
+
+	private Path jar;
+	private byte[] large;
+
+	@BeforeEach
+	public void writeJar() throws IOException {
+		StringBuilder text = new StringBuilder();
+
+		for (int i = 0; i < 10_000; i++) {
+			text.append("line ").append(i).append('\n');
+		}
+
+		large = text.toString().getBytes(StandardCharsets.UTF_8);
+		// The space makes sure the zip's URI has to be encoded
+		jar = tempDir.resolve("test mod.jar");
+
+		try (ZipOutputStream zip = new ZipOutputStream(Files.newOutputStream(jar))) {
+			deflated(zip, "META-INF/MANIFEST.MF", "Manifest-Version: 1.0\n".getBytes(StandardCharsets.UTF_8));
+			deflated(zip, "assets/mod/lang/en_us.json", "{\"key\": \"value\"}".getBytes(StandardCharsets.UTF_8));
+			stored(zip, "assets/mod/textures/block.png", new byte[] { (byte) 0x89, 'P', 'N', 'G', 0, 1, 2, 3 });
+			stored(zip, "assets/mod/empty.txt", new byte[0]);
+			deflated(zip, "assets/mod/large.txt", large);
+			directory(zip, "data/");
+			deflated(zip, "data/mod/recipes/first.json", "{}".getBytes(StandardCharsets.UTF_8));
+			stored(zip, "data/mod/recipes/second.json", "[]".getBytes(StandardCharsets.UTF_8));
+			deflated(zip, "data/mod/recipes/notes.txt", "not a recipe".getBytes(StandardCharsets.UTF_8));
+		}
+	}
+
+	@Test
+	public void centralDirectoryMatchesJdk() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			Map<String, Path> quiltPaths = walk(quilt);
+			Map<String, Path> jdkPaths = walk(jdk);
+
+			Assertions.assertEquals(jdkPaths.keySet(), quiltPaths.keySet());
+
+			for (Map.Entry<String, Path> entry : jdkPaths.entrySet()) {
+				String name = entry.getKey();
+				BasicFileAttributes expected = Files.readAttributes(entry.getValue(), BasicFileAttributes.class);
+				BasicFileAttributes actual = Files.readAttributes(quiltPaths.get(name), BasicFileAttributes.class);
+
+				Assertions.assertEquals(expected.isDirectory(), actual.isDirectory(), name);
+				Assertions.assertEquals(expected.isRegularFile(), actual.isRegularFile(), name);
+
+				if (expected.isRegularFile()) {
+					Assertions.assertEquals(expected.size(), actual.size(), name);
+					Assertions.assertEquals(expected.lastModifiedTime(), actual.lastModifiedTime(), name);
+					Assertions.assertArrayEquals(Files.readAllBytes(entry.getValue()), Files.readAllBytes(quiltPaths.get(name)), name);
+				}
+			}
+		}
+	}
+
+	@Test
+	public void entryNamesMatchZipFile() throws IOException {
+		List<String> expected = new ArrayList<>();
+
+		try (ZipFile zip = new ZipFile(jar.toFile())) {
+			for (ZipEntry entry : Collections.list(zip.entries())) {
+				String name = entry.getName();
+				expected.add(name.endsWith("/") ? name.substring(0, name.length() - 1) : name);
+			}
+		}
+
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar)) {
+			List<String> names = new ArrayList<>(quilt.getEntryNames());
+			Collections.sort(expected);
+			Collections.sort(names);
+
+			// Only data/ has its own entry, the other folders are implied by the files in them
+			Assertions.assertEquals(expected, names);
+			Assertions.assertTrue(names.contains("data"));
+			Assertions.assertFalse(names.contains("assets"));
+		}
+	}
+
+	@Test
+	public void storedAndDeflatedEntries() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			for (String name : new String[] { "/assets/mod/textures/block.png", "/assets/mod/large.txt", "/assets/mod/empty.txt" }) {
+				Path quiltPath = quilt.getPath(name);
+				byte[] expected = Files.readAllBytes(jdk.getPath(name));
+
+				try (InputStream in = Files.newInputStream(quiltPath)) {
+					Assertions.assertArrayEquals(expected, readAll(in), name);
+				}
+
+				if (expected.length > 4) {
+					// Reading from the middle must work for both kinds of entry
+					try (SeekableByteChannel channel = Files.newByteChannel(quiltPath)) {
+						Assertions.assertEquals(expected.length, channel.size());
+						channel.position(expected.length - 4);
+						ByteBuffer buffer = ByteBuffer.allocate(8);
+
+						while (channel.read(buffer) > 0) {
+						}
+
+						buffer.flip();
+						Assertions.assertEquals(4, buffer.remaining(), name);
+						Assertions.assertArrayEquals(Arrays.copyOfRange(expected, expected.length - 4, expected.length), Arrays.copyOfRange(buffer.array(), 0, 4), name);
+					}
+				}
+			}
+
+			Assertions.assertArrayEquals(large, Files.readAllBytes(quilt.getPath("assets/mod/large.txt")));
+			Assertions.assertThrows(IOException.class, () -> Files.newInputStream(quilt.getPath("assets")));
+			Assertions.assertThrows(NoSuchFileException.class, () -> Files.newInputStream(quilt.getPath("missing.txt")));
+		}
+	}
+
+	@Test
+	public void synthesizedDirectories() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			// Only "data/" has its own entry in the zip
+			for (String name : new String[] { "/", "/assets", "/assets/mod", "/data", "/data/mod", "/data/mod/recipes", "/META-INF" }) {
+				Assertions.assertEquals(Files.isDirectory(jdk.getPath(name)), Files.isDirectory(quilt.getPath(name)), name);
+				Assertions.assertTrue(Files.isDirectory(quilt.getPath(name)), name);
+				Assertions.assertEquals(list(jdk.getPath(name), "*"), list(quilt.getPath(name), "*"), name);
+			}
+
+			Assertions.assertFalse(Files.exists(quilt.getPath("/data/other")));
+			Assertions.assertFalse(Files.isDirectory(quilt.getPath("/assets/mod/large.txt")));
+		}
+	}
+
+	@Test
+	public void directoryStreamFiltering() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			for (String glob : new String[] { "*.json", "*.txt", "first.*", "*" }) {
+				List<String> expected = list(jdk.getPath("/data/mod/recipes"), glob);
+				Assertions.assertFalse(expected.isEmpty(), glob);
+				Assertions.assertEquals(expected, list(quilt.getPath("/data/mod/recipes"), glob), glob);
+			}
+
+			List<String> filtered = new ArrayList<>();
+
+			try (DirectoryStream<Path> stream = Files.newDirectoryStream(quilt.getPath("/assets/mod"), Files::isDirectory)) {
+				stream.forEach(path -> filtered.add(path.toString()));
+			}
+
+			Assertions.assertEquals(Arrays.asList("/assets/mod/lang", "/assets/mod/textures"), filtered);
+		}
+	}
+
+	@Test
+	public void readAttributesByName() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			for (String name : new String[] { "/assets/mod/large.txt", "/data/mod/recipes/second.json" }) {
+				Map<String, Object> expected = Files.readAttributes(jdk.getPath(name), "size,isDirectory,isRegularFile,lastModifiedTime");
+				Assertions.assertEquals(expected, Files.readAttributes(quilt.getPath(name), "size,isDirectory,isRegularFile,lastModifiedTime"), name);
+				Assertions.assertEquals(expected, Files.readAttributes(quilt.getPath(name), "basic:size,isDirectory,isRegularFile,lastModifiedTime"), name);
+
+				// Newer JDKs add their own zip attributes to "basic:*", so only the basic ones are compared
+				Map<String, Object> all = Files.readAttributes(quilt.getPath(name), "*");
+				Map<String, Object> jdkAll = Files.readAttributes(jdk.getPath(name), "basic:*");
+				Assertions.assertEquals(9, all.size(), name);
+
+				for (Map.Entry<String, Object> attribute : all.entrySet()) {
+					Assertions.assertTrue(jdkAll.containsKey(attribute.getKey()), attribute.getKey());
+					Assertions.assertEquals(jdkAll.get(attribute.getKey()), attribute.getValue(), name + " " + attribute.getKey());
+				}
+			}
+
+			Assertions.assertEquals(true, Files.getAttribute(quilt.getPath("/data/mod"), "isDirectory"));
+			Assertions.assertThrows(IllegalArgumentException.class, () -> Files.readAttributes(quilt.getPath("/data"), "size,unknown"));
+			Assertions.assertThrows(UnsupportedOperationException.class, () -> Files.readAttributes(quilt.getPath("/data"), "posix:*"));
+			Assertions.assertThrows(NoSuchFileException.class, () -> Files.readAttributes(quilt.getPath("/missing"), "*"));
+		}
+	}
+
+	@Test
+	public void isSameFile() throws IOException {
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); QuiltZipFileSystem other = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			Path lang = quilt.getPath("/assets/mod/lang/en_us.json");
+
+			Assertions.assertTrue(Files.isSameFile(lang, lang));
+			Assertions.assertTrue(Files.isSameFile(lang, quilt.getPath("assets/mod/lang/en_us.json")));
+			Assertions.assertTrue(Files.isSameFile(lang, quilt.getPath("/assets/mod/textures/../lang/./en_us.json")));
+			Assertions.assertTrue(Files.isSameFile(quilt.getPath("/data/mod"), quilt.getPath("/data/mod/recipes/..")));
+			Assertions.assertFalse(Files.isSameFile(lang, quilt.getPath("/assets/mod/large.txt")));
+			// The JDK never considers paths from different file systems to be the same, even for the same zip
+			Assertions.assertFalse(Files.isSameFile(lang, other.getPath("/assets/mod/lang/en_us.json")));
+			Assertions.assertFalse(Files.isSameFile(lang, jdk.getPath("/assets/mod/lang/en_us.json")));
+			Assertions.assertThrows(NoSuchFileException.class, () -> Files.isSameFile(lang, quilt.getPath("/missing")));
+		}
+	}
+
+	@Test
+	public void uriRoundTrip() throws Exception {
+		URI uri;
+
+		try (QuiltZipFileSystem quilt = QuiltZipFileSystem.open(jar); FileSystem jdk = openJdk()) {
+			Path lang = quilt.getPath("/assets/mod/lang/en_us.json");
+			byte[] expected = Files.readAllBytes(lang);
+			uri = lang.toUri();
+
+			// The same URI as the JDK would give, so that it can be opened as a URL by anything
+			Assertions.assertEquals("jar", uri.getScheme());
+			Assertions.assertEquals(uri, quilt.getPath("assets/mod/lang/en_us.json").toUri());
+			Assertions.assertEquals(uri, quilt.getPath("/data/mod/recipes/../../../assets/mod/lang/en_us.json").normalize().toUri());
+			Assertions.assertEquals(jdk.getPath("/assets/mod/lang/en_us.json").toUri(), uri);
+
+			Assertions.assertEquals(lang, QuiltZipFileSystemProvider.getOpenPath(uri));
+			Assertions.assertEquals(lang, UrlUtil.asPath(uri.toURL()));
+			Assertions.assertEquals(quilt.getPath("/data/mod"), QuiltZipFileSystemProvider.getOpenPath(quilt.getPath("/data/mod").toUri()));
+			Assertions.assertNull(QuiltZipFileSystemProvider.getOpenPath(URI.create("jar:" + tempDir.resolve("other.jar").toUri() + "!/a")));
+
+			URLConnection connection = uri.toURL().openConnection();
+			connection.setUseCaches(false);
+
+			try (InputStream in = connection.getInputStream()) {
+				Assertions.assertArrayEquals(expected, readAll(in));
+			}
+		}
+
+		Assertions.assertNull(QuiltZipFileSystemProvider.getOpenPath(uri));
+		Files.delete(jar);
+	}
+
+	private FileSystem openJdk() throws IOException {
+		return FileSystems.newFileSystem(jar, (ClassLoader) null);
+	}
+
+	/** @return Every path in the file system, by its absolute name. */
+	private static Map<String, Path> walk(FileSystem fs) throws IOException {
+		try (Stream<Path> stream = Files.walk(fs.getPath("/"))) {
+			return stream.collect(Collectors.toMap(Path::toString, path -> path, (a, b) -> a, TreeMap::new));
+		}
+	}
+
+	private static List<String> list(Path dir, String glob) throws IOException {
+		List<String> names = new ArrayList<>();
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, glob)) {
+			for (Path path : stream) {
+				names.add(path.toString());
+			}
+		}
+
+		names.sort(null);
+		return names;
+	}
+
+	private static byte[] readAll(InputStream in) throws IOException {
+		java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+		byte[] buffer = new byte[4096];
+		int read;
+
+		while ((read = in.read(buffer)) >= 0) {
+			out.write(buffer, 0, read);
+		}
+
+		return out.toByteArray();
+	}
+
+	private static void deflated(ZipOutputStream zip, String name, byte[] data) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(TIME);
+		zip.putNextEntry(entry);
+		zip.write(data);
+		zip.closeEntry();
+	}
+
+	private static void stored(ZipOutputStream zip, String name, byte[] data) throws IOException {
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		ZipEntry entry = new ZipEntry(name);
+		entry.setMethod(ZipEntry.STORED);
+		entry.setSize(data.length);
+		entry.setCompressedSize(data.length);
+		entry.setCrc(crc.getValue());
+		entry.setTime(TIME);
+		zip.putNextEntry(entry);
+		zip.write(data);
+		zip.closeEntry();
+	}
+
+	private static void directory(ZipOutputStream zip, String name) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(TIME);
+		zip.putNextEntry(entry);
+		zip.closeEntry();
+	}
+}
@@ -0,0 +1,177 @@
+/*
+ * Copyright 2016 FabricMC
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.quiltmc.loader.impl.transformer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.quiltmc.loader.impl.QuiltLoaderImpl;
+
+import net.fabricmc.accesswidener.AccessWidener;
+import net.fabricmc.accesswidener.AccessWidenerReader;
+import net.fabricmc.accesswidener.AccessWidenerVisitor;
+
+public class AccessFlagPatcherTest {
+	private static final String CLASS_NAME = "test/Widened";
+
+	@TempDir
+	Path tempDir;
+
+	@Test
+	public void patchMatchesVisitor() throws IOException {
+		byte[] original = createClass(false);
+		AccessWidener accessWidener = readAccessWidener(
+			"accessible class test/Widened",
+			"extendable class test/Widened$Inner",
+			"accessible field test/Widened count I",
+			"mutable field test/Widened count I",
+			"mutable field test/Widened NAME Ljava/lang/String;",
+			"accessible method test/Widened <init> ()V",
+			"accessible method test/Widened run ()V",
+			"extendable method test/Widened done ()V"
+		);
+
+		AccessWidenerIndex index = AccessWidenerIndex.create("hash", accessWidener.getTargets());
+		AccessWidenerIndex.ClassEntry entry = index.getEntry("test.Widened", original, () -> accessWidener);
+
+		Assertions.assertTrue(entry.canPatchInPlace());
+		Assertions.assertFalse(entry.isEmpty());
+
+		byte[] expected = widen(original, accessWidener);
+		Assertions.assertFalse(Arrays.equals(rewrite(original), expected));
+		Assertions.assertArrayEquals(expected, rewrite(AccessFlagPatcher.patch(original, entry)));
+
+		// The entry read back from the cache must patch the class in exactly the same way
+		Path cacheFile = tempDir.resolve("access-widener.bin");
+		index.write(cacheFile);
+		AccessWidenerIndex cached = AccessWidenerIndex.read(cacheFile, "hash");
+		Assertions.assertNotNull(cached);
+		AccessWidenerIndex.ClassEntry cachedEntry = cached.getEntry("test.Widened", original, () -> {
+			throw new AssertionError("The cached entry should have been used");
+		});
+
+		Assertions.assertArrayEquals(expected, rewrite(AccessFlagPatcher.patch(original, cachedEntry)));
+		Assertions.assertNull(AccessWidenerIndex.read(cacheFile, "other"));
+	}
+
+	@Test
+	public void untouchedClassIsReturnedAsIs() throws IOException {
+		byte[] original = createClass(false);
+		AccessWidener accessWidener = readAccessWidener("accessible class test/Other");
+
+		AccessWidenerIndex.ClassEntry entry = AccessWidenerIndex.create("hash", accessWidener.getTargets())
+			.getEntry("test.Widened", original, () -> accessWidener);
+
+		Assertions.assertTrue(entry.isEmpty());
+		Assertions.assertSame(original, AccessFlagPatcher.patch(original, entry));
+	}
+
+	@Test
+	public void privateMethodCannotBePatchedInPlace() throws IOException {
+		byte[] original = createClass(true);
+		AccessWidener accessWidener = readAccessWidener("accessible method test/Widened helper ()V");
+
+		AccessWidenerIndex.ClassEntry entry = AccessWidenerIndex.create("hash", accessWidener.getTargets())
+			.getEntry("test.Widened", original, () -> accessWidener);
+
+		// The visitor also turns the INVOKESPECIAL of helper() into an INVOKEVIRTUAL, which flags alone can't express
+		Assertions.assertFalse(entry.canPatchInPlace());
+		Assertions.assertThrows(IllegalArgumentException.class, () -> AccessFlagPatcher.patch(original, entry));
+	}
+
+	private static AccessWidener readAccessWidener(String... lines) throws IOException {
+		AccessWidener accessWidener = new AccessWidener();
+		String text = "accessWidener\tv1\tnamed\n" + String.join("\n", lines) + "\n";
+
+		try (BufferedReader reader = new BufferedReader(new StringReader(text))) {
+			new AccessWidenerReader(accessWidener).read(reader, "named");
+		}
+
+		return accessWidener;
+	}
+
+	/** @return The given class, written through the full {@link AccessWidenerVisitor}. */
+	private static byte[] widen(byte[] classBytes, AccessWidener accessWidener) {
+		ClassWriter writer = new ClassWriter(0);
+		new ClassReader(classBytes).accept(AccessWidenerVisitor.createClassVisitor(QuiltLoaderImpl.ASM_VERSION, writer, accessWidener), 0);
+		return writer.toByteArray();
+	}
+
+	/** @return The given class, written through an otherwise identical chain to {@link #widen}. */
+	private static byte[] rewrite(byte[] classBytes) {
+		ClassWriter writer = new ClassWriter(0);
+		new ClassReader(classBytes).accept(writer, 0);
+		return writer.toByteArray();
+	}
+
+	private static byte[] createClass(boolean callPrivateMethod) {
+		ClassWriter writer = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+		writer.visit(Opcodes.V1_8, Opcodes.ACC_FINAL | Opcodes.ACC_SUPER, CLASS_NAME, null, "java/lang/Object", null);
+		writer.visitInnerClass(CLASS_NAME + "$Inner", CLASS_NAME, "Inner", Opcodes.ACC_PRIVATE | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL);
+
+		writer.visitField(Opcodes.ACC_PRIVATE | Opcodes.ACC_FINAL, "count", "I", null, null).visitEnd();
+		writer.visitField(Opcodes.ACC_PROTECTED | Opcodes.ACC_STATIC | Opcodes.ACC_FINAL, "NAME", "Ljava/lang/String;", null, "name").visitEnd();
+
+		MethodVisitor init = writer.visitMethod(Opcodes.ACC_PRIVATE, "<init>", "()V", null, null);
+		init.visitCode();
+		init.visitVarInsn(Opcodes.ALOAD, 0);
+		init.visitMethodInsn(Opcodes.INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+		init.visitVarInsn(Opcodes.ALOAD, 0);
+		init.visitInsn(Opcodes.ICONST_1);
+		init.visitFieldInsn(Opcodes.PUTFIELD, CLASS_NAME, "count", "I");
+		init.visitInsn(Opcodes.RETURN);
+		init.visitMaxs(0, 0);
+		init.visitEnd();
+
+		MethodVisitor run = writer.visitMethod(Opcodes.ACC_PROTECTED, "run", "()V", null, null);
+		run.visitCode();
+
+		if (callPrivateMethod) {
+			run.visitVarInsn(Opcodes.ALOAD, 0);
+			run.visitMethodInsn(Opcodes.INVOKESPECIAL, CLASS_NAME, "helper", "()V", false);
+		}
+
+		run.visitInsn(Opcodes.RETURN);
+		run.visitMaxs(0, 0);
+		run.visitEnd();
+
+		MethodVisitor done = writer.visitMethod(Opcodes.ACC_PUBLIC | Opcodes.ACC_FINAL, "done", "()V", null, null);
+		done.visitCode();
+		done.visitInsn(Opcodes.RETURN);
+		done.visitMaxs(0, 0);
+		done.visitEnd();
+
+		MethodVisitor helper = writer.visitMethod(Opcodes.ACC_PRIVATE, "helper", "()V", null, null);
+		helper.visitCode();
+		helper.visitInsn(Opcodes.RETURN);
+		helper.visitMaxs(0, 0);
+		helper.visitEnd();
+
+		writer.visitEnd();
+		return writer.toByteArray();
+	}
+}